@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Compares throughput and latency percentiles of the platform-thread and virtual-thread modes.
+#
+#   benchmarks/thread-mode-load.sh target/popd-rating-svc-0.0.1-SNAPSHOT.jar
+#
+# Requires a Java 21 runtime, a MySQL instance configured in application.properties and `hey`
+# (https://github.com/rakyll/hey). For every mode the script starts the service, seeds one user with
+# ratings, then loads the history endpoint (one JDBC query per request) and the cached stats endpoint
+# and prints hey's summary (requests/sec and the latency distribution, including p99).
+set -euo pipefail
+
+JAR=${1:?usage: $0 <service jar>}
+BASE_URL=${BASE_URL:-http://localhost:8084/api/v1}
+DURATION=${DURATION:-60s}
+CONCURRENCY=${CONCURRENCY:-1000}
+USER_ID=${USER_ID:-$(uuidgen)}
+
+run_mode() {
+    local mode=$1 profiles=$2 movie_id
+    echo "=== ${mode} ==="
+    java -Djdk.tracePinnedThreads=short -jar "$JAR" --spring.profiles.active="$profiles" > "target/${mode}.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null' RETURN
+    until curl -sf "http://localhost:8084/actuator/health" > /dev/null; do sleep 1; done
+
+    for _ in $(seq 1 100); do
+        movie_id=$(uuidgen)
+        curl -sf -X POST "$BASE_URL/ratings" -H 'Content-Type: application/json' \
+            -d "{\"userId\":\"${USER_ID}\",\"movieId\":\"${movie_id}\",\"rating\":$((RANDOM % 10 + 1))}" > /dev/null
+    done
+
+    echo "--- GET history (database-bound) ---"
+    hey -z "$DURATION" -c "$CONCURRENCY" "$BASE_URL/ratings/${USER_ID}/history?size=20"
+    echo "--- GET stats (cache-bound) ---"
+    hey -z "$DURATION" -c "$CONCURRENCY" "$BASE_URL/ratings/${movie_id}/stats"
+
+    echo "pinned virtual thread stacks reported: $(grep -c 'monitors:' "target/${mode}.log" || true)"
+}
+
+run_mode platform-threads default
+run_mode virtual-threads virtual-threads
@@ -0,0 +1,97 @@
+-- Insert-rate and index-size comparison of the rating key layouts on MySQL 8 / InnoDB.
+--
+--   mysql -u root popd_rating_svc_bench < benchmarks/uuid-insert-benchmark.sql
+--
+-- Loads the same number of rows into three copies of the ratings table:
+--   ratings_v4_text    random ids as CHAR(36)           (text mapping; MySQL's UUID() is version 1,
+--                      whose leading bytes are the fast-changing time_low, so it scatters like v4)
+--   ratings_v4_binary  random v4 ids as BINARY(16)
+--   ratings_v7_binary  time-ordered v7 ids as BINARY(16) (current mapping)
+-- SYSDATE() is used for timing because NOW() is frozen for the whole CALL. The script reports the elapsed time per table plus data and index sizes from information_schema.
+-- For a meaningful result, run with @rows large enough that the tables outgrow
+-- innodb_buffer_pool_size (or shrink the buffer pool for the run); small loads fit in memory
+-- and hide the page splits that random keys cause.
+
+SET @rows = 5000000;
+SET @batch = 1000;
+
+DROP TABLE IF EXISTS ratings_v4_text, ratings_v4_binary, ratings_v7_binary, uuid_benchmark_results;
+
+CREATE TABLE ratings_v4_text (
+    id CHAR(36) NOT NULL, user_id CHAR(36) NOT NULL, movie_id CHAR(36) NOT NULL,
+    rating INT NOT NULL, created_on DATETIME(6) NOT NULL, updated_on DATETIME(6) NOT NULL,
+    PRIMARY KEY (id), UNIQUE KEY uk_user_movie (user_id, movie_id), KEY idx_user_updated (user_id, updated_on)
+) ENGINE = InnoDB;
+
+CREATE TABLE ratings_v4_binary (
+    id BINARY(16) NOT NULL, user_id BINARY(16) NOT NULL, movie_id BINARY(16) NOT NULL,
+    rating INT NOT NULL, created_on DATETIME(6) NOT NULL, updated_on DATETIME(6) NOT NULL,
+    PRIMARY KEY (id), UNIQUE KEY uk_user_movie (user_id, movie_id), KEY idx_user_updated (user_id, updated_on)
+) ENGINE = InnoDB;
+
+CREATE TABLE ratings_v7_binary LIKE ratings_v4_binary;
+
+CREATE TABLE uuid_benchmark_results (
+    table_name VARCHAR(64) NOT NULL PRIMARY KEY,
+    rows_inserted BIGINT NOT NULL,
+    elapsed_seconds DECIMAL(12, 3) NOT NULL
+);
+
+DELIMITER //
+
+-- Same layout as TimeOrderedUuidGenerator: 48-bit millisecond timestamp, version 7, 12-bit sequence,
+-- variant bits and random tail. The sequence is the low 12 bits of the row number, which keeps ids
+-- increasing as long as fewer than 4096 rows are inserted per millisecond.
+CREATE FUNCTION uuid_v7_bin(seq BIGINT) RETURNS BINARY(16) NOT DETERMINISTIC NO SQL
+BEGIN
+    RETURN UNHEX(CONCAT(
+        LPAD(HEX(FLOOR(UNIX_TIMESTAMP(SYSDATE(3)) * 1000)), 12, '0'),
+        '7', LPAD(HEX(seq % 4096), 3, '0'),
+        HEX(32768 + FLOOR(RAND() * 16384)),
+        LPAD(HEX(FLOOR(RAND() * 281474976710656)), 12, '0')));
+END //
+
+CREATE PROCEDURE load_ratings(IN target VARCHAR(64))
+BEGIN
+    DECLARE i BIGINT DEFAULT 0;
+    DECLARE started DATETIME(6) DEFAULT SYSDATE(6);
+
+    WHILE i < @rows DO
+        START TRANSACTION;
+        REPEAT
+            CASE target
+                WHEN 'ratings_v4_text' THEN
+                    INSERT INTO ratings_v4_text VALUES (UUID(), UUID(), UUID(), 1 + i % 10, NOW(6), NOW(6));
+                WHEN 'ratings_v4_binary' THEN
+                    INSERT INTO ratings_v4_binary VALUES (RANDOM_BYTES(16), RANDOM_BYTES(16), RANDOM_BYTES(16), 1 + i % 10, NOW(6), NOW(6));
+                ELSE
+                    INSERT INTO ratings_v7_binary VALUES (uuid_v7_bin(i), RANDOM_BYTES(16), RANDOM_BYTES(16), 1 + i % 10, NOW(6), NOW(6));
+            END CASE;
+            SET i = i + 1;
+        UNTIL i >= @rows OR i % @batch = 0 END REPEAT;
+        COMMIT;
+    END WHILE;
+
+    INSERT INTO uuid_benchmark_results VALUES (target, @rows, TIMESTAMPDIFF(MICROSECOND, started, SYSDATE(6)) / 1000000);
+END //
+
+DELIMITER ;
+
+CALL load_ratings('ratings_v4_text');
+CALL load_ratings('ratings_v4_binary');
+CALL load_ratings('ratings_v7_binary');
+
+ANALYZE TABLE ratings_v4_text, ratings_v4_binary, ratings_v7_binary;
+
+SELECT r.table_name,
+       r.rows_inserted,
+       r.elapsed_seconds,
+       ROUND(r.rows_inserted / r.elapsed_seconds) AS inserts_per_second,
+       ROUND(t.data_length / 1024 / 1024, 1)      AS clustered_index_mb,
+       ROUND(t.index_length / 1024 / 1024, 1)     AS secondary_indexes_mb
+FROM uuid_benchmark_results r
+JOIN information_schema.tables t ON t.table_schema = DATABASE() AND t.table_name = r.table_name
+ORDER BY r.table_name;
+
+DROP PROCEDURE load_ratings;
+DROP FUNCTION uuid_v7_bin;
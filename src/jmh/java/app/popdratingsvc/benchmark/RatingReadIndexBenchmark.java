@@ -0,0 +1,136 @@
+package app.popdratingsvc.benchmark;
+
+import app.popdratingsvc.config.ReadIndexProperties;
+import app.popdratingsvc.repository.RatingHistoryRow;
+import app.popdratingsvc.repository.RatingRepository;
+import app.popdratingsvc.service.RatingReadIndex;
+import app.popdratingsvc.web.dto.RatingResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups against a {@link RatingReadIndex} filled with the same shape of data as {@link SeededRatingsState}
+ * (20 ratings per user, one movie per 200 ratings), without Spring or a database. The retained heap of the
+ * filled index, measured after a full GC, is printed per million ratings during setup, e.g.
+ * {@code -Djmh.args="RatingReadIndexBenchmark -p ratings=1000000"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RatingReadIndexBenchmark {
+
+    private static final int RATINGS_PER_USER = 20;
+
+    @Param({"100000", "1000000", "10000000"})
+    public int ratings;
+
+    private RatingReadIndex index;
+    private List<UUID> userIds;
+    private List<UUID> movieIds;
+    private int movieStep;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Random random = new Random(42);
+        int users = Math.max(1, ratings / RATINGS_PER_USER);
+        int movies = Math.max(100, ratings / 200);
+        movieStep = movies / RATINGS_PER_USER;
+        userIds = randomIds(random, users);
+        movieIds = randomIds(random, movies);
+
+        List<RatingHistoryRow> rows = new ArrayList<>(users * RATINGS_PER_USER);
+        LocalDateTime ratedOn = LocalDateTime.now().minusDays(30);
+        for (int user = 0; user < users; user++) {
+            for (int i = 0; i < RATINGS_PER_USER; i++) {
+                LocalDateTime updatedOn = ratedOn.plusSeconds(user * RATINGS_PER_USER + i);
+                rows.add(new RatingHistoryRow(new UUID(0, rows.size()), random.nextInt(10) + 1, userIds.get(user),
+                        movieOf(user, i), updatedOn, updatedOn));
+            }
+        }
+
+        long heapBefore = usedHeapAfterGc();
+        index = new RatingReadIndex(pagingRepository(rows), null, new ReadIndexProperties(true, null, Duration.ofMinutes(10), Duration.ofMinutes(1)));
+        index.afterSingletonsInstantiated();
+        long retained = usedHeapAfterGc() - heapBefore;
+        System.out.printf("%nRatingReadIndex: %d ratings, %.1f MB retained, %.1f bytes per rating, %.1f MB per million ratings%n",
+                index.size(), retained / 1e6, (double) retained / index.size(), retained / 1e6 * 1_000_000 / index.size());
+    }
+
+    @Benchmark
+    public Optional<RatingResponse> find() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int user = random.nextInt(userIds.size());
+        return index.find(userIds.get(user), movieOf(user, random.nextInt(RATINGS_PER_USER)));
+    }
+
+    @Benchmark
+    public List<RatingResponse> latest() {
+        return index.latest(userIds.get(ThreadLocalRandom.current().nextInt(userIds.size())), 20);
+    }
+
+    @Benchmark
+    public Optional<RatingReadIndex.MovieTotals> movieTotals() {
+        return index.movieTotals(movieIds.get(ThreadLocalRandom.current().nextInt(movieIds.size())));
+    }
+
+    private UUID movieOf(int userIndex, int ratingIndex) {
+        return movieIds.get((userIndex + ratingIndex * movieStep) % movieIds.size());
+    }
+
+    /**
+     * Serves the index's keyset pages from {@code rows}, whose ids are their positions.
+     */
+    private static RatingRepository pagingRepository(List<RatingHistoryRow> rows) {
+        return (RatingRepository) Proxy.newProxyInstance(RatingRepository.class.getClassLoader(), new Class<?>[]{RatingRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findIndexPage" -> page(rows, 0, (Limit) args[0]);
+                    case "findIndexPageAfter" -> page(rows, (int) ((UUID) args[0]).getLeastSignificantBits() + 1, (Limit) args[1]);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<RatingHistoryRow> page(List<RatingHistoryRow> rows, int from, Limit limit) {
+        return rows.subList(Math.min(from, rows.size()), Math.min(from + limit.max(), rows.size()));
+    }
+
+    private static List<UUID> randomIds(Random random, int count) {
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return ids;
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
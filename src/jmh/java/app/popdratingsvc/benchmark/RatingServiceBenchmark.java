@@ -0,0 +1,54 @@
+package app.popdratingsvc.benchmark;
+
+import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.web.dto.RatingRequest;
+import app.popdratingsvc.web.dto.RatingResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service hot paths against the seeded H2 database. Each invocation picks a random seeded user or movie,
+ * so the cached variants measure a realistic mix of hits rather than a single hot key. The long warmup is
+ * needed for Hibernate's query paths to reach a steady state.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RatingServiceBenchmark {
+
+    @Benchmark
+    public Rating upsertExistingRating(SeededRatingsState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userIndex = random.nextInt(state.userIds.size());
+        RatingRequest request = RatingRequest.builder()
+                .userId(state.userIds.get(userIndex))
+                .movieId(state.movieOf(userIndex, random.nextInt(SeededRatingsState.RATINGS_PER_USER)))
+                .rating(random.nextInt(10) + 1)
+                .build();
+
+        return state.ratingService.upsert(request);
+    }
+
+    @Benchmark
+    public Double getAverageRatingForAMovie(SeededRatingsState state) {
+        return state.ratingService.getAverageRatingForAMovie(
+                state.movieIds.get(ThreadLocalRandom.current().nextInt(state.movieIds.size())));
+    }
+
+    @Benchmark
+    public List<RatingResponse> getLatestRatingsByUserId(SeededRatingsState state) {
+        return state.ratingService.getLatestRatingsByUserId(
+                state.userIds.get(ThreadLocalRandom.current().nextInt(state.userIds.size())));
+    }
+}
@@ -0,0 +1,92 @@
+package app.popdratingsvc.benchmark;
+
+import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.web.dto.RatingResponse;
+import app.popdratingsvc.web.mapper.DtoMapper;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-rating and latest-ratings reads through three paths: managed entities mapped to DTOs in a read-write
+ * transaction ({@code entity}), the same in a read-only transaction ({@code readOnlyEntity}), and the service's
+ * DTO projections ({@code projection}). Run with {@code -prof gc} to compare allocation per read, e.g.
+ * {@code -Djmh.args="ReadPathBenchmark -p ratings=100000 -p cache=none -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final String SINGLE_RATING_QUERY =
+            "select r from Rating r where r.userId = :userId and r.movieId = :movieId";
+    private static final String LATEST_RATINGS_QUERY =
+            "select r from Rating r where r.userId = :userId order by r.updatedOn desc, r.id desc";
+
+    @Param({"entity", "readOnlyEntity", "projection"})
+    public String path;
+
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void prepare(SeededRatingsState state) {
+        entityManager = state.context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(state.context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(path.equals("readOnlyEntity"));
+    }
+
+    @Benchmark
+    public RatingResponse getRating(SeededRatingsState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userIndex = random.nextInt(state.userIds.size());
+        UUID userId = state.userIds.get(userIndex);
+        UUID movieId = state.movieOf(userIndex, random.nextInt(SeededRatingsState.RATINGS_PER_USER));
+
+        if (path.equals("projection")) {
+            return state.ratingService.getRating(userId, movieId);
+        }
+        return transactionTemplate.execute(status -> DtoMapper.from(entityManager
+                .createQuery(SINGLE_RATING_QUERY, Rating.class)
+                .setParameter("userId", userId)
+                .setParameter("movieId", movieId)
+                .getSingleResult()));
+    }
+
+    @Benchmark
+    public List<RatingResponse> getLatestRatingsByUserId(SeededRatingsState state) {
+        UUID userId = state.userIds.get(ThreadLocalRandom.current().nextInt(state.userIds.size()));
+
+        if (path.equals("projection")) {
+            return state.ratingService.getLatestRatingsByUserId(userId);
+        }
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery(LATEST_RATINGS_QUERY, Rating.class)
+                .setParameter("userId", userId)
+                .setMaxResults(20)
+                .getResultList()
+                .stream()
+                .map(DtoMapper::from)
+                .toList());
+    }
+}
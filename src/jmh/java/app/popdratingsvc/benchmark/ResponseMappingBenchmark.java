@@ -0,0 +1,78 @@
+package app.popdratingsvc.benchmark;
+
+import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import app.popdratingsvc.web.dto.RatingResponse;
+import app.popdratingsvc.web.mapper.DtoMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping and JSON serialization of the responses, with an {@link ObjectMapper} built the way
+ * Spring MVC builds its own (Java time module, ISO dates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Rating rating;
+    private RatingResponse ratingResponse;
+    private MovieRatingStatsResponse movieRatingStatsResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        LocalDateTime now = LocalDateTime.now();
+        rating = Rating.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .movieId(UUID.randomUUID())
+                .rating(7)
+                .previousRating(5)
+                .createdOn(now.minusDays(3))
+                .updatedOn(now)
+                .build();
+        ratingResponse = DtoMapper.from(rating);
+        movieRatingStatsResponse = DtoMapper.from(7.25, 1234);
+    }
+
+    @Benchmark
+    public RatingResponse mapRating() {
+        return DtoMapper.from(rating);
+    }
+
+    @Benchmark
+    public MovieRatingStatsResponse mapMovieRatingStats() {
+        return DtoMapper.from(7.25, 1234);
+    }
+
+    @Benchmark
+    public String serializeRatingResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(ratingResponse);
+    }
+
+    @Benchmark
+    public String serializeMovieRatingStatsResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(movieRatingStatsResponse);
+    }
+}
@@ -0,0 +1,107 @@
+package app.popdratingsvc.benchmark;
+
+import app.popdratingsvc.PopdRatingSvcApplication;
+import app.popdratingsvc.service.RatingService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Application context on an in-memory H2 database seeded with {@link #ratings} ratings: every user rates
+ * {@value #RATINGS_PER_USER} distinct movies out of a pool of one movie per 200 ratings (at least 100).
+ * Rows are inserted with plain JDBC batches and the movie aggregates are rebuilt once afterwards.
+ */
+@State(Scope.Benchmark)
+public class SeededRatingsState {
+
+    static final int RATINGS_PER_USER = 20;
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int ratings;
+
+    /** {@code caffeine} measures the production read path, {@code none} the database behind it. */
+    @Param({"caffeine", "none"})
+    public String cache;
+
+    ConfigurableApplicationContext context;
+    RatingService ratingService;
+    List<UUID> userIds;
+    List<UUID> movieIds;
+    int movieStep;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(PopdRatingSvcApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+                        "spring.cache.type=" + cache,
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        ratingService = context.getBean(RatingService.class);
+        seed(context.getBean(JdbcTemplate.class));
+        ratingService.recomputeAllMovieAggregates();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    UUID movieOf(int userIndex, int ratingIndex) {
+        return movieIds.get((userIndex + ratingIndex * movieStep) % movieIds.size());
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        Random random = new Random(42);
+        int users = Math.max(1, ratings / RATINGS_PER_USER);
+        int movies = Math.max(100, ratings / 200);
+        movieStep = movies / RATINGS_PER_USER;
+        userIds = randomIds(random, users);
+        movieIds = randomIds(random, movies);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < users * RATINGS_PER_USER; i++) {
+            Timestamp timestamp = Timestamp.valueOf(now.minusSeconds(i));
+            batch.add(new Object[]{new UUID(random.nextLong(), random.nextLong()), userIds.get(i / RATINGS_PER_USER),
+                    movieOf(i / RATINGS_PER_USER, i % RATINGS_PER_USER), random.nextInt(10) + 1, timestamp, timestamp});
+            if (batch.size() == SEED_BATCH_SIZE) {
+                insert(jdbcTemplate, batch);
+            }
+        }
+        insert(jdbcTemplate, batch);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("""
+                insert into "ratings" ("id", "user_id", "movie_id", "rating", "created_on", "updated_on")
+                values (?, ?, ?, ?, ?, ?)
+                """, batch);
+        batch.clear();
+    }
+
+    private static List<UUID> randomIds(Random random, int count) {
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return ids;
+    }
+}
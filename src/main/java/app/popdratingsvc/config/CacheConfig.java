@@ -0,0 +1,19 @@
+package app.popdratingsvc.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache names used by {@code RatingService}. Caches, their size and time bounds are configured through
+ * {@code spring.cache.*} properties and their hit, miss and eviction counts are published as {@code cache.*} metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String MOVIE_STATS = "movieStats";
+    public static final String MOVIE_AVERAGE_RATINGS = "movieAverageRatings";
+    public static final String MOVIE_RATING_COUNTS = "movieRatingCounts";
+    public static final String USER_STATS = "userStats";
+    public static final String USER_LATEST_RATINGS = "userLatestRatings";
+}
@@ -0,0 +1,25 @@
+package app.popdratingsvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the rating change feed ({@code GET /ratings/changes}).
+ *
+ * @param retention          age after which entries are compacted away
+ * @param compactionInterval pause between two compaction runs
+ * @param maxWait            longest a long-poll request may wait for new entries; keep it below the servlet
+ *                           container's async timeout
+ * @param commitGrace        how long a gap in the sequence holds back the entries after it; must exceed the
+ *                           time from a transaction's first feed insert to its commit plus the clock skew
+ *                           between instances
+ */
+@ConfigurationProperties(prefix = "ratings.change-feed")
+public record ChangeFeedProperties(
+        @DefaultValue("7d") Duration retention,
+        @DefaultValue("1h") Duration compactionInterval,
+        @DefaultValue("25s") Duration maxWait,
+        @DefaultValue("5s") Duration commitGrace) {
+}
@@ -0,0 +1,59 @@
+package app.popdratingsvc.config;
+
+import app.popdratingsvc.web.ConcurrencyLimitInterceptor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts a {@link ConcurrencyLimitInterceptor} with separate read and write limits in front of the API.
+ * Opt-in: only active when {@code ratings.concurrency-limit.enabled} is {@code true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ratings.concurrency-limit", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    private final GradientConcurrencyLimit readLimit;
+    private final GradientConcurrencyLimit writeLimit;
+    private final ConcurrencyLimitInterceptor interceptor;
+
+    public ConcurrencyLimitConfig(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.readLimit = new GradientConcurrencyLimit(properties.initialReadLimit(), properties);
+        this.writeLimit = new GradientConcurrencyLimit(properties.initialWriteLimit(), properties);
+        this.interceptor = new ConcurrencyLimitInterceptor(readLimit, writeLimit, properties.bulkShare(),
+                properties.retryAfter(), meterRegistry);
+        registerGauges(meterRegistry, "read", readLimit);
+        registerGauges(meterRegistry, "write", writeLimit);
+    }
+
+    @Bean
+    public GradientConcurrencyLimit readConcurrencyLimit() {
+        return readLimit;
+    }
+
+    @Bean
+    public GradientConcurrencyLimit writeConcurrencyLimit() {
+        return writeLimit;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/api/**").order(Ordered.HIGHEST_PRECEDENCE);
+    }
+
+    private static void registerGauges(MeterRegistry meterRegistry, String concurrencyClass, GradientConcurrencyLimit limit) {
+        Gauge.builder("ratings.concurrency.limit", limit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("class", concurrencyClass)
+                .register(meterRegistry);
+        Gauge.builder("ratings.concurrency.in-flight", limit::getInFlight)
+                .description("Requests currently holding a concurrency permit")
+                .tag("class", concurrencyClass)
+                .register(meterRegistry);
+    }
+}
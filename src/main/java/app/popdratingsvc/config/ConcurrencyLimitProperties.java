@@ -0,0 +1,35 @@
+package app.popdratingsvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the adaptive concurrency limits in front of the rating API.
+ *
+ * @param enabled           switches limiting on; off by default
+ * @param initialReadLimit  concurrent read requests admitted before any latency has been observed
+ * @param initialWriteLimit concurrent write requests admitted before any latency has been observed
+ * @param minLimit          lowest limit either class shrinks to
+ * @param maxLimit          highest limit either class grows to
+ * @param bulkShare         fraction of a limit that bulk endpoints (export, import, batch upsert, recompute-all)
+ *                          may occupy, so they are shed before single-item and stats requests
+ * @param tolerance         how much slower than the long-term average latency may get before the limit shrinks
+ * @param smoothing         weight of each new estimate in the limit, between 0 and 1
+ * @param windowSize        completed requests per latency sample
+ * @param retryAfter        value of the {@code Retry-After} header on rejected requests
+ */
+@ConfigurationProperties(prefix = "ratings.concurrency-limit")
+public record ConcurrencyLimitProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("50") int initialReadLimit,
+        @DefaultValue("20") int initialWriteLimit,
+        @DefaultValue("4") int minLimit,
+        @DefaultValue("500") int maxLimit,
+        @DefaultValue("0.5") double bulkShare,
+        @DefaultValue("1.5") double tolerance,
+        @DefaultValue("0.2") double smoothing,
+        @DefaultValue("20") int windowSize,
+        @DefaultValue("1s") Duration retryAfter) {
+}
@@ -0,0 +1,114 @@
+package app.popdratingsvc.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that adapts to latency, after the gradient algorithm of Netflix' concurrency-limits.
+ *
+ * <p>Completed requests are averaged in windows of {@code window-size}. Each window's average is compared with
+ * a slowly moving long-term average: while it stays within {@code tolerance} of it the limit grows by about
+ * its square root, and once requests queue up and get slower the limit shrinks in proportion, at most by half
+ * per window. Windows in which less than half of the limit was in use say nothing about capacity and leave the
+ * limit alone, so a quiet instance does not inflate its limit.
+ */
+public class GradientConcurrencyLimit {
+
+    private static final int LONG_TERM_WINDOWS = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int windowSize;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    private double estimatedLimit;
+    private double longTermLatency;
+    private long windowLatencySum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    public GradientConcurrencyLimit(int initialLimit, ConcurrencyLimitProperties properties) {
+        this.minLimit = properties.minLimit();
+        this.maxLimit = properties.maxLimit();
+        this.tolerance = properties.tolerance();
+        this.smoothing = properties.smoothing();
+        this.windowSize = properties.windowSize();
+        this.estimatedLimit = Math.min(Math.max(initialLimit, minLimit), maxLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Admits a request if fewer than {@code share} of the limit are in flight; at least one request is always
+     * admitted into an idle limit. Every admitted request must be released exactly once.
+     */
+    public boolean tryAcquire(double share) {
+        int admitted = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= admitted) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a request without taking its latency into account, e.g. when it continues asynchronously.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Releases a request that completed after {@code latencyNanos}.
+     */
+    public void release(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        sample(latencyNanos, current);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long latencyNanos, int inFlightAtCompletion) {
+        windowLatencySum += latencyNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtCompletion);
+        if (++windowSamples < windowSize) {
+            return;
+        }
+
+        double latency = Math.max(1, (double) windowLatencySum / windowSamples);
+        int maxInFlight = windowMaxInFlight;
+        windowLatencySum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+
+        if (longTermLatency == 0) {
+            longTermLatency = latency;
+        } else {
+            longTermLatency += (latency - longTermLatency) / LONG_TERM_WINDOWS;
+            // After a slow period the long-term average lags far behind; let it catch up with the recovery.
+            if (longTermLatency / latency > 2) {
+                longTermLatency *= 0.95;
+            }
+        }
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longTermLatency / latency));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.min(Math.max(estimatedLimit * (1 - smoothing) + newLimit * smoothing, minLimit), maxLimit);
+        limit = (int) estimatedLimit;
+    }
+}
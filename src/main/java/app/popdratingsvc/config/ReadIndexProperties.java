@@ -0,0 +1,26 @@
+package app.popdratingsvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the in-memory rating read index.
+ *
+ * @param enabled          loads the index at startup and serves reads from it; off by default
+ * @param snapshotFile     file the index is periodically written to and restored from on startup; no snapshots
+ *                         when unset
+ * @param snapshotInterval pause between two snapshots; one more is written on shutdown
+ * @param replayOverlap    how far before the snapshot's newest {@code updatedOn} the restore starts replaying
+ *                         rows, to cover transactions that committed after the snapshot with an older timestamp;
+ *                         must exceed the longest write transaction
+ */
+@ConfigurationProperties(prefix = "ratings.read-index")
+public record ReadIndexProperties(
+        @DefaultValue("false") boolean enabled,
+        Path snapshotFile,
+        @DefaultValue("10m") Duration snapshotInterval,
+        @DefaultValue("1m") Duration replayOverlap) {
+}
@@ -0,0 +1,87 @@
+package app.popdratingsvc.config;
+
+import app.popdratingsvc.web.ReadYourWritesInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the auto-configured data source with a primary pool ({@code spring.datasource.*}) and a replica pool
+ * ({@code ratings.datasource.replica.*}) behind a {@link ReadWriteRoutingDataSource}. Only active when a
+ * replica URL is configured; both pools accept the usual {@code hikari.*} settings.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ratings.datasource.replica", name = "url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(@Qualifier("primaryDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("ratings.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("ratings.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Qualifier("replicaDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+
+    /**
+     * Opt-in: only active when {@code ratings.datasource.read-your-writes.window} is set.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "ratings.datasource.read-your-writes", name = "window")
+    static class ReadYourWritesConfig implements WebMvcConfigurer {
+
+        private final RecentRatingWrites recentRatingWrites;
+
+        ReadYourWritesConfig(ReadYourWritesProperties properties) {
+            this.recentRatingWrites = new RecentRatingWrites(properties);
+        }
+
+        @Bean
+        public RecentRatingWrites recentRatingWrites() {
+            return recentRatingWrites;
+        }
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new ReadYourWritesInterceptor(recentRatingWrites)).addPathPatterns("/api/**");
+        }
+    }
+}
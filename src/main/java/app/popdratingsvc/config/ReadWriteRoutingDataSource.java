@@ -0,0 +1,67 @@
+package app.popdratingsvc.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections of {@code @Transactional(readOnly = true)} methods to the replica pool and everything else,
+ * including work outside a transaction, to the primary. The read-only flag is only known once the transaction
+ * has started, so this data source must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that defers the lookup to the first
+ * statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Routes the read-only transactions of the current thread to the primary until {@link #unpin()}.
+     */
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    /**
+     * Runs {@code read} with the current thread pinned to the primary and then restores the previous pin, so a
+     * pin set for the whole request survives. Only takes effect for a read-only transaction that has not issued
+     * a statement yet.
+     */
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean previous = PINNED_TO_PRIMARY.get();
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PINNED_TO_PRIMARY.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PINNED_TO_PRIMARY.get() == null) {
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+}
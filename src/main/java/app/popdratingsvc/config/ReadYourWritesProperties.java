@@ -0,0 +1,20 @@
+package app.popdratingsvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes window of the replica routing. Only used when {@code ratings.datasource.replica.url} is set,
+ * and off unless {@code window} is set.
+ *
+ * @param window        how long after a committed write the reads of the same user or movie stay on the
+ *                      primary; should exceed the usual replication lag
+ * @param maxTrackedIds upper bound of recently written user and movie ids kept in memory
+ */
+@ConfigurationProperties(prefix = "ratings.datasource.read-your-writes")
+public record ReadYourWritesProperties(
+        @DefaultValue("0s") Duration window,
+        @DefaultValue("100000") long maxTrackedIds) {
+}
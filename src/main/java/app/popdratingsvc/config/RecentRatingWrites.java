@@ -0,0 +1,34 @@
+package app.popdratingsvc.config;
+
+import app.popdratingsvc.event.RatingChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * User and movie ids written within the read-your-writes window. Entries expire on their own, so the set only
+ * ever holds the ids written during the last window.
+ */
+public class RecentRatingWrites {
+
+    private final Cache<UUID, Boolean> recentlyWrittenIds;
+
+    public RecentRatingWrites(ReadYourWritesProperties properties) {
+        this.recentlyWrittenIds = Caffeine.newBuilder()
+                .expireAfterWrite(properties.window())
+                .maximumSize(properties.maxTrackedIds())
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        recentlyWrittenIds.put(event.userId(), Boolean.TRUE);
+        recentlyWrittenIds.put(event.movieId(), Boolean.TRUE);
+    }
+
+    public boolean wasRecentlyWritten(UUID id) {
+        return recentlyWrittenIds.getIfPresent(id) != null;
+    }
+}
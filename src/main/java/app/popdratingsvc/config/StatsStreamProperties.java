@@ -0,0 +1,25 @@
+package app.popdratingsvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the live movie stats stream ({@code GET /ratings/{movieId}/stats/stream}).
+ *
+ * @param debounce          how long rating changes are collected before the stats of the changed movies are read
+ *                          once and pushed
+ * @param heartbeatInterval pause between keep-alive comments, which also detect disconnected clients
+ * @param timeout           lifetime of one stream; {@code EventSource} clients reconnect on their own
+ * @param slowClientTimeout a client whose write has been blocked this long is dropped
+ * @param senderThreads     maximum number of threads writing to clients at the same time
+ */
+@ConfigurationProperties(prefix = "ratings.stats-stream")
+public record StatsStreamProperties(
+        @DefaultValue("250ms") Duration debounce,
+        @DefaultValue("15s") Duration heartbeatInterval,
+        @DefaultValue("30m") Duration timeout,
+        @DefaultValue("10s") Duration slowClientTimeout,
+        @DefaultValue("64") int senderThreads) {
+}
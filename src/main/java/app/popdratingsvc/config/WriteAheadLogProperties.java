@@ -0,0 +1,34 @@
+package app.popdratingsvc.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the accepted-write mode, in which {@code POST /ratings} is answered with {@code 202 Accepted}
+ * once the request is fsynced to the local write-ahead log and applied to the database in the background.
+ *
+ * @param enabled        switches the mode on; off by default
+ * @param directory      directory holding the log segments and the checkpoint file
+ * @param applyInterval  pause between two drains of the log into the database
+ * @param applyBatchSize maximum number of log entries applied in one transaction, between 1 and the 1000 rows
+ *                       {@code RatingService#upsertAll} accepts; anything else fails startup
+ * @param segmentSize    size after which the writer rolls over to a new segment file
+ * @param appendTimeout  longest a request waits for its entry to become durable before it is answered with 503
+ */
+@Validated
+@ConfigurationProperties(prefix = "ratings.write-ahead-log")
+public record WriteAheadLogProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/ratings-wal") Path directory,
+        @DefaultValue("200ms") Duration applyInterval,
+        @DefaultValue("500") @Min(1) @Max(1000) int applyBatchSize,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("5s") Duration appendTimeout) {
+}
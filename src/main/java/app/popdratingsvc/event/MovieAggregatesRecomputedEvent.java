@@ -0,0 +1,10 @@
+package app.popdratingsvc.event;
+
+import java.util.UUID;
+
+/**
+ * Published by {@code RatingService} when movie aggregates have been rebuilt from the {@code ratings} table.
+ * {@code movieId} is {@code null} when every movie was recomputed.
+ */
+public record MovieAggregatesRecomputedEvent(UUID movieId) {
+}
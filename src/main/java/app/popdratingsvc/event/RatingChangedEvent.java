@@ -0,0 +1,11 @@
+package app.popdratingsvc.event;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published by {@code RatingService} for every created, updated or removed rating.
+ * {@code previousRating} is {@code null} for a new rating and {@code rating} is {@code null} for a removal.
+ */
+public record RatingChangedEvent(UUID userId, UUID movieId, Integer previousRating, Integer rating, LocalDateTime occurredOn) {
+}
@@ -0,0 +1,8 @@
+package app.popdratingsvc.exception;
+
+public class CursorExpiredException extends RuntimeException {
+
+    public CursorExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,85 @@
+package app.popdratingsvc.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Running count, sum and 1-10 histogram of all ratings for a movie, maintained by {@code RatingService}
+ * in the same transaction as every rating write so that movie stats never scan {@code ratings}.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "movie_rating_aggregates")
+public class MovieRatingAggregate {
+
+    @Id
+    @Column(name = "movie_id")
+    private UUID movieId;
+
+    @Column(name = "ratings_count", nullable = false)
+    private long ratingsCount;
+
+    @Column(name = "ratings_sum", nullable = false)
+    private long ratingsSum;
+
+    @Column(name = "rated_1", nullable = false)
+    private long rated1;
+
+    @Column(name = "rated_2", nullable = false)
+    private long rated2;
+
+    @Column(name = "rated_3", nullable = false)
+    private long rated3;
+
+    @Column(name = "rated_4", nullable = false)
+    private long rated4;
+
+    @Column(name = "rated_5", nullable = false)
+    private long rated5;
+
+    @Column(name = "rated_6", nullable = false)
+    private long rated6;
+
+    @Column(name = "rated_7", nullable = false)
+    private long rated7;
+
+    @Column(name = "rated_8", nullable = false)
+    private long rated8;
+
+    @Column(name = "rated_9", nullable = false)
+    private long rated9;
+
+    @Column(name = "rated_10", nullable = false)
+    private long rated10;
+
+    @Version
+    private Long version;
+
+    /**
+     * Number of ratings per value, index 0 holding the count of 1s and index 9 the count of 10s.
+     */
+    public long[] getHistogram() {
+        return new long[]{rated1, rated2, rated3, rated4, rated5, rated6, rated7, rated8, rated9, rated10};
+    }
+
+    public void setHistogram(long[] histogram) {
+        rated1 = histogram[0];
+        rated2 = histogram[1];
+        rated3 = histogram[2];
+        rated4 = histogram[3];
+        rated5 = histogram[4];
+        rated6 = histogram[5];
+        rated7 = histogram[6];
+        rated8 = histogram[7];
+        rated9 = histogram[8];
+        rated10 = histogram[9];
+    }
+}
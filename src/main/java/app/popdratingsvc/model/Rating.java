@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -16,17 +17,35 @@ import java.util.UUID;
 @AllArgsConstructor
 @Table(
         name = "ratings",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "movie_id"})
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "movie_id"}),
+        indexes = {
+                @Index(name = "idx_ratings_user_id_updated_on", columnList = "user_id, updated_on"),
+                @Index(name = "idx_ratings_updated_on", columnList = "updated_on")
+        }
 )
 public class Rating {
 
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 10;
+
+    /**
+     * Time-ordered so new rows append to the clustered index. On MySQL every UUID column is stored as
+     * {@code BINARY(16)} ({@code hibernate.type.preferred_uuid_jdbc_type}) to keep the indexes compact.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
     private UUID id;
 
     @Column(name = "rating", nullable = false)
     private int rating;
 
+    /**
+     * Value replaced by the most recent update, {@code null} while the rating has never been changed.
+     * Lets the atomic upsert report the old rating without a separate read before the write.
+     */
+    @Column(name = "previous_rating")
+    private Integer previousRating;
+
     @Column(name = "user_id", nullable = false)
     private UUID userId;
 
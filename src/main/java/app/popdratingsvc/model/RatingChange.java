@@ -0,0 +1,48 @@
+package app.popdratingsvc.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One entry of the rating change feed, written in the same transaction as the rating write it describes.
+ * {@code previousRating} is {@code null} for a new rating and {@code rating} is {@code null} for a removal.
+ * Sequence numbers come from an identity column when the entry is inserted just before commit, so they grow
+ * with {@code recordedOn} but may commit out of order and leave gaps where a transaction rolled back.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "rating_changes")
+public class RatingChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "sequence_number")
+    private Long sequence;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "movie_id", nullable = false)
+    private UUID movieId;
+
+    @Column(name = "previous_rating")
+    private Integer previousRating;
+
+    @Column(name = "rating")
+    private Integer rating;
+
+    @Column(name = "occurred_on", nullable = false)
+    private LocalDateTime occurredOn;
+
+    @Column(name = "recorded_on", nullable = false)
+    private LocalDateTime recordedOn;
+}
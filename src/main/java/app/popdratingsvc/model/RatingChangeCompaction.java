@@ -0,0 +1,29 @@
+package app.popdratingsvc.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single row holding the highest {@link RatingChange} sequence number that compaction may have deleted.
+ * A cursor below it may have missed entries and is rejected as expired.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "rating_change_compaction")
+public class RatingChangeCompaction {
+
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private int id;
+
+    @Column(name = "compacted_through", nullable = false)
+    private long compactedThrough;
+}
@@ -0,0 +1,38 @@
+package app.popdratingsvc.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates RFC 9562 version 7 UUIDs: a 48-bit Unix millisecond timestamp followed by a 12-bit sequence
+ * and 62 random bits. Ids from one JVM are strictly increasing in byte order (the sequence absorbs
+ * several ids per millisecond and a clock moving backwards), so inserts append to the right-hand edge
+ * of the clustered primary key instead of splitting random pages.
+ */
+public class TimeOrderedUuidGenerator implements UuidValueGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final Random RANDOM = new SecureRandom();
+    private static final AtomicLong LAST_TIMESTAMP_AND_SEQUENCE = new AtomicLong();
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << SEQUENCE_BITS;
+        long timestampAndSequence = LAST_TIMESTAMP_AND_SEQUENCE.updateAndGet(last -> Math.max(last + 1, now));
+
+        long mostSignificantBits = (timestampAndSequence >>> SEQUENCE_BITS) << 16
+                | 0x7000L
+                | (timestampAndSequence & 0xFFFL);
+        long leastSignificantBits = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
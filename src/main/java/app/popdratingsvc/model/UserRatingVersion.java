@@ -0,0 +1,29 @@
+package app.popdratingsvc.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Counter bumped by {@code RatingService} in the same transaction as every write to one of the user's
+ * ratings, so that conditional GETs on the user's endpoints are answered from a primary-key lookup.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "user_rating_versions")
+public class UserRatingVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
@@ -0,0 +1,26 @@
+package app.popdratingsvc.repository;
+
+import app.popdratingsvc.model.MovieRatingAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface MovieRatingAggregateRepository extends JpaRepository<MovieRatingAggregate, UUID>, MovieRatingAggregateRepositoryCustom {
+
+    /**
+     * Runs in a read-write transaction so it is never routed to a read replica: in-memory views load this
+     * snapshot and then apply every later committed change on top, which only adds up against the primary.
+     */
+    @Transactional
+    @Query("select a from MovieRatingAggregate a")
+    List<MovieRatingAggregate> findAllForRebuild();
+
+    @Query("select a.version from MovieRatingAggregate a where a.movieId = :movieId")
+    Optional<Long> findVersionByMovieId(UUID movieId);
+}
@@ -0,0 +1,11 @@
+package app.popdratingsvc.repository;
+
+import java.util.UUID;
+
+public interface MovieRatingAggregateRepositoryCustom {
+
+    /**
+     * Adds the delta to the movie's aggregate and histogram, creating it on the first rating, in a single statement.
+     */
+    int applyDelta(UUID movieId, MovieRatingDelta delta);
+}
@@ -0,0 +1,48 @@
+package app.popdratingsvc.repository;
+
+import app.popdratingsvc.model.Rating;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.UUID;
+
+public class MovieRatingAggregateRepositoryCustomImpl implements MovieRatingAggregateRepositoryCustom {
+
+    private static final String APPLY_DELTA = """
+            insert into MovieRatingAggregate (movieId, ratingsCount, ratingsSum,
+                rated1, rated2, rated3, rated4, rated5, rated6, rated7, rated8, rated9, rated10, version)
+            values (:movieId, :countDelta, :sumDelta,
+                :rated1, :rated2, :rated3, :rated4, :rated5, :rated6, :rated7, :rated8, :rated9, :rated10, 0)
+            on conflict (movieId) do update
+            set ratingsCount = ratingsCount + excluded.ratingsCount,
+                ratingsSum = ratingsSum + excluded.ratingsSum,
+                rated1 = rated1 + excluded.rated1,
+                rated2 = rated2 + excluded.rated2,
+                rated3 = rated3 + excluded.rated3,
+                rated4 = rated4 + excluded.rated4,
+                rated5 = rated5 + excluded.rated5,
+                rated6 = rated6 + excluded.rated6,
+                rated7 = rated7 + excluded.rated7,
+                rated8 = rated8 + excluded.rated8,
+                rated9 = rated9 + excluded.rated9,
+                rated10 = rated10 + excluded.rated10,
+                version = version + 1
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int applyDelta(UUID movieId, MovieRatingDelta delta) {
+        Query query = entityManager.createQuery(APPLY_DELTA)
+                .setParameter("movieId", movieId)
+                .setParameter("countDelta", delta.getCount())
+                .setParameter("sumDelta", delta.getSum());
+        for (int rating = Rating.MIN_RATING; rating <= Rating.MAX_RATING; rating++) {
+            query.setParameter("rated" + rating, delta.getBucket(rating));
+        }
+
+        return query.executeUpdate();
+    }
+}
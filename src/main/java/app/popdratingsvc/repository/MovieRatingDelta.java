@@ -0,0 +1,44 @@
+package app.popdratingsvc.repository;
+
+import app.popdratingsvc.model.Rating;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Change to a movie's rating count, sum and 1-10 histogram accumulated by one or more rating writes.
+ * Ratings outside 1-10 only ever exist in legacy rows; they still count towards count and sum but
+ * have no histogram bucket.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MovieRatingDelta {
+
+    private long count;
+
+    private long sum;
+
+    private final long[] histogram = new long[Rating.MAX_RATING];
+
+    public MovieRatingDelta add(int rating) {
+        return add(rating, 1);
+    }
+
+    public MovieRatingDelta add(int rating, long times) {
+        count += times;
+        sum += rating * times;
+        if (rating >= Rating.MIN_RATING && rating <= Rating.MAX_RATING) {
+            histogram[rating - Rating.MIN_RATING] += times;
+        }
+        return this;
+    }
+
+    public MovieRatingDelta remove(int rating) {
+        return add(rating, -1);
+    }
+
+    public long getBucket(int rating) {
+        return histogram[rating - Rating.MIN_RATING];
+    }
+}
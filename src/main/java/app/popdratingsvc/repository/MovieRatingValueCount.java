@@ -0,0 +1,15 @@
+package app.popdratingsvc.repository;
+
+import java.util.UUID;
+
+/**
+ * Number of ratings with a given value for a movie, computed straight from the {@code ratings} table.
+ */
+public interface MovieRatingValueCount {
+
+    UUID getMovieId();
+
+    int getRating();
+
+    long getRatingsCount();
+}
@@ -0,0 +1,26 @@
+package app.popdratingsvc.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits rows for multi-row {@code insert ... values} statements. Full chunks hold {@code maxRows} rows and the
+ * tail is cut into descending powers of two, so with a limit of 100 only eight statement shapes (100, 64, 32, ...,
+ * 1 rows) are ever parsed and prepared instead of one per tail length.
+ */
+final class MultiRowChunks {
+
+    private MultiRowChunks() {
+    }
+
+    static <T> List<List<T>> split(List<T> rows, int maxRows) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); ) {
+            int remaining = rows.size() - from;
+            int size = remaining >= maxRows ? maxRows : Integer.highestOneBit(remaining);
+            chunks.add(rows.subList(from, from + size));
+            from += size;
+        }
+        return chunks;
+    }
+}
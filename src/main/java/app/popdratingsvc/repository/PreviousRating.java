@@ -0,0 +1,9 @@
+package app.popdratingsvc.repository;
+
+import java.util.UUID;
+
+/**
+ * The {@code previousRating} of one user/movie pair, {@code null} while the rating has never been replaced.
+ */
+public record PreviousRating(UUID userId, UUID movieId, Integer previousRating) {
+}
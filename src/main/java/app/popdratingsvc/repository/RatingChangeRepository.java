@@ -0,0 +1,55 @@
+package app.popdratingsvc.repository;
+
+import app.popdratingsvc.model.RatingChange;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * Feed reads run in read-write transactions so they go to the primary: a consumer woken by a commit must
+ * see it, and a lagging replica would make it wait for the next one.
+ */
+@Repository
+public interface RatingChangeRepository extends JpaRepository<RatingChange, Long>, RatingChangeRepositoryCustom {
+
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.repository.RatingChangeRow(c.sequence, c.userId, c.movieId, c.previousRating, c.rating, c.occurredOn, c.recordedOn)
+            from RatingChange c
+            where c.sequence > :cursor
+            order by c.sequence
+            """)
+    List<RatingChangeRow> findPageAfter(long cursor, Limit limit);
+
+    @Transactional
+    @Query("select c.compactedThrough from RatingChangeCompaction c")
+    Optional<Long> findCompactedThrough();
+
+    @Query("select min(c.sequence) from RatingChange c")
+    Optional<Long> findFirstSequence();
+
+    @Query("select max(c.sequence) from RatingChange c")
+    Optional<Long> findLastSequence();
+
+    /**
+     * Walks the primary key from the oldest entry, so with {@code Limit.of(1)} it reads only the expired prefix.
+     */
+    @Query("select c.sequence from RatingChange c where c.recordedOn >= :since order by c.sequence")
+    List<Long> findSequencesRecordedSince(LocalDateTime since, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RatingChange c where c.sequence between :from and :to")
+    int deleteBySequenceBetween(long from, long to);
+}
@@ -0,0 +1,23 @@
+package app.popdratingsvc.repository;
+
+import app.popdratingsvc.model.RatingChange;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface RatingChangeRepositoryCustom {
+
+    /**
+     * Stamps the changes with the current time and inserts them in list order, which assigns their sequence
+     * numbers, with one statement per {@value RatingChangeRepositoryCustomImpl#INSERT_CHUNK_SIZE} changes.
+     * Pending writes are flushed first, so the numbers are drawn as close to the commit as possible. Returns the
+     * highest sequence number visible to the transaction, which is at least the last one it assigned.
+     */
+    long append(List<RatingChange> changes);
+
+    /**
+     * Raises the compaction mark to {@code through}; a lower value than the stored one is ignored.
+     */
+    @Transactional
+    void markCompactedThrough(long through);
+}
@@ -0,0 +1,76 @@
+package app.popdratingsvc.repository;
+
+import app.popdratingsvc.model.RatingChange;
+import app.popdratingsvc.model.RatingChangeCompaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Appends with multi-row {@code insert ... values} statements rather than {@code persist}: sequence numbers come
+ * from an identity column, and Hibernate has to run an identity insert on its own to read the key back, which
+ * would cost one round trip per change and undo the JDBC batching of the rating writes.
+ */
+public class RatingChangeRepositoryCustomImpl implements RatingChangeRepositoryCustom {
+
+    /**
+     * Rows per multi-row insert; a transaction's changes usually fit in one statement. Unlike the rating upserts
+     * the tail is not split into {@link MultiRowChunks}, which would turn that statement into several; its at most
+     * 100 shapes fit Hibernate's query plan cache (2048 entries by default).
+     */
+    static final int INSERT_CHUNK_SIZE = 100;
+
+    private static final String INSERT_INTO =
+            "insert into RatingChange (userId, movieId, previousRating, rating, occurredOn, recordedOn) values ";
+
+    private static final String LAST_SEQUENCE = "select max(c.sequence) from RatingChange c";
+
+    private static final String MARK_COMPACTED = """
+            insert into RatingChangeCompaction (id, compactedThrough)
+            values (:id, :through)
+            on conflict (id) do update
+            set compactedThrough = greatest(compactedThrough, excluded.compactedThrough)
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public long append(List<RatingChange> changes) {
+        entityManager.flush();
+        LocalDateTime recordedOn = LocalDateTime.now();
+        for (int from = 0; from < changes.size(); from += INSERT_CHUNK_SIZE) {
+            List<RatingChange> chunk = changes.subList(from, Math.min(from + INSERT_CHUNK_SIZE, changes.size()));
+            StringBuilder statement = new StringBuilder(INSERT_INTO);
+            for (int i = 0; i < chunk.size(); i++) {
+                statement.append(i == 0 ? "" : ", ")
+                        .append("(:userId%1$d, :movieId%1$d, :previousRating%1$d, :rating%1$d, :occurredOn%1$d, :recordedOn)".formatted(i));
+            }
+
+            Query query = entityManager.createQuery(statement.toString())
+                    .setParameter("recordedOn", recordedOn);
+            for (int i = 0; i < chunk.size(); i++) {
+                RatingChange change = chunk.get(i);
+                change.setRecordedOn(recordedOn);
+                query.setParameter("userId" + i, change.getUserId())
+                        .setParameter("movieId" + i, change.getMovieId())
+                        .setParameter("previousRating" + i, change.getPreviousRating())
+                        .setParameter("rating" + i, change.getRating())
+                        .setParameter("occurredOn" + i, change.getOccurredOn());
+            }
+            query.executeUpdate();
+        }
+        return entityManager.createQuery(LAST_SEQUENCE, Long.class).getSingleResult();
+    }
+
+    @Override
+    public void markCompactedThrough(long through) {
+        entityManager.createQuery(MARK_COMPACTED)
+                .setParameter("id", RatingChangeCompaction.ID)
+                .setParameter("through", through)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,12 @@
+package app.popdratingsvc.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Columns of one change feed entry. Unlike {@code RatingChangeResponse} it carries {@code recordedOn}, which
+ * tells whether a gap before the entry may still be filled by a commit.
+ */
+public record RatingChangeRow(long sequence, UUID userId, UUID movieId, Integer previousRating, Integer rating,
+                              LocalDateTime occurredOn, LocalDateTime recordedOn) {
+}
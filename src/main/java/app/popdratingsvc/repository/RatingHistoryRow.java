@@ -0,0 +1,11 @@
+package app.popdratingsvc.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Columns of one history page row, read with a constructor expression instead of a managed {@code Rating}.
+ * Unlike {@code RatingResponse} it carries the id, which the keyset cursor needs.
+ */
+public record RatingHistoryRow(UUID id, int rating, UUID userId, UUID movieId, LocalDateTime createdOn, LocalDateTime updatedOn) {
+}
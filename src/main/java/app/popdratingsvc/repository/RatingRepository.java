@@ -1,15 +1,36 @@
 package app.popdratingsvc.repository;
 
 import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.web.dto.RatingResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface RatingRepository extends JpaRepository<Rating, UUID> {
+public interface RatingRepository extends JpaRepository<Rating, UUID>, RatingRepositoryCustom {
+
+    /**
+     * Rows fetched per round trip by the export streams. MySQL Connector/J only honours it with
+     * {@code useCursorFetch=true}; otherwise it buffers the whole result set.
+     */
+    String EXPORT_FETCH_SIZE = "1000";
+
+    /**
+     * Rows per page when {@code RatingReadIndex} loads the whole table.
+     */
+    int INDEX_PAGE_SIZE = 10_000;
 
     Optional<Rating> findByUserIdAndMovieId(UUID userId, UUID movieId);
 
@@ -17,5 +38,157 @@ public interface RatingRepository extends JpaRepository<Rating, UUID> {
 
     List<Rating> findAllByUserId(UUID userId);
 
-    List<Rating> findAllByUserIdOrderByUpdatedOnDesc(UUID userId);
+    long countByUserId(UUID userId);
+
+    /*
+     * Read paths: constructor expressions straight into response rows, so no entity is hydrated, snapshotted
+     * for dirty checking or held by the persistence context. They run in read-only transactions, their own where
+     * the service may answer from RatingReadIndex without opening one, and never flush.
+     */
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.web.dto.RatingResponse(r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.userId = :userId and r.movieId = :movieId
+            """)
+    Optional<RatingResponse> findResponseByUserIdAndMovieId(UUID userId, UUID movieId);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.web.dto.RatingResponse(r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.userId = :userId
+            order by r.updatedOn desc, r.id desc
+            """)
+    List<RatingResponse> findLatestResponsesByUserId(UUID userId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.web.dto.RatingResponse(r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.userId = :userId and r.movieId in :movieIds
+            """)
+    List<RatingResponse> findResponsesByUserIdAndMovieIdIn(UUID userId, Collection<UUID> movieIds);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.repository.RatingHistoryRow(r.id, r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.userId = :userId
+            order by r.updatedOn desc, r.id desc
+            """)
+    List<RatingHistoryRow> findHistoryByUserId(UUID userId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.repository.RatingHistoryRow(r.id, r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.userId = :userId
+              and (r.updatedOn < :updatedOn or (r.updatedOn = :updatedOn and r.id < :id))
+            order by r.updatedOn desc, r.id desc
+            """)
+    List<RatingHistoryRow> findHistoryByUserIdAfterCursor(UUID userId, LocalDateTime updatedOn, UUID id, Limit limit);
+
+    @Query("""
+            select r.movieId as movieId, r.rating as rating, count(r) as ratingsCount
+            from Rating r
+            where r.movieId = :movieId
+            group by r.movieId, r.rating
+            """)
+    List<MovieRatingValueCount> countRatingValuesForMovie(UUID movieId);
+
+    /*
+     * Keyset pages over the primary key for loading RatingReadIndex. Read-write transactions, so they are never
+     * routed to a read replica: the index applies every later committed change on top of what it loaded.
+     */
+
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.repository.RatingHistoryRow(r.id, r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            order by r.id
+            """)
+    List<RatingHistoryRow> findIndexPage(Limit limit);
+
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.repository.RatingHistoryRow(r.id, r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.id > :afterId
+            order by r.id
+            """)
+    List<RatingHistoryRow> findIndexPageAfter(UUID afterId, Limit limit);
+
+    /*
+     * Rows to apply on top of a RatingReadIndex snapshot: those updated since its high-water mark, in keyset
+     * pages, and all rows of the movies whose totals no longer match their aggregate.
+     */
+
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.repository.RatingHistoryRow(r.id, r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.updatedOn >= :since
+            order by r.id
+            """)
+    List<RatingHistoryRow> findIndexPageUpdatedSince(LocalDateTime since, Limit limit);
+
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.repository.RatingHistoryRow(r.id, r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.updatedOn >= :since and r.id > :afterId
+            order by r.id
+            """)
+    List<RatingHistoryRow> findIndexPageUpdatedSinceAfter(LocalDateTime since, UUID afterId, Limit limit);
+
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.repository.RatingHistoryRow(r.id, r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.movieId in :movieIds
+            """)
+    List<RatingHistoryRow> findIndexRowsByMovieIdIn(Collection<UUID> movieIds);
+
+    /**
+     * Current committed row of one pair, which RatingReadIndex re-reads for every committed change instead of
+     * trusting the order in which change events arrive.
+     */
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new app.popdratingsvc.repository.RatingHistoryRow(r.id, r.rating, r.userId, r.movieId, r.createdOn, r.updatedOn)
+            from Rating r
+            where r.userId = :userId and r.movieId = :movieId
+            """)
+    Optional<RatingHistoryRow> findIndexRow(UUID userId, UUID movieId);
+
+    @Query("""
+            select r.movieId as movieId, r.rating as rating, count(r) as ratingsCount
+            from Rating r
+            group by r.movieId, r.rating
+            """)
+    List<MovieRatingValueCount> countRatingValuesForAllMovies();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select r from Rating r")
+    Stream<Rating> streamAllForExport();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select r from Rating r where r.updatedOn >= :since")
+    Stream<Rating> streamAllForExportUpdatedSince(LocalDateTime since);
 }
@@ -0,0 +1,40 @@
+package app.popdratingsvc.repository;
+
+import app.popdratingsvc.model.Rating;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public interface RatingRepositoryCustom {
+
+    /**
+     * Inserts the rating or, when the user already rated the movie, overwrites it in the same statement,
+     * keeping {@code createdOn} and moving the replaced value into {@code previousRating}.
+     */
+    int upsert(UUID id, UUID userId, UUID movieId, int rating, LocalDateTime now);
+
+    /**
+     * The same upsert for many ratings, up to {@value RatingRepositoryCustomImpl#UPSERT_CHUNK_SIZE} rows per statement.
+     * Each rating needs its id, user, movie, rating and {@code updatedOn}; no two may share a user/movie pair.
+     */
+    void upsertAll(List<Rating> ratings);
+
+    /**
+     * Reads {@code previousRating} of exactly the given user/movie pairs, one {@code (user_id, movie_id)} index
+     * range per user. A projection, so entities already in the persistence context cannot hide the values
+     * written by {@link #upsertAll}.
+     */
+    List<PreviousRating> findPreviousRatings(Map<UUID, ? extends Collection<UUID>> movieIdsByUser);
+
+    /**
+     * Current committed rows of exactly the given user/movie pairs in one query, shaped like
+     * {@link #findPreviousRatings}, which RatingReadIndex re-reads for all pairs a transaction changed. Pairs
+     * without a row are missing from the result.
+     */
+    @Transactional
+    List<RatingHistoryRow> findIndexRows(Map<UUID, ? extends Collection<UUID>> movieIdsByUser);
+}
@@ -0,0 +1,117 @@
+package app.popdratingsvc.repository;
+
+import app.popdratingsvc.model.Rating;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hibernate renders the {@code on conflict} clause as {@code INSERT ... ON DUPLICATE KEY UPDATE} on MySQL
+ * and as {@code MERGE} on H2. It is issued through the entity manager because the Spring Data query parser
+ * does not accept the clause in {@code @Query}.
+ */
+public class RatingRepositoryCustomImpl implements RatingRepositoryCustom {
+
+    /**
+     * Most rows per multi-row upsert. A shorter tail is split by {@link MultiRowChunks}, so only a handful of
+     * statement shapes are ever prepared.
+     */
+    static final int UPSERT_CHUNK_SIZE = 100;
+
+    private static final String UPSERT_INTO = "insert into Rating (id, userId, movieId, rating, createdOn, updatedOn) values ";
+
+    private static final String UPSERT_ON_CONFLICT = """
+             on conflict (userId, movieId) do update
+            set previousRating = rating, rating = excluded.rating, updatedOn = excluded.updatedOn
+            """;
+
+    private static final String UPSERT = UPSERT_INTO + "(:id, :userId, :movieId, :rating, :now, :now)" + UPSERT_ON_CONFLICT;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int upsert(UUID id, UUID userId, UUID movieId, int rating, LocalDateTime now) {
+        return entityManager.createQuery(UPSERT)
+                .setParameter("id", id)
+                .setParameter("userId", userId)
+                .setParameter("movieId", movieId)
+                .setParameter("rating", rating)
+                .setParameter("now", now)
+                .executeUpdate();
+    }
+
+    @Override
+    public void upsertAll(List<Rating> ratings) {
+        for (List<Rating> chunk : MultiRowChunks.split(ratings, UPSERT_CHUNK_SIZE)) {
+            StringBuilder statement = new StringBuilder(UPSERT_INTO);
+            for (int i = 0; i < chunk.size(); i++) {
+                statement.append(i == 0 ? "" : ", ")
+                        .append("(:id%1$d, :userId%1$d, :movieId%1$d, :rating%1$d, :now%1$d, :now%1$d)".formatted(i));
+            }
+
+            Query query = entityManager.createQuery(statement.append(UPSERT_ON_CONFLICT).toString());
+            for (int i = 0; i < chunk.size(); i++) {
+                Rating rating = chunk.get(i);
+                query.setParameter("id" + i, rating.getId())
+                        .setParameter("userId" + i, rating.getUserId())
+                        .setParameter("movieId" + i, rating.getMovieId())
+                        .setParameter("rating" + i, rating.getRating())
+                        .setParameter("now" + i, rating.getUpdatedOn());
+            }
+            query.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<PreviousRating> findPreviousRatings(Map<UUID, ? extends Collection<UUID>> movieIdsByUser) {
+        if (movieIdsByUser.isEmpty()) {
+            return List.of();
+        }
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PreviousRating> query = criteriaBuilder.createQuery(PreviousRating.class);
+        Root<Rating> rating = query.from(Rating.class);
+        query.select(criteriaBuilder.construct(PreviousRating.class,
+                rating.get("userId"), rating.get("movieId"), rating.get("previousRating")));
+
+        return entityManager.createQuery(query.where(pairs(criteriaBuilder, rating, movieIdsByUser))).getResultList();
+    }
+
+    @Override
+    public List<RatingHistoryRow> findIndexRows(Map<UUID, ? extends Collection<UUID>> movieIdsByUser) {
+        if (movieIdsByUser.isEmpty()) {
+            return List.of();
+        }
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<RatingHistoryRow> query = criteriaBuilder.createQuery(RatingHistoryRow.class);
+        Root<Rating> rating = query.from(Rating.class);
+        query.select(criteriaBuilder.construct(RatingHistoryRow.class, rating.get("id"), rating.get("rating"),
+                rating.get("userId"), rating.get("movieId"), rating.get("createdOn"), rating.get("updatedOn")));
+
+        return entityManager.createQuery(query.where(pairs(criteriaBuilder, rating, movieIdsByUser)))
+                .setHint(HibernateHints.HINT_FLUSH_MODE, "MANUAL")
+                .getResultList();
+    }
+
+    private static Predicate pairs(CriteriaBuilder criteriaBuilder, Root<Rating> rating,
+                                   Map<UUID, ? extends Collection<UUID>> movieIdsByUser) {
+        return criteriaBuilder.or(movieIdsByUser.entrySet().stream()
+                .map(entry -> criteriaBuilder.and(
+                        criteriaBuilder.equal(rating.get("userId"), entry.getKey()),
+                        rating.get("movieId").in(entry.getValue())))
+                .toArray(Predicate[]::new));
+    }
+}
@@ -0,0 +1,16 @@
+package app.popdratingsvc.repository;
+
+import app.popdratingsvc.model.UserRatingVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserRatingVersionRepository extends JpaRepository<UserRatingVersion, UUID>, UserRatingVersionRepositoryCustom {
+
+    @Query("select v.version from UserRatingVersion v where v.userId = :userId")
+    Optional<Long> findVersionByUserId(UUID userId);
+}
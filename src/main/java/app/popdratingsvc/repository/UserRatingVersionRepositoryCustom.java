@@ -0,0 +1,11 @@
+package app.popdratingsvc.repository;
+
+import java.util.UUID;
+
+public interface UserRatingVersionRepositoryCustom {
+
+    /**
+     * Increments the user's version, creating it at 1 on the user's first write, in a single statement.
+     */
+    int increment(UUID userId);
+}
@@ -0,0 +1,26 @@
+package app.popdratingsvc.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.UUID;
+
+public class UserRatingVersionRepositoryCustomImpl implements UserRatingVersionRepositoryCustom {
+
+    private static final String INCREMENT = """
+            insert into UserRatingVersion (userId, version)
+            values (:userId, 1)
+            on conflict (userId) do update
+            set version = version + 1
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int increment(UUID userId) {
+        return entityManager.createQuery(INCREMENT)
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,271 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.event.MovieAggregatesRecomputedEvent;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.model.MovieRatingAggregate;
+import app.popdratingsvc.repository.MovieRatingAggregateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory ranking of all rated movies by their Bayesian average
+ * {@code (priorVotes * mean + sum) / (priorVotes + count)}, which damps movies with few ratings towards the
+ * mean of all ratings. Built from {@code movie_rating_aggregates} before the application starts serving and
+ * then updated from every committed {@link RatingChangedEvent}, so reads never touch the database.
+ *
+ * <p>Scores are computed against the global mean captured at the last re-rank. Re-ranking every movie is
+ * O(n log n), so it only happens when the live mean has drifted by more than {@value #RERANK_MEAN_DRIFT};
+ * single updates are O(log n).
+ *
+ * <p>A rebuild must not lose or double-count a change committed around its read, so each writing transaction
+ * holds {@link #commitGate} shared from {@code beforeCommit} until its deltas are applied, and a rebuild holds
+ * it exclusively across the read and the swap: every change is either in the snapshot and applied before it,
+ * or committed after it and applied on top. Rating writes therefore wait at commit while a rebuild reads.
+ */
+@Slf4j
+@Component
+public class MovieLeaderboard implements SmartInitializingSingleton {
+
+    static final double RERANK_MEAN_DRIFT = 0.05;
+
+    private static final Comparator<Entry> RANKING_ORDER = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::count).reversed())
+            .thenComparing(Entry::movieId);
+
+    private final MovieRatingAggregateRepository movieRatingAggregateRepository;
+    private final int priorVotes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock commitGate = new ReentrantReadWriteLock();
+    private final Map<UUID, Entry> entriesByMovie = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(RANKING_ORDER);
+    private long totalCount;
+    private long totalSum;
+    private double rankingMean;
+
+    public MovieLeaderboard(MovieRatingAggregateRepository movieRatingAggregateRepository,
+                            @Value("${ratings.leaderboard.prior-votes:10}") int priorVotes) {
+        this.movieRatingAggregateRepository = movieRatingAggregateRepository;
+        this.priorVotes = priorVotes;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Replaces the ranking with the current contents of {@code movie_rating_aggregates}.
+     */
+    public void rebuild() {
+        commitGate.writeLock().lock();
+        try {
+            List<MovieRatingAggregate> aggregates = movieRatingAggregateRepository.findAllForRebuild();
+
+            lock.writeLock().lock();
+            try {
+                entriesByMovie.clear();
+                totalCount = 0;
+                totalSum = 0;
+                for (MovieRatingAggregate aggregate : aggregates) {
+                    if (aggregate.getRatingsCount() > 0) {
+                        entriesByMovie.put(aggregate.getMovieId(),
+                                new Entry(aggregate.getMovieId(), aggregate.getRatingsCount(), aggregate.getRatingsSum(), 0));
+                        totalCount += aggregate.getRatingsCount();
+                        totalSum += aggregate.getRatingsSum();
+                    }
+                }
+                rerank();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            commitGate.writeLock().unlock();
+        }
+        log.info("Rebuilt movie leaderboard with {} movies and {} ratings", entriesByMovie.size(), totalCount);
+    }
+
+    /**
+     * Rebuilds the whole ranking even for a single recomputed movie: recomputing is a rare repair, and the
+     * global mean the scores depend on may have drifted with it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAggregatesRecomputed(MovieAggregatesRecomputedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Collects the change into the deltas of the running transaction, applied once it commits; outside a
+     * transaction it is applied right away.
+     */
+    @EventListener
+    public void onRatingChanged(RatingChangedEvent event) {
+        long countDelta = (event.rating() != null ? 1 : 0) - (event.previousRating() != null ? 1 : 0);
+        long sumDelta = (event.rating() != null ? event.rating() : 0) - (event.previousRating() != null ? event.previousRating() : 0);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingDeltas().add(event.movieId(), countDelta, sumDelta);
+            return;
+        }
+        commitGate.readLock().lock();
+        try {
+            apply(Map.of(event.movieId(), new long[]{countDelta, sumDelta}));
+        } finally {
+            commitGate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best {@code limit} movies having at least {@code minVotes} ratings, walking the ranking from
+     * the top, so the cost is {@code limit} plus the number of better-scored movies below {@code minVotes}.
+     */
+    public List<Entry> top(int limit, long minVotes) {
+        lock.readLock().lock();
+        try {
+            List<Entry> top = new ArrayList<>(limit);
+            for (Entry entry : ranking) {
+                if (top.size() == limit) {
+                    break;
+                }
+                if (entry.count() >= minVotes) {
+                    top.add(entry);
+                }
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies {@code {count, sum}} deltas by movie, re-ranking at most once for the whole batch.
+     */
+    private void apply(Map<UUID, long[]> deltasByMovie) {
+        lock.writeLock().lock();
+        try {
+            deltasByMovie.forEach((movieId, delta) -> {
+                Entry previous = entriesByMovie.remove(movieId);
+                long count = (previous != null ? previous.count() : 0) + delta[0];
+                long sum = (previous != null ? previous.sum() : 0) + delta[1];
+                if (previous != null) {
+                    ranking.remove(previous);
+                }
+                if (count > 0) {
+                    Entry entry = new Entry(movieId, count, sum, score(count, sum));
+                    entriesByMovie.put(movieId, entry);
+                    ranking.add(entry);
+                }
+
+                totalCount += delta[0];
+                totalSum += delta[1];
+            });
+            if (Math.abs(globalMean() - rankingMean) > RERANK_MEAN_DRIFT) {
+                rerank();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private PendingDeltas pendingDeltas() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingDeltas pendingDeltas && pendingDeltas.owner() == this) {
+                return pendingDeltas;
+            }
+        }
+        PendingDeltas pendingDeltas = new PendingDeltas();
+        TransactionSynchronizationManager.registerSynchronization(pendingDeltas);
+        return pendingDeltas;
+    }
+
+    private void rerank() {
+        rankingMean = globalMean();
+        ranking.clear();
+        entriesByMovie.replaceAll((movieId, entry) -> new Entry(movieId, entry.count(), entry.sum(), score(entry.count(), entry.sum())));
+        ranking.addAll(entriesByMovie.values());
+    }
+
+    private double score(long count, long sum) {
+        return (priorVotes * rankingMean + sum) / (priorVotes + count);
+    }
+
+    private double globalMean() {
+        return totalCount == 0 ? 0 : (double) totalSum / totalCount;
+    }
+
+    /**
+     * Deltas of one transaction, holding {@link #commitGate} shared from {@code beforeCommit} until they are
+     * applied in {@code afterCommit}, or until the transaction completes without committing. Ordered first so
+     * the gate is released before a {@link MovieAggregatesRecomputedEvent} of the same transaction rebuilds.
+     */
+    private final class PendingDeltas implements TransactionSynchronization {
+
+        private final Map<UUID, long[]> deltasByMovie = new HashMap<>();
+        private boolean holdingGate;
+
+        private MovieLeaderboard owner() {
+            return MovieLeaderboard.this;
+        }
+
+        void add(UUID movieId, long countDelta, long sumDelta) {
+            long[] delta = deltasByMovie.computeIfAbsent(movieId, id -> new long[2]);
+            delta[0] += countDelta;
+            delta[1] += sumDelta;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commitGate.readLock().lock();
+            holdingGate = true;
+        }
+
+        @Override
+        public void afterCommit() {
+            try {
+                apply(deltasByMovie);
+            } finally {
+                releaseGate();
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            releaseGate();
+        }
+
+        private void releaseGate() {
+            if (holdingGate) {
+                holdingGate = false;
+                commitGate.readLock().unlock();
+            }
+        }
+    }
+
+    public record Entry(UUID movieId, long count, long sum, double score) {
+
+        public double averageRating() {
+            return (double) sum / count;
+        }
+    }
+}
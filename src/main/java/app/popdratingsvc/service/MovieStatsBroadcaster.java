@@ -0,0 +1,350 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.config.ReadWriteRoutingDataSource;
+import app.popdratingsvc.config.StatsStreamProperties;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes {@link MovieRatingStatsResponse} updates to the subscribers of {@code GET /ratings/{movieId}/stats/stream}.
+ *
+ * <p>Committed rating changes only mark their movie as changed, and only if it has subscribers. Every
+ * {@code debounce} the stats of all changed movies are read in one batch and serialized
+ * once, so a burst of writes to one movie costs one read and one serialization however many clients watch it.
+ *
+ * <p>Each subscriber holds at most one undelivered event: a newer update replaces one the client has not
+ * received yet, so a slow client skips to the latest stats instead of queueing. Writes run on a bounded pool;
+ * when it is saturated the event stays pending and is retried on the next update or heartbeat. A client whose
+ * write has been blocked longer than {@code slow-client-timeout} is dropped: its stream is failed and its
+ * sender thread interrupted, so the blocked write gives the thread back to the pool. The interrupt is only sent
+ * while that same write is still in flight, so it never hits a write the thread has since started for another
+ * client.
+ */
+@Slf4j
+@Component
+public class MovieStatsBroadcaster implements SmartLifecycle {
+
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final RatingService ratingService;
+    private final ObjectMapper objectMapper;
+    private final StatsStreamProperties properties;
+    private final Counter droppedClients;
+
+    private final Map<UUID, Set<Subscriber>> subscribersByMovie = new ConcurrentHashMap<>();
+    private final Set<UUID> changedMovies = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private volatile boolean running;
+    private ScheduledExecutorService scheduler;
+    private ThreadPoolExecutor senders;
+
+    public MovieStatsBroadcaster(RatingService ratingService, ObjectMapper objectMapper, StatsStreamProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.ratingService = ratingService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+
+        Gauge.builder("ratings.stats.stream.subscribers", subscriberCount::get)
+                .description("Open movie stats streams")
+                .register(meterRegistry);
+        this.droppedClients = Counter.builder("ratings.stats.stream.dropped")
+                .description("Movie stats streams closed because the client stopped reading")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream that starts with the movie's current stats; unrated movies report {@code totalRatings: 0}.
+     */
+    public SseEmitter subscribe(UUID movieId) {
+        if (!running) {
+            throw new IllegalStateException("Movie stats streams are not accepted while shutting down");
+        }
+
+        SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+        Subscriber subscriber = new Subscriber(movieId, emitter);
+        subscribersByMovie.compute(movieId, (id, subscribers) -> {
+            Set<Subscriber> movieSubscribers = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            movieSubscribers.add(subscriber);
+            return movieSubscribers;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        subscriber.offer(event(readStats(List.of(movieId)).get(movieId)));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        if (subscribersByMovie.containsKey(event.movieId())) {
+            changedMovies.add(event.movieId());
+        }
+    }
+
+    /**
+     * Reads the stats of every movie changed since the last run and hands them to the movie's subscribers.
+     */
+    void publishChanges() {
+        if (changedMovies.isEmpty()) {
+            return;
+        }
+
+        List<UUID> movieIds = new ArrayList<>();
+        for (Iterator<UUID> changed = changedMovies.iterator(); changed.hasNext(); ) {
+            movieIds.add(changed.next());
+            changed.remove();
+        }
+        for (int from = 0; from < movieIds.size(); from += RatingService.MAX_STATS_BATCH_SIZE) {
+            List<UUID> batch = movieIds.subList(from, Math.min(from + RatingService.MAX_STATS_BATCH_SIZE, movieIds.size()));
+            readStats(batch).forEach((movieId, stats) -> {
+                Set<Subscriber> subscribers = subscribersByMovie.get(movieId);
+                if (subscribers != null) {
+                    Set<DataWithMediaType> event = event(stats);
+                    subscribers.forEach(subscriber -> subscriber.offer(event));
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops clients whose write is stuck and sends a heartbeat to the idle ones, which also retries events
+     * that found the sender pool saturated.
+     */
+    void sendHeartbeats() {
+        long now = System.nanoTime();
+        long slowClientNanos = properties.slowClientTimeout().toNanos();
+        for (Set<Subscriber> subscribers : subscribersByMovie.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.dropIfStuck(now, slowClientNanos)) {
+                    droppedClients.increment();
+                    log.info("Dropped movie stats stream of movie {}: no write completed for {}", subscriber.movieId, properties.slowClientTimeout());
+                } else {
+                    subscriber.keepAlive();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        senders = new ThreadPoolExecutor(0, properties.senderThreads(), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> new Thread(runnable, "movie-stats-sender"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "movie-stats-broadcaster"));
+        long debounceMillis = properties.debounce().toMillis();
+        long heartbeatMillis = properties.heartbeatInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::publishChangesQuietly, debounceMillis, debounceMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    /**
+     * Completes every stream whose client is not stuck in a write, so clients reconnect to another instance.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdown();
+        senders.shutdown();
+        subscribersByMovie.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            if (subscriber.sendStartedAt == 0) {
+                subscriber.emitter.complete();
+            }
+        }));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void publishChangesQuietly() {
+        try {
+            publishChanges();
+        } catch (RuntimeException e) {
+            log.warn("Publishing movie stats updates failed", e);
+        }
+    }
+
+    /**
+     * Pinned to the primary for movies read from the aggregates: the change was just committed there, and a
+     * lagging replica would push stale stats that no later event corrects. The read index, when it serves, has
+     * applied the change before {@link #onRatingChanged} marked the movie.
+     */
+    private Map<UUID, MovieRatingStatsResponse> readStats(List<UUID> movieIds) {
+        ReadWriteRoutingDataSource.pinToPrimary();
+        try {
+            return ratingService.getMovieRatingStats(movieIds);
+        } finally {
+            ReadWriteRoutingDataSource.unpin();
+        }
+    }
+
+    private Set<DataWithMediaType> event(MovieRatingStatsResponse stats) {
+        try {
+            return SseEmitter.event()
+                    .name("stats")
+                    .data(objectMapper.writeValueAsString(stats), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribersByMovie.computeIfPresent(subscriber.movieId, (id, subscribers) -> {
+            if (subscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * One open stream. {@code pending} holds the only event not yet written, and {@code sending} makes sure at
+     * most one sender thread writes to the client at a time. {@code sendLock} guards the start and the end of
+     * each write together with {@link #dropIfStuck}'s interrupt; {@code sends} numbers the writes, so a drop
+     * can tell whether the write it found stuck is still the one in flight.
+     */
+    private final class Subscriber {
+
+        private final UUID movieId;
+        private final SseEmitter emitter;
+        private final AtomicReference<Set<DataWithMediaType>> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final ReentrantLock sendLock = new ReentrantLock();
+        private volatile long sendStartedAt;
+        private volatile boolean dropped;
+        private Thread sender;
+        private long sends;
+
+        private Subscriber(UUID movieId, SseEmitter emitter) {
+            this.movieId = movieId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Set<DataWithMediaType> event) {
+            pending.set(event);
+            schedule();
+        }
+
+        private void keepAlive() {
+            pending.compareAndSet(null, HEARTBEAT);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                sending.set(false);
+            }
+        }
+
+        /**
+         * Returns {@code false} unless a write has been in flight longer than {@code slowClientNanos}. Otherwise
+         * unsubscribes and fails the stream, which makes the container close the connection, then interrupts the
+         * write in case the container leaves it blocked, provided it has not returned in the meantime. Nothing is
+         * written to the stream again.
+         */
+        private boolean dropIfStuck(long now, long slowClientNanos) {
+            long stuckSend;
+            sendLock.lock();
+            try {
+                if (dropped || sender == null || now - sendStartedAt <= slowClientNanos) {
+                    return false;
+                }
+                dropped = true;
+                stuckSend = sends;
+            } finally {
+                sendLock.unlock();
+            }
+
+            unsubscribe(this);
+            emitter.completeWithError(new IOException("No write completed for " + properties.slowClientTimeout()));
+            sendLock.lock();
+            try {
+                if (sends == stuckSend && sender != null) {
+                    sender.interrupt();
+                }
+            } finally {
+                sendLock.unlock();
+            }
+            return true;
+        }
+
+        private void drain() {
+            Set<DataWithMediaType> event;
+            while (!dropped && (event = pending.getAndSet(null)) != null) {
+                sendLock.lock();
+                try {
+                    sender = Thread.currentThread();
+                    sendStartedAt = System.nanoTime();
+                    sends++;
+                } finally {
+                    sendLock.unlock();
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(this);
+                    return;
+                } finally {
+                    sendLock.lock();
+                    try {
+                        sendStartedAt = 0;
+                        sender = null;
+                        // Under the lock, so an interrupt meant for this write cannot arrive after it is cleared.
+                        Thread.interrupted();
+                    } finally {
+                        sendLock.unlock();
+                    }
+                }
+            }
+            if (dropped) {
+                return;
+            }
+            sending.set(false);
+            if (pending.get() != null) {
+                schedule();
+            }
+        }
+    }
+}
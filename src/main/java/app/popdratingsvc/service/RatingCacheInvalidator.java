@@ -0,0 +1,100 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.config.CacheConfig;
+import app.popdratingsvc.event.MovieAggregatesRecomputedEvent;
+import app.popdratingsvc.event.RatingChangedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Evicts exactly the movie entries touched by a rating write, once its transaction has committed, and the
+ * movie entries of recomputed aggregates. Movie stats, user stats and latest ratings are keyed by version
+ * instead, so a write moves their readers to a new key and they are never evicted here.
+ * <p>
+ * Eviction alone does not stop a read that loaded the pre-commit value from putting it back afterwards. Loads
+ * through {@link #getOrLoad} hold no cache lock while they query, so they never pin a virtual thread's carrier
+ * or stall other keys; instead every eviction first bumps a counter for its key's stripe, and a load that sees
+ * the counter move while it ran evicts the value it just put. Runs right after {@link RatingReadIndex} has
+ * applied the change.
+ */
+@Component
+public class RatingCacheInvalidator {
+
+    private static final int EVICTION_STRIPES = 1024;
+
+    private final CacheManager cacheManager;
+    private final AtomicLongArray evictions = new AtomicLongArray(EVICTION_STRIPES);
+
+    public RatingCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        evict(CacheConfig.MOVIE_AVERAGE_RATINGS, event.movieId());
+        evict(CacheConfig.MOVIE_RATING_COUNTS, event.movieId());
+    }
+
+    /**
+     * Runs right after {@link RatingReadIndex} has reloaded the recomputed movies.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAggregatesRecomputed(MovieAggregatesRecomputedEvent event) {
+        for (String cacheName : List.of(CacheConfig.MOVIE_AVERAGE_RATINGS, CacheConfig.MOVIE_RATING_COUNTS)) {
+            if (event.movieId() == null) {
+                for (int stripe = 0; stripe < EVICTION_STRIPES; stripe++) {
+                    evictions.incrementAndGet(stripe);
+                }
+                Optional.ofNullable(cacheManager.getCache(cacheName)).ifPresent(Cache::clear);
+            } else {
+                evict(cacheName, event.movieId());
+            }
+        }
+    }
+
+    /**
+     * Returns the cached value for {@code key} or loads, caches and returns it. A load that overlapped an
+     * eviction of its stripe may have read the value before the write committed, so it evicts what it put; the
+     * next read loads again. Values from {@code loader} must not be {@code null}.
+     */
+    public <T> T getOrLoad(String cacheName, UUID key, Class<T> type, Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return loader.get();
+        }
+        T cached = cache.get(key, type);
+        if (cached != null) {
+            return cached;
+        }
+
+        int stripe = stripe(key);
+        long evictionsBeforeLoad = evictions.get(stripe);
+        T value = loader.get();
+        cache.put(key, value);
+        if (evictions.get(stripe) != evictionsBeforeLoad) {
+            cache.evict(key);
+        }
+        return value;
+    }
+
+    private void evict(String cacheName, UUID key) {
+        evictions.incrementAndGet(stripe(key));
+        Optional.ofNullable(cacheManager.getCache(cacheName)).ifPresent(cache -> cache.evict(key));
+    }
+
+    private static int stripe(UUID key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % EVICTION_STRIPES;
+    }
+}
@@ -0,0 +1,302 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.config.ChangeFeedProperties;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.exception.CursorExpiredException;
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.model.RatingChange;
+import app.popdratingsvc.repository.RatingChangeRepository;
+import app.popdratingsvc.repository.RatingChangeRow;
+import app.popdratingsvc.web.dto.RatingChangeResponse;
+import app.popdratingsvc.web.dto.RatingChangesResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox of rating changes behind {@code GET /ratings/changes}.
+ *
+ * <p>Every {@link RatingChangedEvent} is collected while the writing transaction runs and appended to
+ * {@code rating_changes} just before it commits, so a change is recorded exactly when its rating write is.
+ * Sequence numbers come from the table's identity column at that point, so writers never wait for each other,
+ * but a smaller number may commit after a larger one. Reads therefore stop in front of a gap until the entry
+ * after it is older than {@code commit-grace}: until then the missing numbers may belong to a transaction
+ * that is still committing, afterwards to one that rolled back. A consumer that resumes after its last
+ * sequence thus never misses a change committed later with a smaller number.
+ *
+ * <p>Long-poll requests for a cursor that is already caught up wait until a local commit makes a change after
+ * it readable or until their wait runs out, whichever is first; changes committed by another instance are
+ * picked up by the final read at the end of the wait. Entries recorded before the retention are deleted by
+ * sequence up to the first entry that is still retained, after a compaction mark is raised; a cursor below
+ * the mark is rejected as expired.
+ */
+@Slf4j
+@Component
+public class RatingChangeFeed implements SmartLifecycle {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final int COMPACTION_BATCH_SIZE = 10_000;
+
+    private final RatingChangeRepository ratingChangeRepository;
+    private final ChangeFeedProperties properties;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final AtomicLong lastCommittedSequence = new AtomicLong();
+
+    private volatile boolean running;
+    private ScheduledExecutorService executor;
+
+    public RatingChangeFeed(RatingChangeRepository ratingChangeRepository, ChangeFeedProperties properties) {
+        this.ratingChangeRepository = ratingChangeRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Runs synchronously inside the writing transaction and only buffers the change; it is written by
+     * {@link PendingChanges#beforeCommit}.
+     */
+    @EventListener
+    public void onRatingChanged(RatingChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Rating changes must be published inside the writing transaction");
+        }
+
+        pendingChanges().changes.add(RatingChange.builder()
+                .userId(event.userId())
+                .movieId(event.movieId())
+                .previousRating(event.previousRating())
+                .rating(event.rating())
+                .occurredOn(event.occurredOn())
+                .build());
+    }
+
+    /**
+     * Returns up to {@code limit} changes after {@code cursor}, oldest first. A cursor of {@code 0} starts at
+     * the oldest retained change.
+     */
+    public RatingChangesResponse getChanges(long cursor, int limit) {
+        if (cursor < 0) {
+            throw new InvalidRequestException("Cursor must not be negative");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("Limit must be between 1 and %d".formatted(MAX_PAGE_SIZE));
+        }
+
+        List<RatingChangeRow> rows = ratingChangeRepository.findPageAfter(cursor, Limit.of(limit));
+        // Read after the page: compaction raises the mark before it deletes, so a page it has cut into is caught here.
+        long compactedThrough = ratingChangeRepository.findCompactedThrough().orElse(0L);
+        if (cursor > 0 && cursor < compactedThrough) {
+            throw new CursorExpiredException("Changes after cursor %d have been compacted; restart from cursor 0".formatted(cursor));
+        }
+        List<RatingChangeResponse> changes = readableChanges(Math.max(cursor, compactedThrough), rows);
+
+        return RatingChangesResponse.builder()
+                .changes(changes)
+                .nextCursor(changes.isEmpty() ? cursor : changes.get(changes.size() - 1).getSequence())
+                .build();
+    }
+
+    /**
+     * Like {@link #getChanges}, but when there is nothing after {@code cursor} yet the returned future
+     * completes once there is, or with an empty page after {@code wait} (at most {@code max-wait}).
+     */
+    public CompletableFuture<RatingChangesResponse> awaitChanges(long cursor, int limit, Duration wait) {
+        RatingChangesResponse page = getChanges(cursor, limit);
+        if (!page.getChanges().isEmpty() || wait.isZero() || wait.isNegative() || !running) {
+            return CompletableFuture.completedFuture(page);
+        }
+
+        Waiter waiter = new Waiter(cursor, limit, new CompletableFuture<>());
+        waiters.add(waiter);
+        long waitMillis = Math.min(wait.toMillis(), properties.maxWait().toMillis());
+        executor.schedule(() -> release(waiter), waitMillis, TimeUnit.MILLISECONDS);
+        if (lastCommittedSequence.get() > cursor) {
+            executor.execute(() -> wake(waiter));
+        }
+        return waiter.result();
+    }
+
+    /**
+     * Deletes the entries below the first one recorded within the retention, {@value #COMPACTION_BATCH_SIZE}
+     * per transaction. The cut is by sequence because neither timestamp grows with it across writers, so a
+     * retained entry is never deleted and the deleted entries are a prefix. Returns the number deleted.
+     */
+    int compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.retention());
+        long through = ratingChangeRepository.findSequencesRecordedSince(cutoff, Limit.of(1)).stream()
+                .findFirst()
+                .map(sequence -> sequence - 1)
+                .orElseGet(() -> ratingChangeRepository.findLastSequence().orElse(0L));
+        long from = ratingChangeRepository.findFirstSequence().orElse(through + 1);
+        if (from > through) {
+            return 0;
+        }
+
+        ratingChangeRepository.markCompactedThrough(through);
+        int deleted = 0;
+        for (; from <= through; from += COMPACTION_BATCH_SIZE) {
+            deleted += ratingChangeRepository.deleteBySequenceBetween(from, Math.min(from + COMPACTION_BATCH_SIZE - 1, through));
+        }
+        if (deleted > 0) {
+            log.info("Compacted {} rating changes up to sequence {}", deleted, through);
+        }
+        return deleted;
+    }
+
+    @Override
+    public void start() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2, runnable -> new Thread(runnable, "rating-change-feed"));
+        // Waiters are released by stop(), so their pending timeouts need not hold up the shutdown.
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = executor;
+        long intervalMillis = properties.compactionInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::compactQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    /**
+     * Answers every waiting long-poll with what is there now before shutting down.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        waiters.forEach(this::release);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Duration.ofSeconds(30).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            log.warn("Rating change compaction failed", e);
+        }
+    }
+
+    private void onCommitted(long lastSequence) {
+        lastCommittedSequence.accumulateAndGet(lastSequence, Math::max);
+        if (running && !waiters.isEmpty()) {
+            executor.execute(() -> waiters.stream().filter(waiter -> waiter.cursor() < lastSequence).forEach(this::wake));
+        }
+    }
+
+    /**
+     * Converts the rows up to the first gap after {@code after} that a commit may still fill; a gap whose next
+     * entry was recorded more than {@code commit-grace} ago is one a rollback left and is passed.
+     */
+    private List<RatingChangeResponse> readableChanges(long after, List<RatingChangeRow> rows) {
+        LocalDateTime settledBefore = LocalDateTime.now().minus(properties.commitGrace());
+        List<RatingChangeResponse> changes = new ArrayList<>(rows.size());
+        long expected = after + 1;
+        for (RatingChangeRow row : rows) {
+            if (row.sequence() != expected && !row.recordedOn().isBefore(settledBefore)) {
+                break;
+            }
+            changes.add(new RatingChangeResponse(row.sequence(), row.userId(), row.movieId(), row.previousRating(),
+                    row.rating(), row.occurredOn()));
+            expected = row.sequence() + 1;
+        }
+        return changes;
+    }
+
+    /**
+     * Answers the waiter after a commit if it can read a change now. Otherwise a gap still holds the change
+     * back and the waiter keeps waiting for the next commit or its timeout.
+     */
+    private void wake(Waiter waiter) {
+        if (!waiters.contains(waiter)) {
+            return;
+        }
+        try {
+            RatingChangesResponse page = getChanges(waiter.cursor(), waiter.limit());
+            if (!page.getChanges().isEmpty() && waiters.remove(waiter)) {
+                waiter.result().complete(page);
+            }
+        } catch (RuntimeException e) {
+            if (waiters.remove(waiter)) {
+                waiter.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Completes the waiter with a fresh read unless the other of its wake-up and timeout already did.
+     */
+    private void release(Waiter waiter) {
+        if (!waiters.remove(waiter)) {
+            return;
+        }
+        try {
+            waiter.result().complete(getChanges(waiter.cursor(), waiter.limit()));
+        } catch (RuntimeException e) {
+            waiter.result().completeExceptionally(e);
+        }
+    }
+
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pendingChanges && pendingChanges.owner() == this) {
+                return pendingChanges;
+            }
+        }
+        PendingChanges pendingChanges = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+        return pendingChanges;
+    }
+
+    private record Waiter(long cursor, int limit, CompletableFuture<RatingChangesResponse> result) {
+    }
+
+    /**
+     * Changes of one transaction, appended in {@code beforeCommit} so that their sequence numbers are drawn
+     * shortly before the commit and a gap they leave settles within {@code commit-grace}.
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final List<RatingChange> changes = new ArrayList<>();
+        private long lastSequence;
+
+        private RatingChangeFeed owner() {
+            return RatingChangeFeed.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!changes.isEmpty()) {
+                lastSequence = ratingChangeRepository.append(changes);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            if (lastSequence > 0) {
+                onCommitted(lastSequence);
+            }
+        }
+    }
+}
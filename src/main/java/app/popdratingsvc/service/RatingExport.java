@@ -0,0 +1,9 @@
+package app.popdratingsvc.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * A validated export request; {@code since} is {@code null} for a full export.
+ */
+public record RatingExport(RatingFileFormat format, LocalDateTime since) {
+}
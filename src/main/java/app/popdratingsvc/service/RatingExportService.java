@@ -0,0 +1,133 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.repository.RatingRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the whole {@code ratings} table to a client without materializing it. Rows come from a
+ * forward-only cursor ({@link RatingRepository#EXPORT_FETCH_SIZE} rows per round trip) in a read-only
+ * transaction, each entity is detached as soon as it is written, and output goes through a fixed-size buffer,
+ * so heap usage does not depend on the table size.
+ */
+@Slf4j
+@Service
+public class RatingExportService {
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,userId,movieId,rating,previousRating,createdOn,updatedOn\n";
+
+    private final RatingRepository ratingRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public RatingExportService(RatingRepository ratingRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.ratingRepository = ratingRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Validates the request parameters before anything is written, so a bad request can still be answered
+     * with {@code 400} instead of a truncated body.
+     */
+    public RatingExport prepareExport(String format, String since) {
+        RatingFileFormat exportFormat = RatingFileFormat.parse(format);
+        if (since == null || since.isBlank()) {
+            return new RatingExport(exportFormat, null);
+        }
+
+        try {
+            return new RatingExport(exportFormat, LocalDateTime.parse(since));
+        } catch (DateTimeParseException e) {
+            throw new InvalidRequestException("Invalid export timestamp [%s]".formatted(since));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long writeExport(RatingExport export, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+        JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        if (export.format() == RatingFileFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        long exported = 0;
+        try (Stream<Rating> ratings = export.since() == null
+                ? ratingRepository.streamAllForExport()
+                : ratingRepository.streamAllForExportUpdatedSince(export.since())) {
+            Iterator<Rating> iterator = ratings.iterator();
+            while (iterator.hasNext()) {
+                Rating rating = iterator.next();
+                if (export.format() == RatingFileFormat.CSV) {
+                    writeCsvRow(writer, rating);
+                } else {
+                    writeJsonRow(jsonGenerator, writer, rating);
+                }
+                entityManager.detach(rating);
+                exported++;
+            }
+        }
+        writer.flush();
+
+        log.info("Exported {} ratings as {} updated since [{}]", exported, export.format(), export.since());
+        return exported;
+    }
+
+    private static void writeCsvRow(Writer writer, Rating rating) throws IOException {
+        writer.write(rating.getId().toString());
+        writer.write(',');
+        writer.write(rating.getUserId().toString());
+        writer.write(',');
+        writer.write(rating.getMovieId().toString());
+        writer.write(',');
+        writer.write(Integer.toString(rating.getRating()));
+        writer.write(',');
+        if (rating.getPreviousRating() != null) {
+            writer.write(rating.getPreviousRating().toString());
+        }
+        writer.write(',');
+        writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(rating.getCreatedOn()));
+        writer.write(',');
+        writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(rating.getUpdatedOn()));
+        writer.write('\n');
+    }
+
+    private static void writeJsonRow(JsonGenerator jsonGenerator, Writer writer, Rating rating) throws IOException {
+        jsonGenerator.writeStartObject();
+        jsonGenerator.writeStringField("id", rating.getId().toString());
+        jsonGenerator.writeStringField("userId", rating.getUserId().toString());
+        jsonGenerator.writeStringField("movieId", rating.getMovieId().toString());
+        jsonGenerator.writeNumberField("rating", rating.getRating());
+        if (rating.getPreviousRating() != null) {
+            jsonGenerator.writeNumberField("previousRating", rating.getPreviousRating());
+        } else {
+            jsonGenerator.writeNullField("previousRating");
+        }
+        jsonGenerator.writeStringField("createdOn", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(rating.getCreatedOn()));
+        jsonGenerator.writeStringField("updatedOn", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(rating.getUpdatedOn()));
+        jsonGenerator.writeEndObject();
+        jsonGenerator.flush();
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,35 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+public enum RatingFileFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    RatingFileFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String fileExtension() {
+        return fileExtension;
+    }
+
+    static RatingFileFormat parse(String format) {
+        try {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Format must be one of ndjson, csv");
+        }
+    }
+}
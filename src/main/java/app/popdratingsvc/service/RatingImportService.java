@@ -0,0 +1,282 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.web.dto.RatingBatchItemResponse;
+import app.popdratingsvc.web.dto.RatingBatchItemStatus;
+import app.popdratingsvc.web.dto.RatingBatchResponse;
+import app.popdratingsvc.web.dto.RatingImportErrorResponse;
+import app.popdratingsvc.web.dto.RatingImportResponse;
+import app.popdratingsvc.web.dto.RatingRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports an uploaded CSV or NDJSON stream of ratings in two pipelined stages: the calling thread reads and
+ * validates lines while a writer thread upserts the previous batches through {@link RatingService#upsertAll},
+ * one transaction and one JDBC batch per {@value #IMPORT_BATCH_SIZE} rows. At most {@value #QUEUED_BATCHES}
+ * parsed batches wait between the stages, so memory does not depend on the upload size.
+ *
+ * <p>Rows keep the upsert semantics of {@code POST /ratings}: a user/movie pair that already exists is
+ * updated, and repeated pairs are applied in file order. The returned checkpoint is the last line whose batch
+ * has been committed; passing it back as {@code resumeAfterLine} skips everything up to it.
+ */
+@Slf4j
+@Service
+public class RatingImportService {
+
+    static final int IMPORT_BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 100;
+    private static final int QUEUED_BATCHES = 4;
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_LOG_INTERVAL_BATCHES = 100;
+    private static final AtomicInteger WRITER_THREADS = new AtomicInteger();
+
+    private final RatingService ratingService;
+    private final ObjectMapper objectMapper;
+
+    public RatingImportService(RatingService ratingService, ObjectMapper objectMapper) {
+        this.ratingService = ratingService;
+        this.objectMapper = objectMapper;
+    }
+
+    public RatingImportResponse importRatings(String format, long resumeAfterLine, InputStream inputStream) {
+        RatingFileFormat importFormat = RatingFileFormat.parse(format);
+        if (resumeAfterLine < 0) {
+            throw new InvalidRequestException("Resume line must not be negative");
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), INPUT_BUFFER_SIZE);
+        long lineNumber = 0;
+        CsvColumns csvColumns = null;
+        String line;
+        try {
+            if (importFormat == RatingFileFormat.CSV) {
+                line = reader.readLine();
+                if (line == null) {
+                    throw new InvalidRequestException("CSV import must start with a header row");
+                }
+                lineNumber++;
+                csvColumns = CsvColumns.fromHeader(line);
+            }
+        } catch (IOException e) {
+            throw new InvalidRequestException("Could not read import stream: %s".formatted(e.getMessage()));
+        }
+
+        ImportWriter importWriter = new ImportWriter(Math.max(resumeAfterLine, lineNumber));
+        Thread writerThread = new Thread(importWriter, "rating-import-writer-" + WRITER_THREADS.incrementAndGet());
+        writerThread.start();
+
+        String readFailure = null;
+        try {
+            ImportBatch batch = new ImportBatch();
+            try {
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (lineNumber <= resumeAfterLine || line.isBlank()) {
+                        continue;
+                    }
+
+                    parseLine(importFormat, csvColumns, line, lineNumber, batch);
+                    if (batch.requests.size() == IMPORT_BATCH_SIZE) {
+                        batch.lastLine = lineNumber;
+                        if (!handOff(importWriter, batch)) {
+                            break;
+                        }
+                        batch = new ImportBatch();
+                    }
+                }
+            } catch (IOException e) {
+                readFailure = "Import stream failed after line %d: %s".formatted(lineNumber, e.getMessage());
+            }
+
+            if (importWriter.failure == null && readFailure == null) {
+                batch.lastLine = lineNumber;
+                handOff(importWriter, batch);
+            }
+            handOff(importWriter, ImportBatch.END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            writerThread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rating import interrupted", e);
+        }
+
+        String failureMessage = importWriter.failure != null ? importWriter.failure : readFailure;
+        log.info("Rating import from line {} finished after line {}: {} created, {} updated, {} rejected, checkpoint {}{}",
+            resumeAfterLine, lineNumber, importWriter.created, importWriter.updated, importWriter.rejected,
+            importWriter.checkpointLine, failureMessage != null ? ", failed: " + failureMessage : "");
+        return RatingImportResponse.builder()
+                .completed(failureMessage == null)
+                .linesRead(lineNumber)
+                .created(importWriter.created)
+                .updated(importWriter.updated)
+                .rejected(importWriter.rejected)
+                .checkpointLine(importWriter.checkpointLine)
+                .failureMessage(failureMessage)
+                .errors(importWriter.errors)
+                .build();
+    }
+
+    private void parseLine(RatingFileFormat format, CsvColumns csvColumns, String line, long lineNumber, ImportBatch batch) {
+        RatingRequest ratingRequest;
+        try {
+            ratingRequest = format == RatingFileFormat.CSV
+                    ? csvColumns.parse(line)
+                    : objectMapper.readValue(line, RatingRequest.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            ratingRequest = null;
+        }
+        if (ratingRequest == null) {
+            batch.errors.add(importError(lineNumber, "Malformed %s line".formatted(format.fileExtension())));
+            return;
+        }
+
+        String validationError = RatingService.validate(ratingRequest);
+        if (validationError != null) {
+            batch.errors.add(importError(lineNumber, validationError));
+            return;
+        }
+        batch.requests.add(ratingRequest);
+        batch.lines.add(lineNumber);
+    }
+
+    /**
+     * Blocks while the writer is {@value #QUEUED_BATCHES} batches behind. Returns {@code false} once the writer
+     * has failed, so the reader stops instead of parsing rows that will never be written.
+     */
+    private static boolean handOff(ImportWriter importWriter, ImportBatch batch) throws InterruptedException {
+        while (!importWriter.queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            if (importWriter.failure != null) {
+                return false;
+            }
+        }
+        return importWriter.failure == null;
+    }
+
+    private static RatingImportErrorResponse importError(long line, String message) {
+        return RatingImportErrorResponse.builder()
+                .line(line)
+                .message(message)
+                .build();
+    }
+
+    private static final class ImportBatch {
+
+        private static final ImportBatch END = new ImportBatch();
+
+        private final List<RatingRequest> requests = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private final List<Long> lines = new ArrayList<>(IMPORT_BATCH_SIZE);
+        private final List<RatingImportErrorResponse> errors = new ArrayList<>();
+        private long lastLine;
+    }
+
+    /**
+     * Second pipeline stage. Owns all counters until the reader has joined it.
+     */
+    private final class ImportWriter implements Runnable {
+
+        private final BlockingQueue<ImportBatch> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+        private final List<RatingImportErrorResponse> errors = new ArrayList<>();
+        private volatile String failure;
+        private long checkpointLine;
+        private long created;
+        private long updated;
+        private long rejected;
+        private long batches;
+
+        private ImportWriter(long checkpointLine) {
+            this.checkpointLine = checkpointLine;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ImportBatch batch;
+                while ((batch = queue.take()) != ImportBatch.END) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                failure = "Import writer interrupted after line %d".formatted(checkpointLine);
+            } catch (RuntimeException e) {
+                log.error("Rating import failed after line {}", checkpointLine, e);
+                failure = "Import failed after line %d: %s".formatted(checkpointLine, e.getMessage());
+            }
+        }
+
+        private void write(ImportBatch batch) {
+            List<RatingImportErrorResponse> batchErrors = new ArrayList<>(batch.errors);
+            if (!batch.requests.isEmpty()) {
+                RatingBatchResponse response = ratingService.upsertAll(batch.requests);
+                created += response.getCreated();
+                updated += response.getUpdated();
+                for (RatingBatchItemResponse item : response.getResults()) {
+                    if (item.getStatus() == RatingBatchItemStatus.REJECTED) {
+                        batchErrors.add(importError(batch.lines.get(item.getIndex()), item.getMessage()));
+                    }
+                }
+            }
+
+            rejected += batchErrors.size();
+            batchErrors.sort(Comparator.comparingLong(RatingImportErrorResponse::getLine));
+            for (RatingImportErrorResponse error : batchErrors) {
+                if (errors.size() == MAX_REPORTED_ERRORS) {
+                    break;
+                }
+                errors.add(error);
+            }
+            checkpointLine = batch.lastLine;
+
+            if (++batches % PROGRESS_LOG_INTERVAL_BATCHES == 0) {
+                log.info("Rating import progress: {} lines, {} created, {} updated, {} rejected",
+                    checkpointLine, created, updated, rejected);
+            }
+        }
+    }
+
+    /**
+     * Column positions taken from the header, so the rows written by the CSV export can be imported as they
+     * are. Values are never quoted because every column is a UUID or a number.
+     */
+    private record CsvColumns(int userId, int movieId, int rating, int width) {
+
+        private static CsvColumns fromHeader(String header) {
+            List<String> names = Arrays.stream(header.split(",", -1)).map(String::trim).toList();
+            int userId = names.indexOf("userId");
+            int movieId = names.indexOf("movieId");
+            int rating = names.indexOf("rating");
+            if (userId < 0 || movieId < 0 || rating < 0) {
+                throw new InvalidRequestException("CSV header must contain userId, movieId and rating columns");
+            }
+            return new CsvColumns(userId, movieId, rating, names.size());
+        }
+
+        private RatingRequest parse(String line) {
+            String[] values = line.split(",", -1);
+            if (values.length != width) {
+                throw new IllegalArgumentException("Expected %d columns".formatted(width));
+            }
+            return RatingRequest.builder()
+                    .userId(UUID.fromString(values[userId].trim()))
+                    .movieId(UUID.fromString(values[movieId].trim()))
+                    .rating(Integer.parseInt(values[rating].trim()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package app.popdratingsvc.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The columns of a {@link RatingReadIndex} as written to and read from its snapshot file. The file is a
+ * 32-byte header ({@code magic, version, rowCount, reserved} as {@code int}s, then the high-water mark and a
+ * CRC32 as {@code long}s) followed by the seven columns one after another, {@code rowCount} entries each, in
+ * big-endian order. The CRC32 covers the first 24 header bytes and the columns, so a damaged row count or
+ * high-water mark is rejected like a damaged row. Rows with rating {@code 0} are free.
+ *
+ * <p>Both directions go through a memory-mapped buffer, so the columns are copied between the arrays and the
+ * page cache in bulk without an intermediate heap buffer.
+ *
+ * @param highWaterMark newest {@code updatedOn} of any row, in epoch microseconds
+ */
+record RatingIndexSnapshot(long[] userMostSignificant, long[] userLeastSignificant,
+                           long[] movieMostSignificant, long[] movieLeastSignificant,
+                           byte[] ratings, long[] createdOn, long[] updatedOn,
+                           int rowCount, long highWaterMark) {
+
+    static final int MAGIC = 0x504F5249;
+    static final int VERSION = 3;
+    static final int HEADER_BYTES = 32;
+    static final int CHECKSUM_OFFSET = 24;
+    static final int ROW_BYTES = 6 * Long.BYTES + 1;
+
+    /**
+     * Largest row count whose file still fits in one mapping.
+     */
+    static final int MAX_ROWS = (Integer.MAX_VALUE - HEADER_BYTES) / ROW_BYTES;
+
+    /**
+     * Writes the snapshot to a sibling temporary file, forces it to disk and moves it over {@code file}, so a
+     * crash mid-write leaves the previous snapshot in place.
+     */
+    void writeTo(Path file) throws IOException {
+        if (rowCount > MAX_ROWS) {
+            throw new IOException("Read index of " + rowCount + " rows exceeds the snapshot limit of " + MAX_ROWS);
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int size = HEADER_BYTES + rowCount * ROW_BYTES;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.position(HEADER_BYTES);
+            putLongs(buffer, userMostSignificant);
+            putLongs(buffer, userLeastSignificant);
+            putLongs(buffer, movieMostSignificant);
+            putLongs(buffer, movieLeastSignificant);
+            buffer.put(ratings, 0, rowCount);
+            putLongs(buffer, createdOn);
+            putLongs(buffer, updatedOn);
+
+            buffer.putInt(0, MAGIC)
+                    .putInt(4, VERSION)
+                    .putInt(8, rowCount)
+                    .putInt(12, 0)
+                    .putLong(16, highWaterMark);
+            buffer.putLong(CHECKSUM_OFFSET, checksum(buffer, size));
+            buffer.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeTo}, with at least {@code minimumCapacity} entries per column.
+     *
+     * @throws IOException when the file cannot be read or is not a complete snapshot of this version
+     */
+    static RatingIndexSnapshot readFrom(Path file, int minimumCapacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot has invalid size " + size);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a read index snapshot");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+            }
+            int rowCount = buffer.getInt(8);
+            if (rowCount < 0 || rowCount > MAX_ROWS || size != HEADER_BYTES + (long) rowCount * ROW_BYTES) {
+                throw new IOException("Snapshot of " + size + " bytes does not hold " + rowCount + " rows");
+            }
+            if (buffer.getLong(CHECKSUM_OFFSET) != checksum(buffer, (int) size)) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+
+            int capacity = Math.max(rowCount, minimumCapacity);
+            long[] userMostSignificant = new long[capacity];
+            long[] userLeastSignificant = new long[capacity];
+            long[] movieMostSignificant = new long[capacity];
+            long[] movieLeastSignificant = new long[capacity];
+            byte[] ratings = new byte[capacity];
+            long[] createdOn = new long[capacity];
+            long[] updatedOn = new long[capacity];
+
+            buffer.position(HEADER_BYTES);
+            getLongs(buffer, userMostSignificant, rowCount);
+            getLongs(buffer, userLeastSignificant, rowCount);
+            getLongs(buffer, movieMostSignificant, rowCount);
+            getLongs(buffer, movieLeastSignificant, rowCount);
+            buffer.get(ratings, 0, rowCount);
+            getLongs(buffer, createdOn, rowCount);
+            getLongs(buffer, updatedOn, rowCount);
+            return new RatingIndexSnapshot(userMostSignificant, userLeastSignificant, movieMostSignificant,
+                    movieLeastSignificant, ratings, createdOn, updatedOn, rowCount, buffer.getLong(16));
+        }
+    }
+
+    private void putLongs(MappedByteBuffer buffer, long[] column) {
+        buffer.asLongBuffer().put(column, 0, rowCount);
+        buffer.position(buffer.position() + rowCount * Long.BYTES);
+    }
+
+    private static void getLongs(MappedByteBuffer buffer, long[] column, int rowCount) {
+        buffer.asLongBuffer().get(column, 0, rowCount);
+        buffer.position(buffer.position() + rowCount * Long.BYTES);
+    }
+
+    private static long checksum(MappedByteBuffer buffer, int size) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, CHECKSUM_OFFSET));
+        crc.update(buffer.slice(HEADER_BYTES, size - HEADER_BYTES));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,61 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.web.dto.RatingRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * One accepted rating write in the write-ahead log, stored as a single text line
+ * {@code <sequence>,<userId>,<movieId>,<rating>,<acceptedOnMillis>,<crc32>}. The checksum lets replay
+ * skip a line torn by a crash in the middle of a write.
+ */
+record RatingLogEntry(long sequence, UUID userId, UUID movieId, int rating, Instant acceptedOn) {
+
+    String encode() {
+        String payload = payload();
+        return payload + "," + Long.toHexString(checksum(payload)) + "\n";
+    }
+
+    /**
+     * Returns the entry stored in the line, or {@code null} when the line is incomplete or corrupt.
+     */
+    static RatingLogEntry decode(String line) {
+        int checksumStart = line.lastIndexOf(',');
+        if (checksumStart < 0) {
+            return null;
+        }
+
+        String payload = line.substring(0, checksumStart);
+        String[] fields = payload.split(",");
+        try {
+            if (fields.length != 5 || Long.parseLong(line.substring(checksumStart + 1), 16) != checksum(payload)) {
+                return null;
+            }
+            return new RatingLogEntry(Long.parseLong(fields[0]), UUID.fromString(fields[1]), UUID.fromString(fields[2]),
+                    Integer.parseInt(fields[3]), Instant.ofEpochMilli(Long.parseLong(fields[4])));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    RatingRequest toRequest() {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+
+    private String payload() {
+        return "%d,%s,%s,%d,%d".formatted(sequence, userId, movieId, rating, acceptedOn.toEpochMilli());
+    }
+
+    private static long checksum(String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
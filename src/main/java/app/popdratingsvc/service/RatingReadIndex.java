@@ -0,0 +1,685 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.config.ReadIndexProperties;
+import app.popdratingsvc.event.MovieAggregatesRecomputedEvent;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.model.MovieRatingAggregate;
+import app.popdratingsvc.repository.MovieRatingAggregateRepository;
+import app.popdratingsvc.repository.RatingHistoryRow;
+import app.popdratingsvc.repository.RatingRepository;
+import app.popdratingsvc.web.dto.RatingResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-process copy of the {@code ratings} table ({@code ratings.read-index.enabled}) that answers single
+ * rating, latest-ratings and movie stats reads without JPA. Rows are stored column-wise in primitive arrays:
+ * user and movie ids as two {@code long}s each, the rating as a {@code byte} and both timestamps as epoch
+ * microseconds in a {@code long}, 49 bytes per row. Each user maps to the list of its row numbers and each
+ * movie to its running count and sum; freed rows are reused by the next insert.
+ *
+ * <p>Loaded from the database before the application starts serving and then updated from every committed
+ * {@link RatingChangedEvent}. An event only says which pair changed: the pairs a transaction changed are
+ * collected until it commits and then re-read from the primary in one query, and each is set as it is or
+ * removed when it is gone. Commits touching the same pair may finish in either order, so the re-read and the
+ * update happen under per-pair locks; whichever runs last reads a row at least as new as both commits. An event
+ * that races the load is applied on top of the loaded row and changes nothing. Timestamps keep the database's
+ * microsecond precision, and ratings updated in the same microsecond are returned in row order rather than by
+ * id.
+ *
+ * <p>With {@code ratings.read-index.snapshot-file} set, the columns are also written to that file every
+ * {@code snapshot-interval} and on shutdown, together with the newest {@code updatedOn} read from a committed
+ * row (the high-water mark). A row's {@code updatedOn} is set before its transaction commits, so rows committed
+ * after the snapshot can carry an older one. Startup therefore restores the index from the file and replays the
+ * rows updated since the mark minus {@code replay-overlap}, which must exceed the longest write transaction. It
+ * then compares every movie's count and sum with
+ * {@code movie_rating_aggregates}. Movies that differ, which is how deletes since the snapshot show up, have
+ * their rows reloaded. A missing, corrupt or older-format file falls back to the full load.
+ */
+@Slf4j
+@Component
+public class RatingReadIndex implements SmartInitializingSingleton, SmartLifecycle {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int RELOAD_BATCH_SIZE = 500;
+    private static final int PAIR_LOCK_STRIPES = 256;
+
+    private final RatingRepository ratingRepository;
+    private final MovieRatingAggregateRepository movieRatingAggregateRepository;
+    private final ReadIndexProperties properties;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] pairLocks = new ReentrantLock[PAIR_LOCK_STRIPES];
+    private final Map<UUID, RowList> rowsByUser = new HashMap<>();
+    private final Map<UUID, MovieCounter> totalsByMovie = new HashMap<>();
+    private volatile boolean serving;
+
+    private long[] userMostSignificant = new long[INITIAL_CAPACITY];
+    private long[] userLeastSignificant = new long[INITIAL_CAPACITY];
+    private long[] movieMostSignificant = new long[INITIAL_CAPACITY];
+    private long[] movieLeastSignificant = new long[INITIAL_CAPACITY];
+    private byte[] ratings = new byte[INITIAL_CAPACITY];
+    private long[] createdOn = new long[INITIAL_CAPACITY];
+    private long[] updatedOn = new long[INITIAL_CAPACITY];
+    private int rowCount;
+    private long highWaterMark;
+    private final RowList freeRows = new RowList();
+
+    private volatile boolean running;
+    private ScheduledExecutorService snapshotWriter;
+
+    public RatingReadIndex(RatingRepository ratingRepository, MovieRatingAggregateRepository movieRatingAggregateRepository,
+                           ReadIndexProperties properties) {
+        this.ratingRepository = ratingRepository;
+        this.movieRatingAggregateRepository = movieRatingAggregateRepository;
+        this.properties = properties;
+        this.enabled = properties.enabled();
+        for (int i = 0; i < PAIR_LOCK_STRIPES; i++) {
+            pairLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+
+        Path snapshotFile = properties.snapshotFile();
+        if (snapshotFile == null || !Files.exists(snapshotFile) || !restore(snapshotFile)) {
+            load();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (enabled && properties.snapshotFile() != null) {
+            snapshotWriter = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "rating-read-index-snapshot"));
+            long intervalMillis = properties.snapshotInterval().toMillis();
+            snapshotWriter.scheduleWithFixedDelay(this::writeSnapshot, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (snapshotWriter == null) {
+            return;
+        }
+
+        snapshotWriter.shutdown();
+        try {
+            snapshotWriter.awaitTermination(Duration.ofSeconds(30).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeSnapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the write-ahead log has applied its last entries, so the final snapshot includes them.
+     */
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 4096;
+    }
+
+    /**
+     * Whether the index has been loaded and may answer reads. Always {@code false} when it is disabled.
+     */
+    public boolean isServing() {
+        return serving;
+    }
+
+    /**
+     * Loads every rating in primary-key pages of {@value RatingRepository#INDEX_PAGE_SIZE}. The write lock is
+     * held throughout, so events committed meanwhile wait and are applied on top of the loaded rows.
+     */
+    void load() {
+        long startedAt = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            Limit limit = Limit.of(RatingRepository.INDEX_PAGE_SIZE);
+            List<RatingHistoryRow> page = ratingRepository.findIndexPage(limit);
+            while (!page.isEmpty()) {
+                for (RatingHistoryRow row : page) {
+                    put(row.userId(), row.movieId(), row.rating(), row.createdOn(), row.updatedOn());
+                }
+                if (page.size() < RatingRepository.INDEX_PAGE_SIZE) {
+                    break;
+                }
+                page = ratingRepository.findIndexPageAfter(page.get(page.size() - 1).id(), limit);
+            }
+            serving = true;
+            log.info("Loaded rating read index with {} ratings of {} users and {} movies in {} ms",
+                rowCount - freeRows.size, rowsByUser.size(), totalsByMovie.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restores the index from a snapshot and brings it up to date with the database. Returns {@code false},
+     * leaving the index empty, when the file cannot be used.
+     */
+    boolean restore(Path snapshotFile) {
+        long startedAt = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            RatingIndexSnapshot snapshot;
+            try {
+                snapshot = RatingIndexSnapshot.readFrom(snapshotFile, INITIAL_CAPACITY);
+            } catch (IOException e) {
+                log.warn("Could not restore rating read index from {}, loading it from the database instead: {}",
+                    snapshotFile, e.getMessage());
+                return false;
+            }
+
+            adopt(snapshot);
+            int snapshotRows = rowCount - freeRows.size;
+            LocalDateTime since = dateTime(snapshot.highWaterMark()).minus(properties.replayOverlap());
+            int replayed = replaySince(since);
+            int reloadedMovies = reloadStaleMovies();
+            serving = true;
+            log.info("Restored rating read index with {} ratings from {}, replayed {} ratings updated since {} and reloaded {} movies in {} ms",
+                snapshotRows, snapshotFile, replayed, since, reloadedMovies, (System.nanoTime() - startedAt) / 1_000_000);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the columns to the snapshot file under the read lock: reads continue meanwhile, rating events
+     * wait until the file is written.
+     */
+    void writeSnapshot() {
+        Path snapshotFile = properties.snapshotFile();
+        if (!serving || snapshotFile == null) {
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            if (snapshotFile.getParent() != null) {
+                Files.createDirectories(snapshotFile.getParent());
+            }
+            new RatingIndexSnapshot(userMostSignificant, userLeastSignificant, movieMostSignificant, movieLeastSignificant,
+                    ratings, createdOn, updatedOn, rowCount, highWaterMark).writeTo(snapshotFile);
+            log.info("Wrote rating read index snapshot of {} ratings to {} in {} ms",
+                rowCount - freeRows.size, snapshotFile, (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Could not write rating read index snapshot to {}", snapshotFile, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Within a transaction only records the pair; the pairs are re-read once the transaction has committed, by a
+     * synchronization that runs before the after-commit listeners, so none of them can observe the change while
+     * the index still answers with the previous value. Outside a transaction the pair is re-read right away.
+     */
+    @EventListener
+    public void onRatingChanged(RatingChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingPairs().add(event.userId(), event.movieId());
+        } else {
+            refresh(Map.of(event.userId(), Set.of(event.movieId())));
+        }
+    }
+
+    /**
+     * Reloads the recomputed movie from the {@code ratings} table, or every movie whose totals differ from
+     * the recomputed aggregates, so a drifted index is repaired together with the aggregates.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAggregatesRecomputed(MovieAggregatesRecomputedEvent event) {
+        if (!serving) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int reloadedMovies = event.movieId() == null ? reloadStaleMovies() : reloadMovies(Set.of(event.movieId()));
+            log.info("Reloaded {} movies into the rating read index after recomputing aggregates", reloadedMovies);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-reads the pairs' committed rows and sets or removes them. The rows are read before the index lock is
+     * taken, so index reads only wait for the update itself; the pair locks are taken in stripe order, so two
+     * refreshes never wait on each other in a cycle.
+     */
+    private void refresh(Map<UUID, Set<UUID>> movieIdsByUser) {
+        int[] stripes = movieIdsByUser.entrySet().stream()
+                .flatMapToInt(entry -> entry.getValue().stream().mapToInt(movieId -> pairStripe(entry.getKey(), movieId)))
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (; locked < stripes.length; locked++) {
+                pairLocks[stripes[locked]].lock();
+            }
+            List<RatingHistoryRow> current = readRows(movieIdsByUser);
+            Map<UUID, Set<UUID>> removed = new HashMap<>();
+            movieIdsByUser.forEach((userId, movieIds) -> removed.put(userId, new HashSet<>(movieIds)));
+            lock.writeLock().lock();
+            try {
+                for (RatingHistoryRow row : current) {
+                    put(row.userId(), row.movieId(), row.rating(), row.createdOn(), row.updatedOn());
+                    removed.get(row.userId()).remove(row.movieId());
+                }
+                removed.forEach((userId, movieIds) -> movieIds.forEach(movieId -> remove(userId, movieId)));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            while (locked > 0) {
+                pairLocks[stripes[--locked]].unlock();
+            }
+        }
+    }
+
+    /**
+     * A single pair, the common case of one rating write, is read by its unique key.
+     */
+    private List<RatingHistoryRow> readRows(Map<UUID, Set<UUID>> movieIdsByUser) {
+        if (movieIdsByUser.size() == 1) {
+            Map.Entry<UUID, Set<UUID>> entry = movieIdsByUser.entrySet().iterator().next();
+            if (entry.getValue().size() == 1) {
+                return ratingRepository.findIndexRow(entry.getKey(), entry.getValue().iterator().next()).stream().toList();
+            }
+        }
+        return ratingRepository.findIndexRows(movieIdsByUser);
+    }
+
+    private static int pairStripe(UUID userId, UUID movieId) {
+        return Math.floorMod(31 * userId.hashCode() + movieId.hashCode(), PAIR_LOCK_STRIPES);
+    }
+
+    private PendingPairs pendingPairs() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingPairs pendingPairs && pendingPairs.owner() == this) {
+                return pendingPairs;
+            }
+        }
+        PendingPairs pendingPairs = new PendingPairs();
+        TransactionSynchronizationManager.registerSynchronization(pendingPairs);
+        return pendingPairs;
+    }
+
+    public Optional<RatingResponse> find(UUID userId, UUID movieId) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(userId, movieId);
+            return row < 0 ? Optional.empty() : Optional.of(response(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the user's {@code limit} most recently updated ratings, newest first. Keeps the newest rows seen
+     * so far in an insertion-sorted array of at most {@code limit} row numbers, so the user's rows are scanned
+     * once and never sorted as a whole.
+     */
+    public List<RatingResponse> latest(UUID userId, int limit) {
+        lock.readLock().lock();
+        try {
+            RowList rows = rowsByUser.get(userId);
+            if (rows == null || limit <= 0) {
+                return List.of();
+            }
+
+            int[] newest = new int[Math.min(limit, rows.size)];
+            int found = 0;
+            for (int i = 0; i < rows.size; i++) {
+                int row = rows.rows[i];
+                if (found == newest.length && !newer(row, newest[found - 1])) {
+                    continue;
+                }
+                int position = found == newest.length ? found - 1 : found++;
+                while (position > 0 && newer(row, newest[position - 1])) {
+                    newest[position] = newest[position - 1];
+                    position--;
+                }
+                newest[position] = row;
+            }
+
+            List<RatingResponse> latest = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                latest.add(response(newest[i]));
+            }
+            return latest;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count and sum of the movie's ratings, empty for a movie without ratings.
+     */
+    public Optional<MovieTotals> movieTotals(UUID movieId) {
+        lock.readLock().lock();
+        try {
+            MovieCounter totals = totalsByMovie.get(movieId);
+            return totals == null ? Optional.empty() : Optional.of(new MovieTotals(totals.count, totals.sum));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowCount - freeRows.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public record MovieTotals(long count, long sum) {
+    }
+
+    private void put(UUID userId, UUID movieId, int rating, LocalDateTime created, LocalDateTime updated) {
+        int row = rowOf(userId, movieId);
+        MovieCounter totals = totalsByMovie.computeIfAbsent(movieId, id -> new MovieCounter());
+        if (row >= 0) {
+            totals.sum += rating - ratings[row];
+        } else {
+            row = allocateRow();
+            userMostSignificant[row] = userId.getMostSignificantBits();
+            userLeastSignificant[row] = userId.getLeastSignificantBits();
+            movieMostSignificant[row] = movieId.getMostSignificantBits();
+            movieLeastSignificant[row] = movieId.getLeastSignificantBits();
+            createdOn[row] = epochMicros(created);
+            rowsByUser.computeIfAbsent(userId, id -> new RowList()).add(row);
+            totals.count++;
+            totals.sum += rating;
+        }
+        ratings[row] = (byte) rating;
+        updatedOn[row] = epochMicros(updated);
+        highWaterMark = Math.max(highWaterMark, updatedOn[row]);
+    }
+
+    private void remove(UUID userId, UUID movieId) {
+        int row = rowOf(userId, movieId);
+        if (row < 0) {
+            return;
+        }
+
+        RowList rows = rowsByUser.get(userId);
+        rows.remove(row);
+        if (rows.size == 0) {
+            rowsByUser.remove(userId);
+        }
+        MovieCounter totals = totalsByMovie.get(movieId);
+        totals.count--;
+        totals.sum -= ratings[row];
+        if (totals.count == 0) {
+            totalsByMovie.remove(movieId);
+        }
+        ratings[row] = 0;
+        freeRows.add(row);
+    }
+
+    /**
+     * Takes over the snapshot's columns and rebuilds the user and movie maps from them; rows rated {@code 0}
+     * are free.
+     */
+    private void adopt(RatingIndexSnapshot snapshot) {
+        userMostSignificant = snapshot.userMostSignificant();
+        userLeastSignificant = snapshot.userLeastSignificant();
+        movieMostSignificant = snapshot.movieMostSignificant();
+        movieLeastSignificant = snapshot.movieLeastSignificant();
+        ratings = snapshot.ratings();
+        createdOn = snapshot.createdOn();
+        updatedOn = snapshot.updatedOn();
+        rowCount = snapshot.rowCount();
+        highWaterMark = snapshot.highWaterMark();
+        rowsByUser.clear();
+        totalsByMovie.clear();
+        freeRows.size = 0;
+
+        for (int row = 0; row < rowCount; row++) {
+            if (ratings[row] == 0) {
+                freeRows.add(row);
+                continue;
+            }
+            rowsByUser.computeIfAbsent(new UUID(userMostSignificant[row], userLeastSignificant[row]), id -> new RowList()).add(row);
+            MovieCounter totals = totalsByMovie.computeIfAbsent(new UUID(movieMostSignificant[row], movieLeastSignificant[row]),
+                    id -> new MovieCounter());
+            totals.count++;
+            totals.sum += ratings[row];
+        }
+    }
+
+    private int replaySince(LocalDateTime since) {
+        int replayed = 0;
+        Limit limit = Limit.of(RatingRepository.INDEX_PAGE_SIZE);
+        List<RatingHistoryRow> page = ratingRepository.findIndexPageUpdatedSince(since, limit);
+        while (!page.isEmpty()) {
+            for (RatingHistoryRow row : page) {
+                put(row.userId(), row.movieId(), row.rating(), row.createdOn(), row.updatedOn());
+            }
+            replayed += page.size();
+            if (page.size() < RatingRepository.INDEX_PAGE_SIZE) {
+                break;
+            }
+            page = ratingRepository.findIndexPageUpdatedSinceAfter(since, page.get(page.size() - 1).id(), limit);
+        }
+        return replayed;
+    }
+
+    /**
+     * Reloads every movie whose count or sum differs from its aggregate, including movies the index still
+     * holds but that no longer have ratings. Returns the number of movies reloaded.
+     */
+    private int reloadStaleMovies() {
+        Set<UUID> stale = new HashSet<>(totalsByMovie.keySet());
+        for (MovieRatingAggregate aggregate : movieRatingAggregateRepository.findAllForRebuild()) {
+            MovieCounter totals = totalsByMovie.get(aggregate.getMovieId());
+            if (totals != null && totals.count == aggregate.getRatingsCount() && totals.sum == aggregate.getRatingsSum()) {
+                stale.remove(aggregate.getMovieId());
+            } else if (aggregate.getRatingsCount() > 0) {
+                stale.add(aggregate.getMovieId());
+            }
+        }
+        return reloadMovies(stale);
+    }
+
+    /**
+     * Replaces the rows of the given movies with their rows in the {@code ratings} table. Returns the number
+     * of movies reloaded.
+     */
+    private int reloadMovies(Set<UUID> stale) {
+        if (stale.isEmpty()) {
+            return 0;
+        }
+
+        for (int row = 0; row < rowCount; row++) {
+            if (ratings[row] == 0) {
+                continue;
+            }
+            UUID movieId = new UUID(movieMostSignificant[row], movieLeastSignificant[row]);
+            if (stale.contains(movieId)) {
+                remove(new UUID(userMostSignificant[row], userLeastSignificant[row]), movieId);
+            }
+        }
+        List<UUID> movieIds = new ArrayList<>(stale);
+        for (int from = 0; from < movieIds.size(); from += RELOAD_BATCH_SIZE) {
+            List<UUID> batch = movieIds.subList(from, Math.min(from + RELOAD_BATCH_SIZE, movieIds.size()));
+            for (RatingHistoryRow row : ratingRepository.findIndexRowsByMovieIdIn(batch)) {
+                put(row.userId(), row.movieId(), row.rating(), row.createdOn(), row.updatedOn());
+            }
+        }
+        return stale.size();
+    }
+
+    /**
+     * Scans the user's rows for the movie, so a lookup costs one map access plus one comparison per rating of
+     * that user.
+     */
+    private int rowOf(UUID userId, UUID movieId) {
+        RowList rows = rowsByUser.get(userId);
+        if (rows == null) {
+            return -1;
+        }
+
+        long most = movieId.getMostSignificantBits();
+        long least = movieId.getLeastSignificantBits();
+        for (int i = 0; i < rows.size; i++) {
+            int row = rows.rows[i];
+            if (movieLeastSignificant[row] == least && movieMostSignificant[row] == most) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private int allocateRow() {
+        if (freeRows.size > 0) {
+            return freeRows.rows[--freeRows.size];
+        }
+        if (rowCount == ratings.length) {
+            int capacity = rowCount + (rowCount >> 1);
+            userMostSignificant = Arrays.copyOf(userMostSignificant, capacity);
+            userLeastSignificant = Arrays.copyOf(userLeastSignificant, capacity);
+            movieMostSignificant = Arrays.copyOf(movieMostSignificant, capacity);
+            movieLeastSignificant = Arrays.copyOf(movieLeastSignificant, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            createdOn = Arrays.copyOf(createdOn, capacity);
+            updatedOn = Arrays.copyOf(updatedOn, capacity);
+        }
+        return rowCount++;
+    }
+
+    private RatingResponse response(int row) {
+        return new RatingResponse(ratings[row],
+                new UUID(userMostSignificant[row], userLeastSignificant[row]),
+                new UUID(movieMostSignificant[row], movieLeastSignificant[row]),
+                dateTime(createdOn[row]),
+                dateTime(updatedOn[row]));
+    }
+
+    private boolean newer(int row, int other) {
+        return updatedOn[row] > updatedOn[other] || updatedOn[row] == updatedOn[other] && row > other;
+    }
+
+    /**
+     * Microseconds, the finest precision the {@code ratings} timestamps are stored with.
+     */
+    private static long epochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dateTime(long epochMicros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000),
+                (int) Math.floorMod(epochMicros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Pairs changed by one transaction, re-read in {@code afterCommit}. Ordered first, so the after-commit
+     * listeners registered by the same transaction see the index already updated.
+     */
+    private final class PendingPairs implements TransactionSynchronization {
+
+        private final Map<UUID, Set<UUID>> movieIdsByUser = new HashMap<>();
+
+        private RatingReadIndex owner() {
+            return RatingReadIndex.this;
+        }
+
+        private void add(UUID userId, UUID movieId) {
+            movieIdsByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(movieId);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            refresh(movieIdsByUser);
+        }
+    }
+
+    private static final class MovieCounter {
+
+        private long count;
+        private long sum;
+    }
+
+    /**
+     * Growable list of row numbers. Order is not kept: removal moves the last element into the gap.
+     */
+    private static final class RowList {
+
+        private int[] rows = new int[4];
+        private int size;
+
+        private void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        private void remove(int row) {
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == row) {
+                    rows[i] = rows[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
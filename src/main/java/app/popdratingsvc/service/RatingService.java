@@ -1,119 +1,742 @@
 package app.popdratingsvc.service;
 
+import app.popdratingsvc.config.CacheConfig;
+import app.popdratingsvc.config.ReadWriteRoutingDataSource;
+import app.popdratingsvc.event.MovieAggregatesRecomputedEvent;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.exception.InvalidRequestException;
 import app.popdratingsvc.exception.NotFoundException;
+import app.popdratingsvc.model.MovieRatingAggregate;
 import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.model.TimeOrderedUuidGenerator;
+import app.popdratingsvc.repository.MovieRatingAggregateRepository;
+import app.popdratingsvc.repository.MovieRatingDelta;
+import app.popdratingsvc.repository.MovieRatingValueCount;
+import app.popdratingsvc.repository.RatingHistoryRow;
 import app.popdratingsvc.repository.RatingRepository;
+import app.popdratingsvc.repository.UserRatingVersionRepository;
+import app.popdratingsvc.web.dto.MovieRatingHistogramResponse;
+import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import app.popdratingsvc.web.dto.RatingBatchItemResponse;
+import app.popdratingsvc.web.dto.RatingBatchItemStatus;
+import app.popdratingsvc.web.dto.RatingBatchResponse;
+import app.popdratingsvc.web.dto.RatingHistoryResponse;
 import app.popdratingsvc.web.dto.RatingRequest;
 import app.popdratingsvc.web.dto.RatingResponse;
+import app.popdratingsvc.web.dto.TopMovieResponse;
+import app.popdratingsvc.web.dto.TrendingMovieResponse;
 import app.popdratingsvc.web.mapper.DtoMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class RatingService {
 
+    public static final int MAX_STATS_BATCH_SIZE = 500;
+    private static final int LATEST_RATINGS_LIMIT = 20;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_LOOKUP_BATCH_SIZE = 500;
+    private static final int MAX_TOP_MOVIES_LIMIT = 100;
+    private static final int[] PERCENTILES = {10, 25, 50, 75, 90};
+
     private final RatingRepository ratingRepository;
+    private final MovieRatingAggregateRepository movieRatingAggregateRepository;
+    private final UserRatingVersionRepository userRatingVersionRepository;
+    private final MovieLeaderboard movieLeaderboard;
+    private final TrendingMovies trendingMovies;
+    private final RatingReadIndex ratingReadIndex;
+    private final RatingCacheInvalidator ratingCacheInvalidator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Counter createdRatings;
+    private final Counter updatedRatings;
+    private final Counter rejectedRatings;
+    private final Counter deletedRatings;
 
-    public RatingService(RatingRepository ratingRepository) {
+    public RatingService(RatingRepository ratingRepository, MovieRatingAggregateRepository movieRatingAggregateRepository,
+                         UserRatingVersionRepository userRatingVersionRepository, MovieLeaderboard movieLeaderboard,
+                         TrendingMovies trendingMovies, RatingReadIndex ratingReadIndex,
+                         RatingCacheInvalidator ratingCacheInvalidator, ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry) {
         this.ratingRepository = ratingRepository;
+        this.movieRatingAggregateRepository = movieRatingAggregateRepository;
+        this.userRatingVersionRepository = userRatingVersionRepository;
+        this.movieLeaderboard = movieLeaderboard;
+        this.trendingMovies = trendingMovies;
+        this.ratingReadIndex = ratingReadIndex;
+        this.ratingCacheInvalidator = ratingCacheInvalidator;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.createdRatings = upsertCounter(meterRegistry, "created");
+        this.updatedRatings = upsertCounter(meterRegistry, "updated");
+        this.rejectedRatings = upsertCounter(meterRegistry, "rejected");
+        this.deletedRatings = Counter.builder("ratings.deletes")
+                .description("Ratings removed")
+                .register(meterRegistry);
     }
 
+    /**
+     * Writes with one atomic {@code on conflict} statement, then reads the row back for its id and the value it
+     * replaced: MySQL cannot return columns from {@code INSERT ... ON DUPLICATE KEY UPDATE}, so this takes two
+     * round trips. The row is locked by the write until commit, so the read sees exactly what was replaced.
+     */
+    @Transactional
     public Rating upsert(RatingRequest ratingRequest) {
-        Optional<Rating> ratingOpt = ratingRepository.findByUserIdAndMovieId(ratingRequest.getUserId(), ratingRequest.getMovieId());
-
-        if (ratingOpt.isPresent()) {
-            Rating rating = ratingOpt.get();
-            rating.setRating(ratingRequest.getRating());
-            rating.setUpdatedOn(LocalDateTime.now());
-            
-            Rating savedRating = ratingRepository.save(rating);
+        String validationError = validate(ratingRequest);
+        if (validationError != null) {
+            rejectedRatings.increment();
+            throw new InvalidRequestException(validationError);
+        }
+
+        ratingRepository.upsert(TimeOrderedUuidGenerator.next(), ratingRequest.getUserId(), ratingRequest.getMovieId(),
+                ratingRequest.getRating(), LocalDateTime.now());
+        Rating savedRating = findByUserIdAndMovieId(ratingRequest.getUserId(), ratingRequest.getMovieId());
+        publishRatingChanged(savedRating.getUserId(), savedRating.getMovieId(), savedRating.getPreviousRating(), savedRating.getRating());
+        userRatingVersionRepository.increment(savedRating.getUserId());
+
+        if (savedRating.getPreviousRating() != null) {
+            movieRatingAggregateRepository.applyDelta(savedRating.getMovieId(),
+                    new MovieRatingDelta().remove(savedRating.getPreviousRating()).add(savedRating.getRating()));
+            updatedRatings.increment();
             log.info("Successfully updated rating with id {} for user with id {} and movie with id {}",
                 savedRating.getId(), savedRating.getUserId(), savedRating.getMovieId());
             return savedRating;
         }
 
-        Rating rating = Rating.builder()
-                .rating(ratingRequest.getRating())
-                .movieId(ratingRequest.getMovieId())
-                .userId(ratingRequest.getUserId())
-                .createdOn(LocalDateTime.now())
-                .updatedOn(LocalDateTime.now())
-                .build();
-
-        Rating savedRating = ratingRepository.save(rating);
+        movieRatingAggregateRepository.applyDelta(savedRating.getMovieId(), new MovieRatingDelta().add(savedRating.getRating()));
+        createdRatings.increment();
         log.info("Successfully created new rating with id {} for user with id {} and movie with id {}",
             savedRating.getId(), savedRating.getUserId(), savedRating.getMovieId());
         return savedRating;
     }
 
+    /**
+     * Upserts a batch of ratings with the same {@code on conflict} statement as {@link #upsert}, many rows per
+     * statement, so a concurrent write of the same pair updates the row instead of failing the batch. The
+     * replaced values are then read back for exactly the written pairs in one query; the rows stay locked until
+     * commit, so they are the values this batch overwrote. Each affected movie aggregate receives a single
+     * combined delta. Items repeating the same user/movie pair are written in further statements, in order,
+     * so the last one wins.
+     */
+    @Transactional
+    public RatingBatchResponse upsertAll(List<RatingRequest> ratingRequests) {
+        if (ratingRequests.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException("Batch size must not exceed %d ratings".formatted(MAX_BATCH_SIZE));
+        }
+
+        // Round n holds the n-th occurrence of every pair, so a repeated pair keeps its last replaced value.
+        List<Map<RatingKey, Integer>> rounds = new ArrayList<>();
+        Map<RatingKey, Integer> occurrences = new HashMap<>();
+        for (RatingRequest ratingRequest : ratingRequests) {
+            if (validate(ratingRequest) == null) {
+                RatingKey key = new RatingKey(ratingRequest.getUserId(), ratingRequest.getMovieId());
+                int round = occurrences.merge(key, 1, Integer::sum) - 1;
+                if (round == rounds.size()) {
+                    rounds.add(new LinkedHashMap<>());
+                }
+                rounds.get(round).put(key, ratingRequest.getRating());
+            }
+        }
+
+        Map<RatingKey, Integer> finalRatings = new LinkedHashMap<>();
+        Map<RatingKey, Integer> replacedRatings = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Map<RatingKey, Integer> round : rounds) {
+            List<Rating> rows = new ArrayList<>(round.size());
+            round.forEach((key, rating) -> rows.add(Rating.builder()
+                    .id(TimeOrderedUuidGenerator.next())
+                    .userId(key.userId())
+                    .movieId(key.movieId())
+                    .rating(rating)
+                    .updatedOn(now)
+                    .build()));
+            ratingRepository.upsertAll(rows);
+            if (finalRatings.isEmpty()) {
+                Map<UUID, Set<UUID>> movieIdsByUser = new HashMap<>();
+                round.keySet().forEach(key -> movieIdsByUser.computeIfAbsent(key.userId(), userId -> new HashSet<>()).add(key.movieId()));
+                ratingRepository.findPreviousRatings(movieIdsByUser)
+                        .forEach(row -> replacedRatings.put(new RatingKey(row.userId(), row.movieId()), row.previousRating()));
+            }
+            finalRatings.putAll(round);
+        }
+
+        List<RatingBatchItemResponse> results = new ArrayList<>(ratingRequests.size());
+        Map<RatingKey, Integer> currentRatings = new HashMap<>(replacedRatings);
+        for (int i = 0; i < ratingRequests.size(); i++) {
+            RatingRequest ratingRequest = ratingRequests.get(i);
+            String validationError = validate(ratingRequest);
+            if (validationError != null) {
+                results.add(batchItem(i, ratingRequest, RatingBatchItemStatus.REJECTED, validationError));
+                continue;
+            }
+
+            RatingKey key = new RatingKey(ratingRequest.getUserId(), ratingRequest.getMovieId());
+            Integer previousRating = currentRatings.put(key, ratingRequest.getRating());
+            publishRatingChanged(key.userId(), key.movieId(), previousRating, ratingRequest.getRating());
+            results.add(batchItem(i, ratingRequest, previousRating == null ? RatingBatchItemStatus.CREATED : RatingBatchItemStatus.UPDATED, null));
+        }
+
+        Map<UUID, MovieRatingDelta> movieDeltas = new HashMap<>();
+        finalRatings.forEach((key, rating) -> {
+            MovieRatingDelta delta = movieDeltas.computeIfAbsent(key.movieId(), movieId -> new MovieRatingDelta());
+            Integer replacedRating = replacedRatings.get(key);
+            if (replacedRating != null) {
+                delta.remove(replacedRating);
+            }
+            delta.add(rating);
+        });
+        movieDeltas.forEach(movieRatingAggregateRepository::applyDelta);
+        finalRatings.keySet().stream().map(RatingKey::userId).distinct().forEach(userRatingVersionRepository::increment);
+
+        RatingBatchResponse response = RatingBatchResponse.builder()
+                .created(countByStatus(results, RatingBatchItemStatus.CREATED))
+                .updated(countByStatus(results, RatingBatchItemStatus.UPDATED))
+                .rejected(countByStatus(results, RatingBatchItemStatus.REJECTED))
+                .results(results)
+                .build();
+        createdRatings.increment(response.getCreated());
+        updatedRatings.increment(response.getUpdated());
+        rejectedRatings.increment(response.getRejected());
+        log.info("Batch upsert of {} ratings: {} created, {} updated, {} rejected",
+            ratingRequests.size(), response.getCreated(), response.getUpdated(), response.getRejected());
+        return response;
+    }
+
+    @Transactional(readOnly = true)
     public Rating findByUserIdAndMovieId(UUID userId, UUID movieId) {
-        return ratingRepository.findByUserIdAndMovieId(userId, movieId).orElseThrow(() -> new NotFoundException("Rating with user id [%s] and movie id [%s] not found".formatted(userId, movieId)));
+        return ratingRepository.findByUserIdAndMovieId(userId, movieId).orElseThrow(() -> ratingNotFound(userId, movieId));
+    }
+
+    /**
+     * Answered by {@link RatingReadIndex} while it is serving. Not transactional itself, so that path never
+     * checks out a connection; the repository query runs in its own read-only transaction.
+     */
+    public RatingResponse getRating(UUID userId, UUID movieId) {
+        Optional<RatingResponse> rating = ratingReadIndex.isServing()
+                ? ratingReadIndex.find(userId, movieId)
+                : ratingRepository.findResponseByUserIdAndMovieId(userId, movieId);
+        return rating.orElseThrow(() -> ratingNotFound(userId, movieId));
+    }
+
+    /**
+     * Looks up the user's ratings of many movies with one query on the {@code (user_id, movie_id)} unique index.
+     * Movies the user has not rated are left out of the map, in request order otherwise.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, RatingResponse> getRatings(UUID userId, Collection<UUID> movieIds) {
+        if (movieIds.size() > MAX_LOOKUP_BATCH_SIZE) {
+            throw new InvalidRequestException("Lookup must not exceed %d movie ids".formatted(MAX_LOOKUP_BATCH_SIZE));
+        }
+
+        Set<UUID> distinctMovieIds = new LinkedHashSet<>(movieIds);
+        distinctMovieIds.remove(null);
+        if (distinctMovieIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<UUID, RatingResponse> ratingsByMovie = ratingRepository.findResponsesByUserIdAndMovieIdIn(userId, distinctMovieIds).stream()
+                .collect(Collectors.toMap(RatingResponse::getMovieId, Function.identity()));
+        Map<UUID, RatingResponse> ratings = new LinkedHashMap<>();
+        for (UUID movieId : distinctMovieIds) {
+            RatingResponse rating = ratingsByMovie.get(movieId);
+            if (rating != null) {
+                ratings.put(movieId, rating);
+            }
+        }
+
+        log.info("Looked up {} movies for user {}: {} rated", distinctMovieIds.size(), userId, ratings.size());
+        return ratings;
     }
 
+    @Transactional
     public void removeRating(UUID userId, UUID movieId) {
         Rating rating = findByUserIdAndMovieId(userId, movieId);
         ratingRepository.delete(rating);
+        movieRatingAggregateRepository.applyDelta(movieId, new MovieRatingDelta().remove(rating.getRating()));
+        userRatingVersionRepository.increment(userId);
+        publishRatingChanged(userId, movieId, rating.getRating(), null);
+        deletedRatings.increment();
         log.info("Successfully removed rating with id {} for user with id {} and movie with id {}",
             rating.getId(), userId, movieId);
     }
 
-    public Double getAverageRatingForAMovie(UUID movieId) {
-        List<Rating> ratings = ratingRepository.findAllByMovieId(movieId);
+    /**
+     * Version of the movie's aggregate, incremented by every write to one of its ratings. Empty for a movie
+     * that has never been rated. Read from the primary, which has every committed write, so a body loaded under
+     * this version is never older than it.
+     */
+    public Optional<Long> findMovieVersion(UUID movieId) {
+        return ReadWriteRoutingDataSource.readFromPrimary(() -> movieRatingAggregateRepository.findVersionByMovieId(movieId));
+    }
+
+    /**
+     * Version of the user's ratings, incremented by every write to one of them. Empty for a user who has not
+     * written since versions were introduced. Read from the primary like {@link #findMovieVersion}.
+     */
+    public Optional<Long> findUserVersion(UUID userId) {
+        return ReadWriteRoutingDataSource.readFromPrimary(() -> userRatingVersionRepository.findVersionByUserId(userId));
+    }
 
-        if (ratings.isEmpty()) {
-            throw new NotFoundException("No ratings found for movie with id [%s]".formatted(movieId));
+    /**
+     * Answered by {@link RatingReadIndex} while it is serving, otherwise by a primary-key lookup that runs in
+     * the repository's read-only transaction. Not cached: conditional reads go through
+     * {@link #getMovieRatingStats(UUID, long)}.
+     */
+    public MovieRatingStatsResponse getMovieRatingStats(UUID movieId) {
+        long ratingsCount;
+        long ratingsSum;
+        if (ratingReadIndex.isServing()) {
+            RatingReadIndex.MovieTotals totals = ratingReadIndex.movieTotals(movieId)
+                    .orElseThrow(() -> notFound("movie", "No ratings found for movie with id [%s]".formatted(movieId)));
+            ratingsCount = totals.count();
+            ratingsSum = totals.sum();
+        } else {
+            MovieRatingAggregate aggregate = findMovieAggregate(movieId);
+            ratingsCount = aggregate.getRatingsCount();
+            ratingsSum = aggregate.getRatingsSum();
         }
 
-        double sum = ratings.stream()
-                .mapToInt(Rating::getRating)
-                .sum();
+        MovieRatingStatsResponse stats = stats(ratingsCount, ratingsSum);
+        log.info("Retrieved stats for movie {}: average rating {} based on {} ratings", movieId, stats.getAverageRating(), stats.getTotalRatings());
+        return stats;
+    }
+
+    /**
+     * The movie's stats as of {@code version}, from {@link #findMovieVersion}, cached under the movie id and that
+     * version. A write bumps the version, so it moves readers to a new key instead of evicting the old one, and the
+     * entry for an ETag always holds the body that was served with it.
+     * <p>
+     * A miss reads the aggregate row from the primary rather than the {@link RatingReadIndex}, which may still be
+     * applying the write that produced the version. A write committed between the version read and this one
+     * can only put a newer body under the older version, never the reverse, and later requests read the newer
+     * version and go to a different key.
+     */
+    @Cacheable(cacheNames = CacheConfig.MOVIE_STATS)
+    public MovieRatingStatsResponse getMovieRatingStats(UUID movieId, long version) {
+        MovieRatingAggregate aggregate = ReadWriteRoutingDataSource.readFromPrimary(() -> findMovieAggregate(movieId));
+
+        MovieRatingStatsResponse stats = stats(aggregate.getRatingsCount(), aggregate.getRatingsSum());
+        log.info("Retrieved stats for movie {} at version {}: average rating {} based on {} ratings", movieId, version,
+                stats.getAverageRating(), stats.getTotalRatings());
+        return stats;
+    }
+
+    /**
+     * Answers from the same sources as {@link #getMovieRatingStats(UUID)}: the {@link RatingReadIndex} while it
+     * is serving, otherwise one primary-key {@code IN} query on the aggregate table. The stats cache is keyed by
+     * version, which a batch does not read, so it is not consulted. Movies without ratings map to an entry with
+     * no average and zero ratings instead of failing the batch.
+     */
+    public Map<UUID, MovieRatingStatsResponse> getMovieRatingStats(Collection<UUID> movieIds) {
+        if (movieIds.size() > MAX_STATS_BATCH_SIZE) {
+            throw new InvalidRequestException("Stats batch must not exceed %d movie ids".formatted(MAX_STATS_BATCH_SIZE));
+        }
+        if (movieIds.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidRequestException("Movie ids must not be null");
+        }
+
+        Set<UUID> distinctMovieIds = new LinkedHashSet<>(movieIds);
+        Map<UUID, MovieRatingStatsResponse> foundStats = new HashMap<>();
+        if (ratingReadIndex.isServing()) {
+            distinctMovieIds.forEach(movieId -> ratingReadIndex.movieTotals(movieId)
+                    .ifPresent(totals -> foundStats.put(movieId, stats(totals.count(), totals.sum()))));
+        } else if (!distinctMovieIds.isEmpty()) {
+            movieRatingAggregateRepository.findAllById(distinctMovieIds).stream()
+                    .filter(aggregate -> aggregate.getRatingsCount() > 0)
+                    .forEach(aggregate -> foundStats.put(aggregate.getMovieId(), stats(aggregate.getRatingsCount(), aggregate.getRatingsSum())));
+        }
 
-        Double average = sum / ratings.size();
-        log.info("Calculated average rating {} for movie {} based on {} ratings", average, movieId, ratings.size());
-        return average;
+        Map<UUID, MovieRatingStatsResponse> statsByMovie = new LinkedHashMap<>();
+        for (UUID movieId : distinctMovieIds) {
+            statsByMovie.put(movieId, foundStats.getOrDefault(movieId, DtoMapper.from(null, 0)));
+        }
+
+        log.info("Retrieved stats for {} movies ({} rated)", statsByMovie.size(), foundStats.size());
+        return statsByMovie;
     }
 
+    /**
+     * Cached per movie through {@link RatingCacheInvalidator#getOrLoad}, which loads without holding a cache lock
+     * and drops a value that raced with a write's eviction. Misses read from the primary.
+     */
+    public Double getAverageRatingForAMovie(UUID movieId) {
+        return ratingCacheInvalidator.getOrLoad(CacheConfig.MOVIE_AVERAGE_RATINGS, movieId, Double.class, () -> {
+            MovieRatingAggregate aggregate = ReadWriteRoutingDataSource.readFromPrimary(() -> findMovieAggregate(movieId));
+
+            Double average = (double) aggregate.getRatingsSum() / aggregate.getRatingsCount();
+            log.info("Calculated average rating {} for movie {} based on {} ratings", average, movieId, aggregate.getRatingsCount());
+            return average;
+        });
+    }
+
+    /**
+     * Cached like {@link #getAverageRatingForAMovie}.
+     */
     public Integer getAllRatingsForAMovieCount(UUID movieId) {
-        List<Rating> ratings = ratingRepository.findAllByMovieId(movieId);
+        return ratingCacheInvalidator.getOrLoad(CacheConfig.MOVIE_RATING_COUNTS, movieId, Integer.class, () -> {
+            MovieRatingAggregate aggregate = ReadWriteRoutingDataSource.readFromPrimary(() -> findMovieAggregate(movieId));
+
+            Integer count = Math.toIntExact(aggregate.getRatingsCount());
+            log.info("Found {} ratings for movie {}", count, movieId);
+            return count;
+        });
+    }
+
+    /**
+     * Derives the distribution, median and percentiles from the movie's ten histogram buckets.
+     * Percentiles use the nearest-rank method; the median averages the two middle ratings for an even count.
+     */
+    @Transactional(readOnly = true)
+    public MovieRatingHistogramResponse getMovieRatingHistogram(UUID movieId) {
+        MovieRatingAggregate aggregate = findMovieAggregate(movieId);
+        long[] histogram = aggregate.getHistogram();
+        long total = Arrays.stream(histogram).sum();
 
-        if (ratings.isEmpty()) {
-            throw new NotFoundException("No ratings found for movie with id [%s]".formatted(movieId));
+        if (total == 0) {
+            throw notFound("movie", "No ratings found for movie with id [%s]".formatted(movieId));
         }
 
-        Integer count = ratings.size();
-        log.info("Found {} ratings for movie {}", count, movieId);
-        return count;
+        Map<Integer, Long> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < histogram.length; i++) {
+            distribution.put(i + Rating.MIN_RATING, histogram[i]);
+        }
+        Map<String, Integer> percentiles = new LinkedHashMap<>();
+        for (int percentile : PERCENTILES) {
+            percentiles.put("p" + percentile, ratingAtRank(histogram, (total * percentile + 99) / 100));
+        }
+        double median = (ratingAtRank(histogram, (total + 1) / 2) + ratingAtRank(histogram, total / 2 + 1)) / 2.0;
+
+        log.info("Retrieved rating histogram for movie {} based on {} ratings", movieId, total);
+        return MovieRatingHistogramResponse.builder()
+                .totalRatings(Math.toIntExact(total))
+                .distribution(distribution)
+                .median(median)
+                .percentiles(percentiles)
+                .build();
     }
 
+    /**
+     * Ranks movies by their Bayesian average from the in-memory {@link MovieLeaderboard}, without a database query.
+     */
+    public List<TopMovieResponse> getTopMovies(int limit, int minVotes) {
+        if (limit < 1 || limit > MAX_TOP_MOVIES_LIMIT) {
+            throw new InvalidRequestException("Limit must be between 1 and %d".formatted(MAX_TOP_MOVIES_LIMIT));
+        }
+        if (minVotes < 0) {
+            throw new InvalidRequestException("Minimum votes must not be negative");
+        }
+
+        List<MovieLeaderboard.Entry> entries = movieLeaderboard.top(limit, minVotes);
+        List<TopMovieResponse> topMovies = new ArrayList<>(entries.size());
+        for (MovieLeaderboard.Entry entry : entries) {
+            topMovies.add(TopMovieResponse.builder()
+                    .rank(topMovies.size() + 1)
+                    .movieId(entry.movieId())
+                    .score(entry.score())
+                    .averageRating(entry.averageRating())
+                    .totalRatings(Math.toIntExact(entry.count()))
+                    .build());
+        }
+
+        log.info("Retrieved top {} movies with at least {} ratings", topMovies.size(), minVotes);
+        return topMovies;
+    }
+
+    public List<TrendingMovieResponse> getTrendingMovies(String window, int limit) {
+        TrendingWindow trendingWindow = parseTrendingWindow(window);
+        if (limit < 1 || limit > MAX_TOP_MOVIES_LIMIT) {
+            throw new InvalidRequestException("Limit must be between 1 and %d".formatted(MAX_TOP_MOVIES_LIMIT));
+        }
+
+        List<TrendingMovies.Entry> entries = trendingMovies.top(trendingWindow, limit);
+        List<TrendingMovieResponse> trendingMovieResponses = new ArrayList<>(entries.size());
+        for (TrendingMovies.Entry entry : entries) {
+            trendingMovieResponses.add(TrendingMovieResponse.builder()
+                    .rank(trendingMovieResponses.size() + 1)
+                    .movieId(entry.movieId())
+                    .ratingsCount(Math.toIntExact(entry.count()))
+                    .averageRating(entry.averageRating())
+                    .build());
+        }
+
+        log.info("Retrieved {} trending movies for the last {}", trendingMovieResponses.size(), trendingWindow);
+        return trendingMovieResponses;
+    }
+
+    private static TrendingWindow parseTrendingWindow(String window) {
+        try {
+            return TrendingWindow.valueOf(window.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Window must be one of hour, day, week");
+        }
+    }
+
+    /**
+     * Once committed, the leaderboard, the read index and the stats caches are refreshed for the movie through
+     * {@link MovieAggregatesRecomputedEvent}. Answers from the recomputed aggregate, since those have not been
+     * refreshed yet. A movie left without ratings is still written and then answered with 404.
+     */
+    @Transactional(noRollbackFor = NotFoundException.class)
+    public MovieRatingStatsResponse recomputeMovieAggregate(UUID movieId) {
+        MovieRatingDelta totals = new MovieRatingDelta();
+        ratingRepository.countRatingValuesForMovie(movieId)
+                .forEach(valueCount -> totals.add(valueCount.getRating(), valueCount.getRatingsCount()));
+        MovieRatingAggregate aggregate = movieRatingAggregateRepository.findById(movieId)
+                .orElseGet(() -> MovieRatingAggregate.builder().movieId(movieId).build());
+
+        overwrite(aggregate, totals);
+        movieRatingAggregateRepository.save(aggregate);
+        log.info("Recomputed rating aggregate for movie {} from {} ratings", movieId, aggregate.getRatingsCount());
+        eventPublisher.publishEvent(new MovieAggregatesRecomputedEvent(movieId));
+
+        if (aggregate.getRatingsCount() == 0) {
+            throw notFound("movie", "No ratings found for movie with id [%s]".formatted(movieId));
+        }
+        return stats(aggregate.getRatingsCount(), aggregate.getRatingsSum());
+    }
+
+    /**
+     * Once committed, the leaderboard, the read index and the stats caches are refreshed through
+     * {@link MovieAggregatesRecomputedEvent}.
+     */
+    @Transactional
+    public void recomputeAllMovieAggregates() {
+        Map<UUID, MovieRatingDelta> totalsByMovie = new HashMap<>();
+        for (MovieRatingValueCount valueCount : ratingRepository.countRatingValuesForAllMovies()) {
+            totalsByMovie.computeIfAbsent(valueCount.getMovieId(), movieId -> new MovieRatingDelta())
+                    .add(valueCount.getRating(), valueCount.getRatingsCount());
+        }
+        Map<UUID, MovieRatingAggregate> aggregatesByMovie = movieRatingAggregateRepository.findAll().stream()
+                .collect(Collectors.toMap(MovieRatingAggregate::getMovieId, Function.identity()));
+
+        aggregatesByMovie.forEach((movieId, aggregate) -> {
+            if (!totalsByMovie.containsKey(movieId)) {
+                overwrite(aggregate, new MovieRatingDelta());
+            }
+        });
+        totalsByMovie.forEach((movieId, totals) -> overwrite(aggregatesByMovie.computeIfAbsent(movieId,
+                id -> MovieRatingAggregate.builder().movieId(id).build()), totals));
+
+        movieRatingAggregateRepository.saveAll(aggregatesByMovie.values());
+        log.info("Recomputed rating aggregates for {} movies", totalsByMovie.size());
+        eventPublisher.publishEvent(new MovieAggregatesRecomputedEvent(null));
+    }
+
+    /**
+     * Counts the user's ratings with one {@code count} query. Not cached: conditional reads go through
+     * {@link #getAllRatedMoviesCountByUser(UUID, long)}.
+     */
+    @Transactional(readOnly = true)
     public Integer getAllRatedMoviesCountByUser(UUID userId) {
-        List<Rating> ratings = ratingRepository.findAllByUserId(userId);
+        return countRatedMovies(userId, ratingRepository.countByUserId(userId));
+    }
+
+    /**
+     * The user's rating count as of {@code version}, from {@link #findUserVersion}, cached under the user id and
+     * that version like {@link #getMovieRatingStats(UUID, long)}, and counted on the primary on a miss.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.USER_STATS)
+    public Integer getAllRatedMoviesCountByUser(UUID userId, long version) {
+        return countRatedMovies(userId, ReadWriteRoutingDataSource.readFromPrimary(() -> ratingRepository.countByUserId(userId)));
+    }
 
-        if (ratings.isEmpty()) {
-            throw new NotFoundException("No movies rated by user with id [%s]".formatted(userId));
+    /**
+     * Answered by {@link RatingReadIndex} while it is serving; like {@link #getRating} not transactional itself.
+     * Not cached: conditional reads go through {@link #getLatestRatingsByUserId(UUID, long)}.
+     */
+    public List<RatingResponse> getLatestRatingsByUserId(UUID userId) {
+        List<RatingResponse> responses = ratingReadIndex.isServing()
+                ? ratingReadIndex.latest(userId, LATEST_RATINGS_LIMIT)
+                : ratingRepository.findLatestResponsesByUserId(userId, Limit.of(LATEST_RATINGS_LIMIT));
+        return latestRatings(userId, responses);
+    }
+
+    /**
+     * The user's latest ratings as of {@code version}, cached under the user id and that version like
+     * {@link #getMovieRatingStats(UUID, long)}, and read from the primary rather than the {@link RatingReadIndex}
+     * on a miss.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.USER_LATEST_RATINGS)
+    public List<RatingResponse> getLatestRatingsByUserId(UUID userId, long version) {
+        return latestRatings(userId, ReadWriteRoutingDataSource.readFromPrimary(
+                () -> ratingRepository.findLatestResponsesByUserId(userId, Limit.of(LATEST_RATINGS_LIMIT))));
+    }
+
+    private Integer countRatedMovies(UUID userId, long ratingsCount) {
+        if (ratingsCount == 0) {
+            throw notFound("user", "No movies rated by user with id [%s]".formatted(userId));
         }
 
-        Integer count = ratings.size();
+        Integer count = Math.toIntExact(ratingsCount);
         log.info("User {} has rated {} movies", userId, count);
         return count;
     }
 
-    public List<RatingResponse> getLatestRatingsByUserId(UUID userId) {
-        List<Rating> latestRatings = ratingRepository.findAllByUserIdOrderByUpdatedOnDesc(userId);
+    private List<RatingResponse> latestRatings(UUID userId, List<RatingResponse> responses) {
+        if (responses.isEmpty()) {
+            throw notFound("user", "Latest Ratings not found for user with id [%s]".formatted(userId));
+        }
+
+        log.info("Retrieved {} latest ratings for user {}", responses.size(), userId);
+        return responses;
+    }
+
+    /**
+     * Returns one page of the user's ratings, newest first. The cursor has the form {@code <updatedOn>,<id>}
+     * and points at the last rating of the previous page, so every page is a single index range scan
+     * on {@code (user_id, updated_on)} regardless of how deep the client has paged.
+     */
+    @Transactional(readOnly = true)
+    public RatingHistoryResponse getRatingHistory(UUID userId, String after, int size) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new InvalidRequestException("Page size must be between 1 and %d".formatted(MAX_HISTORY_PAGE_SIZE));
+        }
+
+        Limit limit = Limit.of(size + 1);
+        List<RatingHistoryRow> ratings;
+        if (after == null || after.isBlank()) {
+            ratings = ratingRepository.findHistoryByUserId(userId, limit);
+        } else {
+            String[] cursor = after.split(",", 2);
+            ratings = ratingRepository.findHistoryByUserIdAfterCursor(userId, parseCursorUpdatedOn(cursor, after), parseCursorId(cursor, after), limit);
+        }
+
+        boolean hasNextPage = ratings.size() > size;
+        List<RatingHistoryRow> page = hasNextPage ? ratings.subList(0, size) : ratings;
+        String nextCursor = null;
+        if (hasNextPage) {
+            RatingHistoryRow last = page.get(page.size() - 1);
+            nextCursor = "%s,%s".formatted(last.updatedOn(), last.id());
+        }
+
+        log.info("Retrieved {} history ratings for user {} after cursor [{}]", page.size(), userId, after);
+        return RatingHistoryResponse.builder()
+                .ratings(page.stream().map(DtoMapper::from).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
 
-        if (latestRatings.isEmpty()) {
-            throw new NotFoundException("Latest Ratings not found for user with id [%s]".formatted(userId));
+    private NotFoundException ratingNotFound(UUID userId, UUID movieId) {
+        return notFound("rating", "Rating with user id [%s] and movie id [%s] not found".formatted(userId, movieId));
+    }
+
+    private NotFoundException notFound(String lookup, String message) {
+        meterRegistry.counter("ratings.not.found", "lookup", lookup).increment();
+        return new NotFoundException(message);
+    }
+
+    private static Counter upsertCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ratings.upserts")
+                .description("Rating upserts by outcome, single and batch")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void publishRatingChanged(UUID userId, UUID movieId, Integer previousRating, Integer rating) {
+        eventPublisher.publishEvent(new RatingChangedEvent(userId, movieId, previousRating, rating, LocalDateTime.now()));
+    }
+
+    private static MovieRatingStatsResponse stats(long ratingsCount, long ratingsSum) {
+        return DtoMapper.from((double) ratingsSum / ratingsCount, Math.toIntExact(ratingsCount));
+    }
+
+    private MovieRatingAggregate findMovieAggregate(UUID movieId) {
+        return movieRatingAggregateRepository.findById(movieId)
+                .filter(aggregate -> aggregate.getRatingsCount() > 0)
+                .orElseThrow(() -> notFound("movie", "No ratings found for movie with id [%s]".formatted(movieId)));
+    }
+
+    private static LocalDateTime parseCursorUpdatedOn(String[] cursor, String after) {
+        try {
+            return LocalDateTime.parse(cursor[0]);
+        } catch (DateTimeParseException e) {
+            throw new InvalidRequestException("Invalid history cursor [%s]".formatted(after));
         }
+    }
+
+    private static UUID parseCursorId(String[] cursor, String after) {
+        if (cursor.length != 2) {
+            throw new InvalidRequestException("Invalid history cursor [%s]".formatted(after));
+        }
+
+        try {
+            return UUID.fromString(cursor[1]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid history cursor [%s]".formatted(after));
+        }
+    }
+
+    private static void overwrite(MovieRatingAggregate aggregate, MovieRatingDelta totals) {
+        aggregate.setRatingsCount(totals.getCount());
+        aggregate.setRatingsSum(totals.getSum());
+        aggregate.setHistogram(totals.getHistogram());
+    }
+
+    private static int ratingAtRank(long[] histogram, long rank) {
+        long cumulative = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            cumulative += histogram[i];
+            if (cumulative >= rank) {
+                return i + Rating.MIN_RATING;
+            }
+        }
+        return Rating.MAX_RATING;
+    }
+
+    static String validate(RatingRequest ratingRequest) {
+        if (ratingRequest.getUserId() == null || ratingRequest.getMovieId() == null) {
+            return "User id and movie id are required";
+        }
+        if (ratingRequest.getRating() < Rating.MIN_RATING || ratingRequest.getRating() > Rating.MAX_RATING) {
+            return "Rating must be between %d and %d".formatted(Rating.MIN_RATING, Rating.MAX_RATING);
+        }
+        return null;
+    }
+
+    private static RatingBatchItemResponse batchItem(int index, RatingRequest ratingRequest, RatingBatchItemStatus status, String message) {
+        return RatingBatchItemResponse.builder()
+                .index(index)
+                .userId(ratingRequest.getUserId())
+                .movieId(ratingRequest.getMovieId())
+                .rating(ratingRequest.getRating())
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private static int countByStatus(List<RatingBatchItemResponse> results, RatingBatchItemStatus status) {
+        return (int) results.stream().filter(result -> result.getStatus() == status).count();
+    }
 
-        List<RatingResponse> responses = latestRatings.stream().map(DtoMapper::from).toList();
-        List<RatingResponse> limitedResponses = responses.stream().limit(20).toList();
-        log.info("Retrieved {} latest ratings for user {} (limited from {})", 
-            limitedResponses.size(), userId, responses.size());
-        return limitedResponses;
+    private record RatingKey(UUID userId, UUID movieId) {
     }
 }
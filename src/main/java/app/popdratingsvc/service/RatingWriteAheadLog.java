@@ -0,0 +1,448 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.config.WriteAheadLogProperties;
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.exception.ServiceOverloadedException;
+import app.popdratingsvc.web.dto.RatingBatchItemResponse;
+import app.popdratingsvc.web.dto.RatingBatchItemStatus;
+import app.popdratingsvc.web.dto.RatingRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only log backing the accepted-write mode of {@code POST /ratings}.
+ *
+ * <p>Callers of {@link #append} hand their request to a single writer thread and block until it is durable.
+ * The writer drains every request queued in the meantime, writes them with one {@code write} and makes them
+ * durable with one {@code fsync}, so concurrent submissions share the cost of a disk flush (group commit).
+ *
+ * <p>An applier thread drains durable entries into the database through {@link RatingService#upsertAll},
+ * keeping only the last write per user/movie pair of each batch, and then records the last applied sequence
+ * in a checkpoint file. Segments that lie entirely below the checkpoint are deleted. On startup every entry
+ * above the checkpoint is replayed before new writes are accepted, so no acknowledged write is lost.
+ * A crash between commit and checkpoint replays some entries twice, which the upsert absorbs.
+ *
+ * <p>A batch failing for a reason a retry cannot fix ({@link InvalidRequestException}) is applied entry by
+ * entry, and every entry the database still rejects is moved to a dead-letter file next to the segments and
+ * counted, so one bad entry never blocks the entries behind it. Any other failure retries the batch.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ratings.write-ahead-log.enabled", havingValue = "true")
+public class RatingWriteAheadLog implements SmartLifecycle {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letters";
+    private static final int MAX_WRITE_BATCH = 1024;
+
+    private final WriteAheadLogProperties properties;
+    private final RatingService ratingService;
+    private final Counter deadLetters;
+
+    private final BlockingQueue<PendingAppend> appendQueue = new LinkedBlockingQueue<>();
+    private final Deque<RatingLogEntry> unapplied = new ConcurrentLinkedDeque<>();
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong lastAppendedSequence = new AtomicLong();
+    private final AtomicLong lastAppliedSequence = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writer;
+    private ScheduledExecutorService applier;
+    private FileChannel segment;
+    private long nextSequence;
+
+    public RatingWriteAheadLog(WriteAheadLogProperties properties, RatingService ratingService, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.ratingService = ratingService;
+
+        Gauge.builder("ratings.wal.applier.lag", () -> lastAppendedSequence.get() - lastAppliedSequence.get())
+                .description("Accepted rating writes not yet applied to the database")
+                .baseUnit("entries")
+                .register(meterRegistry);
+        Gauge.builder("ratings.wal.applier.lag.seconds", this::oldestUnappliedAgeSeconds)
+                .description("Age of the oldest accepted rating write not yet applied to the database")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("ratings.wal.dead.letters")
+                .description("Accepted rating writes the database rejected, moved to the dead-letter file")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Validates the request and returns once it is durably stored in the log.
+     * <p>
+     * Gives up after {@code append-timeout} with a {@link ServiceOverloadedException}; the entry stays queued
+     * and may still be logged and applied, which a retry of the same rating absorbs.
+     */
+    public void append(RatingRequest ratingRequest) {
+        String validationError = RatingService.validate(ratingRequest);
+        if (validationError != null) {
+            throw new InvalidRequestException(validationError);
+        }
+        if (!running) {
+            throw new IllegalStateException("Rating write-ahead log is not running");
+        }
+
+        PendingAppend pendingAppend = new PendingAppend(ratingRequest, Instant.now(), new CompletableFuture<>());
+        appendQueue.add(pendingAppend);
+        try {
+            pendingAppend.durable().get(properties.appendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceOverloadedException("Rating write-ahead log did not confirm the write within %s"
+                    .formatted(properties.appendTimeout()), properties.appendTimeout());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not write rating to the write-ahead log", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing rating to the write-ahead log", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            Files.createDirectories(properties.directory());
+            replay();
+            openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open rating write-ahead log in " + properties.directory(), e);
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "rating-wal-writer");
+        writer.start();
+        applier = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "rating-wal-applier"));
+        long intervalMillis = properties.applyInterval().toMillis();
+        applier.scheduleWithFixedDelay(this::applyPending, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Rating write-ahead log started in {} at sequence {} with {} entries to replay",
+            properties.directory(), nextSequence, unapplied.size());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join();
+            applier.shutdown();
+            applier.awaitTermination(Duration.ofSeconds(30).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        appendQueue.forEach(pendingAppend -> pendingAppend.durable()
+                .completeExceptionally(new IllegalStateException("Rating write-ahead log is shutting down")));
+        appendQueue.clear();
+        applyPending();
+        closeSegment();
+        log.info("Rating write-ahead log stopped with {} entries left to replay", unapplied.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the embedded web server (one phase step below graceful shutdown),
+     * so no request reaches a log that is not open.
+     */
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>();
+        while (running || !appendQueue.isEmpty()) {
+            try {
+                PendingAppend first = appendQueue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                appendQueue.drainTo(batch, MAX_WRITE_BATCH - 1);
+                writeDurably(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                // Keep the only writer alive: a dead writer would leave every later append waiting for nothing.
+                log.error("Unexpected failure writing {} ratings to the write-ahead log", batch.size(), e);
+                batch.forEach(pendingAppend -> pendingAppend.durable().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeDurably(List<PendingAppend> batch) {
+        List<RatingLogEntry> entries = new ArrayList<>(batch.size());
+        StringBuilder lines = new StringBuilder();
+        long sequence = nextSequence;
+        for (PendingAppend pendingAppend : batch) {
+            RatingRequest request = pendingAppend.request();
+            RatingLogEntry entry = new RatingLogEntry(++sequence, request.getUserId(), request.getMovieId(),
+                    request.getRating(), pendingAppend.acceptedOn());
+            entries.add(entry);
+            lines.append(entry.encode());
+        }
+
+        long writeStart = -1;
+        try {
+            if (!segment.isOpen() || segment.size() >= properties.segmentSize().toBytes()) {
+                closeSegment();
+                openSegment();
+            }
+            writeStart = segment.position();
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+            segment.force(false);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write {} ratings to the write-ahead log", batch.size(), e);
+            discardFailedWrite(writeStart);
+            batch.forEach(pendingAppend -> pendingAppend.durable().completeExceptionally(e));
+            return;
+        }
+
+        nextSequence = sequence;
+        unapplied.addAll(entries);
+        lastAppendedSequence.set(sequence);
+        batch.forEach(pendingAppend -> pendingAppend.durable().complete(null));
+    }
+
+    /**
+     * Cuts the segment back to where the failed write started, so the next batch does not continue a torn
+     * line and lose its first entry on replay. When that is not possible the segment is closed and the next
+     * write rolls over to a fresh one; a torn tail of a closed segment is skipped on replay.
+     */
+    private void discardFailedWrite(long writeStart) {
+        if (writeStart < 0 || !segment.isOpen()) {
+            return;
+        }
+        try {
+            segment.truncate(writeStart);
+            segment.position(writeStart);
+        } catch (IOException e) {
+            log.warn("Failed to truncate write-ahead log segment after a failed write, rolling over", e);
+            closeSegment();
+        }
+    }
+
+    private void applyPending() {
+        while (!unapplied.isEmpty()) {
+            List<RatingLogEntry> batch = unapplied.stream().limit(properties.applyBatchSize()).toList();
+            Map<RatingKey, RatingLogEntry> lastWrites = new LinkedHashMap<>();
+            batch.forEach(entry -> lastWrites.put(new RatingKey(entry.userId(), entry.movieId()), entry));
+
+            try {
+                apply(new ArrayList<>(lastWrites.values()));
+            } catch (InvalidRequestException e) {
+                log.warn("Logged batch of {} ratings was rejected, applying its entries one by one", batch.size(), e);
+                if (!applyOneByOne(lastWrites.values())) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply {} logged ratings, retrying in {}", batch.size(), properties.applyInterval(), e);
+                return;
+            }
+
+            batch.forEach(entry -> unapplied.removeFirst());
+            long appliedSequence = batch.get(batch.size() - 1).sequence();
+            lastAppliedSequence.set(appliedSequence);
+            checkpoint(appliedSequence);
+            log.debug("Applied {} logged ratings as {} writes up to sequence {}", batch.size(), lastWrites.size(), appliedSequence);
+        }
+    }
+
+    /**
+     * Applies the entries in one transaction and moves every entry rejected as an item of the batch to the
+     * dead-letter file.
+     */
+    private void apply(List<RatingLogEntry> entries) {
+        List<RatingBatchItemResponse> results = ratingService.upsertAll(entries.stream().map(RatingLogEntry::toRequest).toList())
+                .getResults();
+        for (RatingBatchItemResponse result : results) {
+            if (result.getStatus() == RatingBatchItemStatus.REJECTED) {
+                deadLetter(entries.get(result.getIndex()), result.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns {@code false} when an entry failed for a reason worth retrying, leaving the batch at the head of
+     * the log; entries applied before it are applied again by the retry, which the upsert absorbs.
+     */
+    private boolean applyOneByOne(Iterable<RatingLogEntry> entries) {
+        for (RatingLogEntry entry : entries) {
+            try {
+                applyOrDeadLetter(entry);
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply logged rating {}, retrying in {}", entry.sequence(), properties.applyInterval(), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void applyOrDeadLetter(RatingLogEntry entry) {
+        try {
+            apply(List.of(entry));
+        } catch (InvalidRequestException e) {
+            deadLetter(entry, e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the entry in its log format to the dead-letter file and syncs it. Throws {@link UncheckedIOException}
+     * when it cannot, so the entry stays in the log rather than being dropped.
+     */
+    private void deadLetter(RatingLogEntry entry, String reason) {
+        Path deadLetterFile = properties.directory().resolve(DEAD_LETTER_FILE);
+        try (FileChannel channel = FileChannel.open(deadLetterFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(entry.encode().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not move logged rating %d to %s".formatted(entry.sequence(), deadLetterFile), e);
+        }
+        deadLetters.increment();
+        log.error("Moved logged rating {} to {}, the database rejected it: {}", entry.sequence(), deadLetterFile, reason);
+    }
+
+    private void replay() throws IOException {
+        long checkpoint = readCheckpoint();
+        long lastSequence = checkpoint;
+
+        List<Path> segmentFiles;
+        try (Stream<Path> files = Files.list(properties.directory())) {
+            segmentFiles = files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList();
+        }
+        for (Path segmentFile : segmentFiles) {
+            segments.put(firstSequence(segmentFile), segmentFile);
+        }
+
+        for (Path segmentFile : segments.values()) {
+            for (String line : Files.readAllLines(segmentFile, StandardCharsets.UTF_8)) {
+                RatingLogEntry entry = RatingLogEntry.decode(line);
+                if (entry == null) {
+                    log.warn("Skipping corrupt write-ahead log line in {}", segmentFile);
+                } else if (entry.sequence() > checkpoint) {
+                    unapplied.add(entry);
+                    lastSequence = Math.max(lastSequence, entry.sequence());
+                }
+            }
+        }
+
+        nextSequence = lastSequence;
+        lastAppendedSequence.set(lastSequence);
+        lastAppliedSequence.set(checkpoint);
+    }
+
+    private void checkpoint(long appliedSequence) {
+        Path checkpointFile = properties.directory().resolve(CHECKPOINT_FILE);
+        Path temporaryFile = properties.directory().resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.writeString(temporaryFile, Long.toString(appliedSequence), StandardCharsets.UTF_8);
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write write-ahead log checkpoint {}, entries up to it will be replayed again", appliedSequence, e);
+            return;
+        }
+
+        // A segment is fully applied once the segment after it starts at or below the checkpoint + 1.
+        // The newest segment is still being written and is never deleted.
+        for (Map.Entry<Long, Path> entry : segments.headMap(segments.lastKey()).entrySet()) {
+            Long nextFirstSequence = segments.higherKey(entry.getKey());
+            if (nextFirstSequence != null && nextFirstSequence - 1 <= appliedSequence) {
+                try {
+                    Files.deleteIfExists(entry.getValue());
+                    segments.remove(entry.getKey());
+                } catch (IOException e) {
+                    log.warn("Failed to delete applied write-ahead log segment {}", entry.getValue(), e);
+                }
+            }
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path checkpointFile = properties.directory().resolve(CHECKPOINT_FILE);
+        return Files.exists(checkpointFile) ? Long.parseLong(Files.readString(checkpointFile, StandardCharsets.UTF_8).trim()) : 0;
+    }
+
+    private void openSegment() throws IOException {
+        long firstSequence = nextSequence + 1;
+        Path segmentFile = properties.directory().resolve("%020d%s".formatted(firstSequence, SEGMENT_SUFFIX));
+        // A segment with this name can only exist if no entry was ever completed in it, so any bytes
+        // it holds are a torn first write and are discarded.
+        segment = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segments.put(firstSequence, segmentFile);
+    }
+
+    private void closeSegment() {
+        try {
+            if (segment != null) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close write-ahead log segment", e);
+        }
+    }
+
+    private double oldestUnappliedAgeSeconds() {
+        RatingLogEntry oldest = unapplied.peekFirst();
+        return oldest == null ? 0 : Duration.between(oldest.acceptedOn(), Instant.now()).toMillis() / 1000.0;
+    }
+
+    private static long firstSequence(Path segmentFile) {
+        String fileName = segmentFile.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private record PendingAppend(RatingRequest request, Instant acceptedOn, CompletableFuture<Void> durable) {
+    }
+
+    private record RatingKey(UUID userId, UUID movieId) {
+    }
+}
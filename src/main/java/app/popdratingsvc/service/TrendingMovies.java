@@ -0,0 +1,206 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.event.RatingChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory rating activity of recently rated movies, kept as one ring buffer of time buckets per movie and
+ * {@link TrendingWindow}. Every committed create or update counts as one rating of its new value; deletes are
+ * not activity and are ignored.
+ *
+ * <p>Buckets that fall out of a window are cleared lazily when the movie is next written or read, so nothing
+ * ever scans for expired data. Only the {@code ratings.trending.max-movies} most recently rated movies are
+ * tracked; the least recently rated one is dropped when a new movie arrives, and movies without activity in
+ * the longest window are dropped while ranking.
+ */
+@Component
+public class TrendingMovies {
+
+    private static final TrendingWindow[] WINDOWS = TrendingWindow.values();
+
+    private static final Comparator<Entry> TRENDING_ORDER = Comparator.comparingLong(Entry::count).reversed()
+            .thenComparing(Comparator.comparingDouble(Entry::averageRating).reversed())
+            .thenComparing(Entry::movieId);
+
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<UUID, MovieActivity> activityByMovie;
+
+    @Autowired
+    public TrendingMovies(@Value("${ratings.trending.max-movies:10000}") int maxMovies) {
+        this(maxMovies, Clock.systemDefaultZone());
+    }
+
+    TrendingMovies(int maxMovies, Clock clock) {
+        this.clock = clock;
+        this.activityByMovie = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, MovieActivity> eldest) {
+                return size() > maxMovies;
+            }
+        };
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(RatingChangedEvent event) {
+        if (event.rating() == null) {
+            return;
+        }
+        record(event.movieId(), event.rating(), event.occurredOn().atZone(clock.getZone()).toInstant());
+    }
+
+    void record(UUID movieId, int rating, Instant ratedOn) {
+        long epochMillis = ratedOn.toEpochMilli();
+
+        lock.lock();
+        try {
+            activityByMovie.computeIfAbsent(movieId, id -> new MovieActivity()).add(epochMillis, rating);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the {@code limit} movies with the most ratings in {@code window}, ties broken by the higher
+     * average. Linear in the number of tracked movies.
+     */
+    public List<Entry> top(TrendingWindow window, int limit) {
+        long nowMillis = clock.millis();
+        List<Entry> active = new ArrayList<>();
+
+        lock.lock();
+        try {
+            Iterator<Map.Entry<UUID, MovieActivity>> iterator = activityByMovie.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<UUID, MovieActivity> movie = iterator.next();
+                MovieActivity activity = movie.getValue();
+                activity.advance(nowMillis);
+                if (activity.isEmpty()) {
+                    iterator.remove();
+                    continue;
+                }
+                Ring ring = activity.rings[window.ordinal()];
+                if (ring.count > 0) {
+                    active.add(new Entry(movie.getKey(), ring.count, ring.sum));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        active.sort(TRENDING_ORDER);
+        return active.size() > limit ? List.copyOf(active.subList(0, limit)) : active;
+    }
+
+    public record Entry(UUID movieId, long count, long sum) {
+
+        public double averageRating() {
+            return (double) sum / count;
+        }
+    }
+
+    private static final class MovieActivity {
+
+        private final Ring[] rings = new Ring[WINDOWS.length];
+
+        private MovieActivity() {
+            for (TrendingWindow window : WINDOWS) {
+                rings[window.ordinal()] = new Ring(window);
+            }
+        }
+
+        private void add(long epochMillis, int rating) {
+            for (Ring ring : rings) {
+                ring.add(epochMillis, rating);
+            }
+        }
+
+        private void advance(long epochMillis) {
+            for (Ring ring : rings) {
+                ring.advance(ring.window.bucketOf(epochMillis));
+            }
+        }
+
+        private boolean isEmpty() {
+            for (Ring ring : rings) {
+                if (ring.count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Per-bucket counts and sums plus running totals of the whole window. {@code head} is the newest bucket;
+     * moving it forward subtracts and clears the slots it reuses, at most once per slot.
+     */
+    private static final class Ring {
+
+        private final TrendingWindow window;
+        private final int[] counts;
+        private final long[] sums;
+        private long head = Long.MIN_VALUE;
+        private long count;
+        private long sum;
+
+        private Ring(TrendingWindow window) {
+            this.window = window;
+            this.counts = new int[window.buckets()];
+            this.sums = new long[window.buckets()];
+        }
+
+        private void add(long epochMillis, int rating) {
+            long bucket = window.bucketOf(epochMillis);
+            advance(bucket);
+            if (bucket <= head - counts.length) {
+                return;
+            }
+            int slot = slot(bucket);
+            counts[slot]++;
+            sums[slot] += rating;
+            count++;
+            sum += rating;
+        }
+
+        private void advance(long bucket) {
+            if (bucket <= head) {
+                return;
+            }
+            if (head == Long.MIN_VALUE || bucket - head >= counts.length) {
+                Arrays.fill(counts, 0);
+                Arrays.fill(sums, 0);
+                count = 0;
+                sum = 0;
+            } else {
+                for (long expired = head + 1; expired <= bucket; expired++) {
+                    int slot = slot(expired);
+                    count -= counts[slot];
+                    sum -= sums[slot];
+                    counts[slot] = 0;
+                    sums[slot] = 0;
+                }
+            }
+            head = bucket;
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(bucket, (long) counts.length);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package app.popdratingsvc.service;
+
+import java.time.Duration;
+
+/**
+ * Sliding windows of the trending ranking. Each window is a ring of {@code buckets} slots of
+ * {@code bucketSize}, so it covers between {@code buckets - 1} and {@code buckets} bucket lengths of activity.
+ */
+public enum TrendingWindow {
+
+    HOUR(Duration.ofMinutes(5), 12),
+    DAY(Duration.ofHours(1), 24),
+    WEEK(Duration.ofHours(6), 28);
+
+    private final long bucketMillis;
+    private final int buckets;
+
+    TrendingWindow(Duration bucketSize, int buckets) {
+        this.bucketMillis = bucketSize.toMillis();
+        this.buckets = buckets;
+    }
+
+    long bucketOf(long epochMillis) {
+        return epochMillis / bucketMillis;
+    }
+
+    int buckets() {
+        return buckets;
+    }
+}
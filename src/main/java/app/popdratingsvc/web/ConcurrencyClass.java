@@ -0,0 +1,22 @@
+package app.popdratingsvc.web;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides how {@link ConcurrencyLimitInterceptor} classifies an endpoint. Without it, {@code GET} requests
+ * count against the read limit and everything else against the write limit.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyClass {
+
+    boolean write();
+
+    /**
+     * Bulk endpoints may only occupy {@code ratings.concurrency-limit.bulk-share} of their limit.
+     */
+    boolean bulk() default false;
+}
@@ -0,0 +1,92 @@
+package app.popdratingsvc.web;
+
+import app.popdratingsvc.config.GradientConcurrencyLimit;
+import app.popdratingsvc.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Sheds requests above the adaptive read and write limits with a {@link ServiceOverloadedException} before
+ * they reach the controller, so an overloaded database turns into fast {@code 503}s instead of a growing
+ * queue of threads waiting for connections.
+ *
+ * <p>Bulk endpoints only get {@code bulk-share} of their limit, which leaves the rest to single-item and stats
+ * requests. They are not sampled either: an export or import runs for as long as its data takes, and its
+ * latency would read as congestion and shrink the limit for everyone. Requests that continue asynchronously
+ * (long-polls, streams) give their permit back once the handler returns and are not sampled, since their
+ * duration says nothing about load.
+ */
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final GradientConcurrencyLimit readLimit;
+    private final GradientConcurrencyLimit writeLimit;
+    private final double bulkShare;
+    private final Duration retryAfter;
+    private final Counter[] rejections = new Counter[4];
+
+    public ConcurrencyLimitInterceptor(GradientConcurrencyLimit readLimit, GradientConcurrencyLimit writeLimit,
+                                       double bulkShare, Duration retryAfter, MeterRegistry meterRegistry) {
+        this.readLimit = readLimit;
+        this.writeLimit = writeLimit;
+        this.bulkShare = bulkShare;
+        this.retryAfter = retryAfter;
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = Counter.builder("ratings.concurrency.rejected")
+                    .description("Requests rejected by the adaptive concurrency limit")
+                    .tag("class", i < 2 ? "read" : "write")
+                    .tag("priority", i % 2 == 0 ? "normal" : "bulk")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        ConcurrencyClass concurrencyClass = handlerMethod.getMethodAnnotation(ConcurrencyClass.class);
+        boolean write = concurrencyClass != null ? concurrencyClass.write() : !HttpMethod.GET.matches(request.getMethod());
+        boolean bulk = concurrencyClass != null && concurrencyClass.bulk();
+        GradientConcurrencyLimit limit = write ? writeLimit : readLimit;
+        if (!limit.tryAcquire(bulk ? bulkShare : 1.0)) {
+            rejections[(write ? 2 : 0) + (bulk ? 1 : 0)].increment();
+            throw new ServiceOverloadedException("Too many concurrent %s requests; retry later".formatted(write ? "write" : "read"), retryAfter);
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(limit, bulk, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.limit().release();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            if (permit.bulk()) {
+                permit.limit().release();
+            } else {
+                permit.limit().release(System.nanoTime() - permit.startedAt());
+            }
+        }
+    }
+
+    private record Permit(GradientConcurrencyLimit limit, boolean bulk, long startedAt) {
+    }
+}
@@ -1,31 +1,77 @@
 package app.popdratingsvc.web;
 
 import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.service.MovieStatsBroadcaster;
+import app.popdratingsvc.service.RatingChangeFeed;
+import app.popdratingsvc.service.RatingExport;
+import app.popdratingsvc.service.RatingExportService;
+import app.popdratingsvc.service.RatingImportService;
 import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.service.RatingWriteAheadLog;
+import app.popdratingsvc.web.dto.MovieRatingHistogramResponse;
 import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import app.popdratingsvc.web.dto.RatingBatchResponse;
+import app.popdratingsvc.web.dto.RatingChangesResponse;
+import app.popdratingsvc.web.dto.RatingHistoryResponse;
+import app.popdratingsvc.web.dto.RatingImportResponse;
 import app.popdratingsvc.web.dto.RatingRequest;
 import app.popdratingsvc.web.dto.RatingResponse;
+import app.popdratingsvc.web.dto.TopMovieResponse;
+import app.popdratingsvc.web.dto.TrendingMovieResponse;
 import app.popdratingsvc.web.dto.UserRatingStatsResponse;
 import app.popdratingsvc.web.mapper.DtoMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1")
 public class RatingController {
 
     private final RatingService ratingService;
+    private final RatingExportService ratingExportService;
+    private final RatingImportService ratingImportService;
+    private final RatingChangeFeed ratingChangeFeed;
+    private final MovieStatsBroadcaster movieStatsBroadcaster;
+    private final Optional<RatingWriteAheadLog> ratingWriteAheadLog;
 
-    public RatingController(RatingService ratingService) {
+    public RatingController(RatingService ratingService, RatingExportService ratingExportService,
+                            RatingImportService ratingImportService, RatingChangeFeed ratingChangeFeed,
+                            MovieStatsBroadcaster movieStatsBroadcaster, Optional<RatingWriteAheadLog> ratingWriteAheadLog) {
         this.ratingService = ratingService;
+        this.ratingExportService = ratingExportService;
+        this.ratingImportService = ratingImportService;
+        this.ratingChangeFeed = ratingChangeFeed;
+        this.movieStatsBroadcaster = movieStatsBroadcaster;
+        this.ratingWriteAheadLog = ratingWriteAheadLog;
     }
 
+    /**
+     * With {@code ratings.write-ahead-log.enabled} the rating is only logged durably and applied in the
+     * background, so the response is {@code 202 Accepted} without a body.
+     */
     @PostMapping("/ratings")
     public ResponseEntity<RatingResponse> upsertRating(@RequestBody RatingRequest ratingRequest) {
+        if (ratingWriteAheadLog.isPresent()) {
+            ratingWriteAheadLog.get().append(ratingRequest);
+
+            return ResponseEntity.accepted().build();
+        }
+
         Rating rating = ratingService.upsert(ratingRequest);
 
         return ResponseEntity
@@ -33,13 +79,36 @@ public class RatingController {
                 .body(DtoMapper.from(rating));
     }
 
+    @ConcurrencyClass(write = true, bulk = true)
+    @PostMapping("/ratings/batch")
+    public ResponseEntity<RatingBatchResponse> upsertRatings(@RequestBody List<RatingRequest> ratingRequests) {
+        RatingBatchResponse ratingBatchResponse = ratingService.upsertAll(ratingRequests);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(ratingBatchResponse);
+    }
+
     @GetMapping("/ratings/{userId}/{movieId}")
     public ResponseEntity<RatingResponse> getRatingByUserAndMovie(@PathVariable UUID userId, @PathVariable UUID movieId) {
-        Rating rating = ratingService.findByUserIdAndMovieId(userId, movieId);
+        RatingResponse rating = ratingService.getRating(userId, movieId);
 
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(DtoMapper.from(rating));
+                .body(rating);
+    }
+
+    /**
+     * Sparse: movies the user has not rated are omitted rather than answered with {@code 404}.
+     */
+    @ConcurrencyClass(write = false)
+    @PostMapping("/ratings/{userId}/lookup")
+    public ResponseEntity<Map<UUID, RatingResponse>> lookupRatingsByUser(@PathVariable UUID userId, @RequestBody List<UUID> movieIds) {
+        Map<UUID, RatingResponse> ratings = ratingService.getRatings(userId, movieIds);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(ratings);
     }
 
     @DeleteMapping("/ratings/{userId}/{movieId}")
@@ -49,19 +118,148 @@ public class RatingController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Conditional on the movie's version: a matching {@code If-None-Match} is answered with {@code 304 Not
+     * Modified} before any stats are read, and the stats are cached under the same version.
+     */
     @GetMapping("/ratings/{movieId}/stats")
-    public ResponseEntity<MovieRatingStatsResponse> movieRatingStats(@PathVariable UUID movieId) {
-        Double averageRating = ratingService.getAverageRatingForAMovie(movieId);
-        Integer allRatingsCount = ratingService.getAllRatingsForAMovieCount(movieId);
+    public ResponseEntity<MovieRatingStatsResponse> movieRatingStats(@PathVariable UUID movieId, WebRequest webRequest) {
+        Optional<Long> version = ratingService.findMovieVersion(movieId);
+        if (isNotModified(webRequest, version)) {
+            return null;
+        }
+
+        MovieRatingStatsResponse movieRatingStats = version
+                .map(movieVersion -> ratingService.getMovieRatingStats(movieId, movieVersion))
+                .orElseGet(() -> ratingService.getMovieRatingStats(movieId));
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(movieRatingStats);
+    }
+
+    /**
+     * Server-sent events named {@code stats}, each carrying a {@code MovieRatingStatsResponse}: the current stats
+     * first, then one event per debounce window in which the movie's ratings changed.
+     */
+    @GetMapping(path = "/ratings/{movieId}/stats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter movieRatingStatsStream(@PathVariable UUID movieId) {
+        return movieStatsBroadcaster.subscribe(movieId);
+    }
+
+    @ConcurrencyClass(write = false)
+    @PostMapping("/ratings/stats:batch")
+    public ResponseEntity<Map<UUID, MovieRatingStatsResponse>> movieRatingStatsBatch(@RequestBody List<UUID> movieIds) {
+        Map<UUID, MovieRatingStatsResponse> movieRatingStats = ratingService.getMovieRatingStats(movieIds);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(movieRatingStats);
+    }
+
+    /**
+     * Rows are written to the servlet output stream while they are read from the database, so the response
+     * is chunked and has no content length.
+     */
+    @ConcurrencyClass(write = false, bulk = true)
+    @GetMapping("/ratings/export")
+    public void exportRatings(@RequestParam(defaultValue = "ndjson") String format,
+                              @RequestParam(required = false) String since,
+                              HttpServletResponse response) throws IOException {
+        RatingExport export = ratingExportService.prepareExport(format, since);
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(export.format().contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"ratings.%s\"".formatted(export.format().fileExtension()));
+        ratingExportService.writeExport(export, response.getOutputStream());
+    }
+
+    /**
+     * The request body is the raw CSV or NDJSON file and is parsed while it is uploaded. A failed import
+     * still answers {@code 200 OK} with {@code completed = false} and the checkpoint to resume from.
+     */
+    @ConcurrencyClass(write = true, bulk = true)
+    @PostMapping("/ratings/import")
+    public ResponseEntity<RatingImportResponse> importRatings(@RequestParam(defaultValue = "ndjson") String format,
+                                                              @RequestParam(defaultValue = "0") long resumeAfterLine,
+                                                              HttpServletRequest request) throws IOException {
+        RatingImportResponse ratingImportResponse = ratingImportService.importRatings(format, resumeAfterLine, request.getInputStream());
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(ratingImportResponse);
+    }
+
+    /**
+     * Changes after {@code cursor}, oldest first; pass the returned {@code nextCursor} on the next call. With
+     * {@code waitSeconds} a caught-up consumer is answered as soon as a new change commits instead of with an
+     * empty page.
+     */
+    @GetMapping("/ratings/changes")
+    public CompletableFuture<ResponseEntity<RatingChangesResponse>> ratingChanges(@RequestParam(defaultValue = "0") long cursor,
+                                                                                  @RequestParam(defaultValue = "100") int limit,
+                                                                                  @RequestParam(defaultValue = "0") int waitSeconds) {
+        return ratingChangeFeed.awaitChanges(cursor, limit, Duration.ofSeconds(waitSeconds))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/ratings/top")
+    public ResponseEntity<List<TopMovieResponse>> topMovies(@RequestParam(defaultValue = "10") int limit,
+                                                            @RequestParam(defaultValue = "1") int minVotes) {
+        List<TopMovieResponse> topMovies = ratingService.getTopMovies(limit, minVotes);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(topMovies);
+    }
+
+    @GetMapping("/ratings/trending")
+    public ResponseEntity<List<TrendingMovieResponse>> trendingMovies(@RequestParam(defaultValue = "day") String window,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        List<TrendingMovieResponse> trendingMovies = ratingService.getTrendingMovies(window, limit);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(trendingMovies);
+    }
+
+    @GetMapping("/ratings/{movieId}/histogram")
+    public ResponseEntity<MovieRatingHistogramResponse> movieRatingHistogram(@PathVariable UUID movieId) {
+        MovieRatingHistogramResponse movieRatingHistogram = ratingService.getMovieRatingHistogram(movieId);
 
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(DtoMapper.from(averageRating, allRatingsCount));
+                .body(movieRatingHistogram);
+    }
+
+    @PostMapping("/ratings/{movieId}/stats/recompute")
+    public ResponseEntity<MovieRatingStatsResponse> recomputeMovieRatingStats(@PathVariable UUID movieId) {
+        MovieRatingStatsResponse movieRatingStats = ratingService.recomputeMovieAggregate(movieId);
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(movieRatingStats);
+    }
+
+    @ConcurrencyClass(write = true, bulk = true)
+    @PostMapping("/ratings/stats/recompute")
+    public ResponseEntity<Void> recomputeAllMovieRatingStats() {
+        ratingService.recomputeAllMovieAggregates();
+
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/ratings/{userId}/user")
-    public ResponseEntity<UserRatingStatsResponse> userRatingStats(@PathVariable UUID userId) {
-        Integer moviesRatedCount = ratingService.getAllRatedMoviesCountByUser(userId);
+    public ResponseEntity<UserRatingStatsResponse> userRatingStats(@PathVariable UUID userId, WebRequest webRequest) {
+        Optional<Long> version = ratingService.findUserVersion(userId);
+        if (isNotModified(webRequest, version)) {
+            return null;
+        }
+
+        Integer moviesRatedCount = version
+                .map(userVersion -> ratingService.getAllRatedMoviesCountByUser(userId, userVersion))
+                .orElseGet(() -> ratingService.getAllRatedMoviesCountByUser(userId));
 
         return ResponseEntity
                 .status(HttpStatus.OK)
@@ -69,9 +267,34 @@ public class RatingController {
     }
 
     @GetMapping("ratings/{userId}/latest-ratings")
-    public ResponseEntity<List<RatingResponse>> latestRatingsByUser(@PathVariable UUID userId) {
-        List<RatingResponse> latestRatings = ratingService.getLatestRatingsByUserId(userId);
+    public ResponseEntity<List<RatingResponse>> latestRatingsByUser(@PathVariable UUID userId, WebRequest webRequest) {
+        Optional<Long> version = ratingService.findUserVersion(userId);
+        if (isNotModified(webRequest, version)) {
+            return null;
+        }
+
+        List<RatingResponse> latestRatings = version
+                .map(userVersion -> ratingService.getLatestRatingsByUserId(userId, userVersion))
+                .orElseGet(() -> ratingService.getLatestRatingsByUserId(userId));
 
         return ResponseEntity.ok(latestRatings);
     }
+
+    @GetMapping("/ratings/{userId}/history")
+    public ResponseEntity<RatingHistoryResponse> ratingHistoryByUser(@PathVariable UUID userId,
+                                                                     @RequestParam(required = false) String after,
+                                                                     @RequestParam(defaultValue = "20") int size) {
+        RatingHistoryResponse ratingHistory = ratingService.getRatingHistory(userId, after, size);
+
+        return ResponseEntity.ok(ratingHistory);
+    }
+
+    /**
+     * Sets a strong ETag derived from the version and reports whether the request's {@code If-None-Match}
+     * matches it, in which case the response is already a {@code 304}. Without a version, which only happens
+     * before the first write, the response carries no ETag and is served uncached.
+     */
+    private static boolean isNotModified(WebRequest webRequest, Optional<Long> version) {
+        return version.isPresent() && webRequest.checkNotModified("\"%d\"".formatted(version.get()));
+    }
 }
@@ -0,0 +1,62 @@
+package app.popdratingsvc.web;
+
+import app.popdratingsvc.config.ReadWriteRoutingDataSource;
+import app.popdratingsvc.config.RecentRatingWrites;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the reads of a request on the primary when its {@code userId} or {@code movieId} path variable was
+ * written within the read-your-writes window, so a client never reads its own rating back from a replica
+ * that has not caught up yet.
+ * <p>
+ * Recent writes are only known to the instance that committed them: behind a load balancer without sticky
+ * sessions, a read that lands on another instance may still go to the replica. The stats caches do not
+ * depend on this window, since they are always filled from the primary.
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private static final String[] ID_VARIABLES = {"userId", "movieId"};
+
+    private final RecentRatingWrites recentRatingWrites;
+
+    public ReadYourWritesInterceptor(RecentRatingWrites recentRatingWrites) {
+        this.recentRatingWrites = recentRatingWrites;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (pathVariables == null) {
+            return true;
+        }
+
+        for (String variable : ID_VARIABLES) {
+            String value = pathVariables.get(variable);
+            if (value != null && isRecentlyWritten(value)) {
+                ReadWriteRoutingDataSource.pinToPrimary();
+                break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReadWriteRoutingDataSource.unpin();
+    }
+
+    private boolean isRecentlyWritten(String id) {
+        try {
+            return recentRatingWrites.wasRecentlyWritten(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
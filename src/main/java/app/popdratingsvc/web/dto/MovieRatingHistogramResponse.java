@@ -0,0 +1,19 @@
+package app.popdratingsvc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class MovieRatingHistogramResponse {
+
+    private Integer totalRatings;
+
+    private Map<Integer, Long> distribution;
+
+    private Double median;
+
+    private Map<String, Integer> percentiles;
+}
@@ -0,0 +1,23 @@
+package app.popdratingsvc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class RatingBatchItemResponse {
+
+    private int index;
+
+    private UUID userId;
+
+    private UUID movieId;
+
+    private int rating;
+
+    private RatingBatchItemStatus status;
+
+    private String message;
+}
@@ -0,0 +1,8 @@
+package app.popdratingsvc.web.dto;
+
+public enum RatingBatchItemStatus {
+
+    CREATED,
+    UPDATED,
+    REJECTED
+}
@@ -0,0 +1,19 @@
+package app.popdratingsvc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class RatingBatchResponse {
+
+    private int created;
+
+    private int updated;
+
+    private int rejected;
+
+    private List<RatingBatchItemResponse> results;
+}
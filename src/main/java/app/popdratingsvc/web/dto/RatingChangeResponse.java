@@ -0,0 +1,26 @@
+package app.popdratingsvc.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class RatingChangeResponse {
+
+    private long sequence;
+
+    private UUID userId;
+
+    private UUID movieId;
+
+    private Integer previousRating;
+
+    private Integer rating;
+
+    private LocalDateTime occurredOn;
+}
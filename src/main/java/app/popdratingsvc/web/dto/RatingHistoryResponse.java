@@ -0,0 +1,15 @@
+package app.popdratingsvc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class RatingHistoryResponse {
+
+    private List<RatingResponse> ratings;
+
+    private String nextCursor;
+}
@@ -0,0 +1,13 @@
+package app.popdratingsvc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class RatingImportErrorResponse {
+
+    private long line;
+
+    private String message;
+}
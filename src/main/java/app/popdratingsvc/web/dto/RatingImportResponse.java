@@ -0,0 +1,27 @@
+package app.popdratingsvc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class RatingImportResponse {
+
+    private boolean completed;
+
+    private long linesRead;
+
+    private long created;
+
+    private long updated;
+
+    private long rejected;
+
+    private long checkpointLine;
+
+    private String failureMessage;
+
+    private List<RatingImportErrorResponse> errors;
+}
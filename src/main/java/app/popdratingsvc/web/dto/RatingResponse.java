@@ -1,5 +1,6 @@
 package app.popdratingsvc.web.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -8,6 +9,7 @@ import java.util.UUID;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class RatingResponse {
 
     private int rating;
@@ -0,0 +1,21 @@
+package app.popdratingsvc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class TopMovieResponse {
+
+    private Integer rank;
+
+    private UUID movieId;
+
+    private Double score;
+
+    private Double averageRating;
+
+    private Integer totalRatings;
+}
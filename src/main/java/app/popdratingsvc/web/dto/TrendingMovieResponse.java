@@ -0,0 +1,19 @@
+package app.popdratingsvc.web.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class TrendingMovieResponse {
+
+    private Integer rank;
+
+    private UUID movieId;
+
+    private Integer ratingsCount;
+
+    private Double averageRating;
+}
@@ -1,6 +1,7 @@
 package app.popdratingsvc.web.mapper;
 
 import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.repository.RatingHistoryRow;
 import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
 import app.popdratingsvc.web.dto.RatingResponse;
 import app.popdratingsvc.web.dto.UserRatingStatsResponse;
@@ -19,6 +20,10 @@ public class DtoMapper {
                 .build();
     }
 
+    public static RatingResponse from(RatingHistoryRow row) {
+        return new RatingResponse(row.rating(), row.userId(), row.movieId(), row.createdOn(), row.updatedOn());
+    }
+
     public static MovieRatingStatsResponse from(Double averageRating, Integer totalRatings) {
         return MovieRatingStatsResponse.builder()
                 .averageRating(averageRating)
@@ -0,0 +1,62 @@
+-- Converts the UUID columns of an existing MySQL schema to BINARY(16).
+--
+-- Older schemas hold UUIDs either as text (CHAR(36) / VARCHAR(255)) or as Hibernate 5's BINARY(255),
+-- which right-pads every 16-byte value with zeros. Both layouts are copied into freshly created tables
+-- and swapped in with one atomic RENAME, so the service sees either the old or the new schema.
+-- Existing ids keep their values; only rows written after the upgrade get time-ordered ids.
+--
+-- Run with the service stopped (writes made during the copy would be lost), then start the new version.
+
+CREATE TABLE ratings_binary16 (
+    id              BINARY(16)   NOT NULL,
+    user_id         BINARY(16)   NOT NULL,
+    movie_id        BINARY(16)   NOT NULL,
+    rating          INT          NOT NULL,
+    previous_rating INT          NULL,
+    created_on      DATETIME(6)  NOT NULL,
+    updated_on      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_ratings_user_id_movie_id (user_id, movie_id),
+    KEY idx_ratings_user_id_updated_on (user_id, updated_on)
+) ENGINE = InnoDB;
+
+-- Insert in created_on order so the copied clustered index is built append-only as well.
+INSERT INTO ratings_binary16 (id, user_id, movie_id, rating, previous_rating, created_on, updated_on)
+SELECT IF(LENGTH(id) = 36, UUID_TO_BIN(id), LEFT(id, 16)),
+       IF(LENGTH(user_id) = 36, UUID_TO_BIN(user_id), LEFT(user_id, 16)),
+       IF(LENGTH(movie_id) = 36, UUID_TO_BIN(movie_id), LEFT(movie_id, 16)),
+       rating, previous_rating, created_on, updated_on
+FROM ratings
+ORDER BY created_on;
+
+CREATE TABLE movie_rating_aggregates_binary16 (
+    movie_id      BINARY(16) NOT NULL,
+    ratings_count BIGINT     NOT NULL,
+    ratings_sum   BIGINT     NOT NULL,
+    rated_1       BIGINT     NOT NULL,
+    rated_2       BIGINT     NOT NULL,
+    rated_3       BIGINT     NOT NULL,
+    rated_4       BIGINT     NOT NULL,
+    rated_5       BIGINT     NOT NULL,
+    rated_6       BIGINT     NOT NULL,
+    rated_7       BIGINT     NOT NULL,
+    rated_8       BIGINT     NOT NULL,
+    rated_9       BIGINT     NOT NULL,
+    rated_10      BIGINT     NOT NULL,
+    version       BIGINT     NULL,
+    PRIMARY KEY (movie_id)
+) ENGINE = InnoDB;
+
+INSERT INTO movie_rating_aggregates_binary16
+SELECT IF(LENGTH(movie_id) = 36, UUID_TO_BIN(movie_id), LEFT(movie_id, 16)),
+       ratings_count, ratings_sum, rated_1, rated_2, rated_3, rated_4, rated_5,
+       rated_6, rated_7, rated_8, rated_9, rated_10, version
+FROM movie_rating_aggregates;
+
+RENAME TABLE ratings TO ratings_legacy,
+             ratings_binary16 TO ratings,
+             movie_rating_aggregates TO movie_rating_aggregates_legacy,
+             movie_rating_aggregates_binary16 TO movie_rating_aggregates;
+
+-- Once the service has been verified against the new tables:
+-- DROP TABLE ratings_legacy, movie_rating_aggregates_legacy;
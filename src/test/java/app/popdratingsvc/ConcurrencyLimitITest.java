@@ -0,0 +1,89 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.config.GradientConcurrencyLimit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = {
+        "ratings.concurrency-limit.enabled=true",
+        "ratings.concurrency-limit.initial-read-limit=4",
+        "ratings.concurrency-limit.initial-write-limit=4",
+        "ratings.concurrency-limit.min-limit=4",
+        "ratings.concurrency-limit.max-limit=4",
+        "ratings.concurrency-limit.retry-after=2s"
+})
+public class ConcurrencyLimitITest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("readConcurrencyLimit")
+    private GradientConcurrencyLimit readLimit;
+
+    @Autowired
+    @Qualifier("writeConcurrencyLimit")
+    private GradientConcurrencyLimit writeLimit;
+
+    @Test
+    void whenReadLimitIsExhausted_thenRejectReadsWith503AndRetryAfterButAdmitWrites() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        for (int i = 0; i < 4; i++) {
+            readLimit.tryAcquire(1.0);
+        }
+
+        mockMvc.perform(get("/api/v1/ratings/{movieId}/stats", movieId))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.message").exists());
+        mockMvc.perform(post("/api/v1/ratings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"%s\",\"movieId\":\"%s\",\"rating\":7}".formatted(UUID.randomUUID(), movieId)))
+                .andExpect(status().isCreated());
+
+        readLimit.release();
+        mockMvc.perform(get("/api/v1/ratings/{movieId}/stats", movieId))
+                .andExpect(status().isOk());
+        assertEquals(3, readLimit.getInFlight());
+        assertEquals(0, writeLimit.getInFlight());
+    }
+
+    @Test
+    void whenBulkShareIsUsedUp_thenRejectBulkRequestsButAdmitStatsReads() throws Exception {
+        readLimit.tryAcquire(1.0);
+        readLimit.tryAcquire(1.0);
+
+        mockMvc.perform(get("/api/v1/ratings/export"))
+                .andExpect(status().isServiceUnavailable());
+        mockMvc.perform(post("/api/v1/ratings/stats:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"%s\"]".formatted(UUID.randomUUID())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void whenRequestContinuesAsynchronously_thenReleaseItsPermit() throws Exception {
+        mockMvc.perform(get("/api/v1/ratings/changes").param("waitSeconds", "20"))
+                .andExpect(request().asyncStarted());
+
+        assertEquals(0, readLimit.getInFlight());
+    }
+}
@@ -0,0 +1,86 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.RatingRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class ConditionalGetITest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Test
+    void movieStats_shouldReturn304UntilAnotherRatingOfTheMovieIsWritten() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        ratingService.upsert(request(UUID.randomUUID(), movieId, 6));
+
+        String etag = mockMvc.perform(get("/api/v1/ratings/{movieId}/stats", movieId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/v1/ratings/{movieId}/stats", movieId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        ratingService.upsert(request(UUID.randomUUID(), UUID.randomUUID(), 9));
+        mockMvc.perform(get("/api/v1/ratings/{movieId}/stats", movieId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        ratingService.upsert(request(UUID.randomUUID(), movieId, 8));
+        String newEtag = mockMvc.perform(get("/api/v1/ratings/{movieId}/stats", movieId).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(newEtag).isNotEqualTo(etag);
+    }
+
+    @Test
+    void userEndpoints_shouldShareETagThatChangesOnEveryWriteOfTheUser() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        ratingService.upsert(request(userId, movieId, 4));
+
+        String etag = mockMvc.perform(get("/api/v1/ratings/{userId}/latest-ratings", userId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).isNotNull();
+        mockMvc.perform(get("/api/v1/ratings/{userId}/user", userId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        ratingService.upsert(request(userId, UUID.randomUUID(), 7));
+        mockMvc.perform(get("/api/v1/ratings/{userId}/user", userId).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.ratedMovies").value(2));
+
+        String afterUpdate = mockMvc.perform(get("/api/v1/ratings/{userId}/latest-ratings", userId))
+                .andReturn().getResponse().getHeader("ETag");
+        ratingService.removeRating(userId, movieId);
+        mockMvc.perform(get("/api/v1/ratings/{userId}/latest-ratings", userId).header("If-None-Match", afterUpdate))
+                .andExpect(status().isOk());
+    }
+
+    private static RatingRequest request(UUID userId, UUID movieId, int rating) {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+}
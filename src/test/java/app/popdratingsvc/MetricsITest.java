@@ -0,0 +1,57 @@
+package app.popdratingsvc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class MetricsITest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusEndpoint_shouldExposeEndpointRepositoryOutcomePoolAndJvmMetrics() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        mockMvc.perform(post("/api/v1/ratings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userId": "%s", "movieId": "%s", "rating": 7}
+                                """.formatted(userId, movieId)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/v1/ratings/{userId}/{movieId}", userId, UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/v1/ratings\"")
+                .contains("spring_data_repository_invocations_seconds_bucket{")
+                .contains("method=\"findByUserIdAndMovieId\"")
+                .containsPattern("ratings_upserts_total\\{.*outcome=\"created\".*} 1\\.0")
+                .containsPattern("ratings_not_found_total\\{.*lookup=\"rating\".*} 1\\.0")
+                .contains("ratings_deletes_total")
+                .contains("hikaricp_connections_active")
+                .contains("jvm_gc_")
+                .contains("jvm_memory_used_bytes");
+    }
+}
@@ -0,0 +1,77 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.model.MovieRatingAggregate;
+import app.popdratingsvc.repository.MovieRatingAggregateRepository;
+import app.popdratingsvc.service.MovieLeaderboard;
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.RatingRequest;
+import app.popdratingsvc.web.dto.TopMovieResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class MovieLeaderboardITest {
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private MovieLeaderboard movieLeaderboard;
+
+    @Autowired
+    private MovieRatingAggregateRepository movieRatingAggregateRepository;
+
+    @Test
+    void getTopMovies_shouldFollowCommittedUpsertsAndRemovals() {
+        UUID popular = UUID.randomUUID();
+        UUID disliked = UUID.randomUUID();
+        UUID niche = UUID.randomUUID();
+        for (int i = 0; i < 20; i++) {
+            ratingService.upsert(request(UUID.randomUUID(), popular, 8));
+            ratingService.upsert(request(UUID.randomUUID(), disliked, 1));
+        }
+        UUID nicheUser = UUID.randomUUID();
+        ratingService.upsert(request(nicheUser, niche, 10));
+
+        List<TopMovieResponse> top = ratingService.getTopMovies(10, 1);
+        assertEquals(List.of(popular, niche, disliked), top.stream().map(TopMovieResponse::getMovieId).toList());
+        assertEquals(List.of(popular, disliked), ratingService.getTopMovies(10, 2).stream().map(TopMovieResponse::getMovieId).toList());
+
+        ratingService.removeRating(nicheUser, niche);
+        assertEquals(List.of(popular, disliked), ratingService.getTopMovies(10, 1).stream().map(TopMovieResponse::getMovieId).toList());
+    }
+
+    @Test
+    void rebuild_shouldLoadRankingFromAggregates() {
+        UUID movieId = UUID.randomUUID();
+        movieRatingAggregateRepository.save(MovieRatingAggregate.builder()
+                .movieId(movieId)
+                .ratingsCount(4)
+                .ratingsSum(30)
+                .build());
+
+        movieLeaderboard.rebuild();
+
+        List<TopMovieResponse> top = ratingService.getTopMovies(10, 1);
+        assertEquals(1, top.size());
+        assertEquals(movieId, top.get(0).getMovieId());
+        assertEquals(7.5, top.get(0).getAverageRating());
+        assertEquals(7.5, top.get(0).getScore());
+    }
+
+    private static RatingRequest request(UUID userId, UUID movieId, int rating) {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+}
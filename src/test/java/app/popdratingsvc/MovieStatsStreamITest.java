@@ -0,0 +1,67 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.RatingRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = "ratings.stats-stream.debounce=50ms")
+public class MovieStatsStreamITest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Test
+    void statsStream_shouldStartWithCurrentStatsAndPushEveryCommittedChange() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        MvcResult stream = mockMvc.perform(get("/api/v1/ratings/{movieId}/stats/stream", movieId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse response = stream.getResponse();
+        awaitEvent(response, "\"totalRatings\":0");
+        assertThat(response.getContentType()).startsWith("text/event-stream");
+
+        ratingService.upsert(rating(userId, movieId, 4));
+        ratingService.upsert(rating(UUID.randomUUID(), movieId, 8));
+        ratingService.upsert(rating(UUID.randomUUID(), UUID.randomUUID(), 1));
+        awaitEvent(response, "event:stats\ndata:{\"averageRating\":6.0,\"totalRatings\":2}");
+
+        ratingService.removeRating(userId, movieId);
+        awaitEvent(response, "data:{\"averageRating\":8.0,\"totalRatings\":1}");
+    }
+
+    private static void awaitEvent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!response.getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(response.getContentAsString()).contains(expected);
+    }
+
+    private static RatingRequest rating(UUID userId, UUID movieId, int rating) {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.repository.RatingChangeRepository;
+import app.popdratingsvc.service.RatingChangeFeed;
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.RatingChangeResponse;
+import app.popdratingsvc.web.dto.RatingChangesResponse;
+import app.popdratingsvc.web.dto.RatingRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class RatingChangeFeedITest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RatingChangeFeed ratingChangeFeed;
+
+    @Autowired
+    private RatingChangeRepository ratingChangeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void everyCommittedWrite_shouldAppearOnceInSequenceOrderWithoutGaps() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        UUID otherMovieId = UUID.randomUUID();
+
+        ratingService.upsert(request(userId, movieId, 4));
+        ratingService.upsertAll(List.of(request(userId, movieId, 7), request(userId, otherMovieId, 2)));
+        assertThrows(InvalidRequestException.class, () -> ratingService.upsert(request(userId, movieId, 11)));
+        ratingService.removeRating(userId, movieId);
+
+        RatingChangesResponse firstPage = ratingChangeFeed.getChanges(0, 3);
+        RatingChangesResponse secondPage = ratingChangeFeed.getChanges(firstPage.getNextCursor(), 3);
+        List<RatingChangeResponse> changes = new ArrayList<>(firstPage.getChanges());
+        changes.addAll(secondPage.getChanges());
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), changes.stream().map(RatingChangeResponse::getSequence).toList());
+        assertEquals(List.of(movieId, movieId, otherMovieId, movieId), changes.stream().map(RatingChangeResponse::getMovieId).toList());
+        assertNull(changes.get(0).getPreviousRating());
+        assertEquals(4, changes.get(1).getPreviousRating());
+        assertEquals(7, changes.get(1).getRating());
+        assertEquals(7, changes.get(3).getPreviousRating());
+        assertNull(changes.get(3).getRating());
+        assertEquals(4, secondPage.getNextCursor());
+        assertEquals(List.of(), ratingChangeFeed.getChanges(4, 100).getChanges());
+    }
+
+    @Test
+    void writesShouldNotWaitForEachOther_andAGapShouldHoldBackLaterChangesUntilItCommits() throws Exception {
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slowWrite = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                ratingService.upsert(request(UUID.randomUUID(), UUID.randomUUID(), 3));
+                // Registered after the feed's synchronization, so it runs once the change has its sequence number.
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        appended.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }));
+            assertTrue(appended.await(10, TimeUnit.SECONDS));
+
+            ratingService.upsert(request(UUID.randomUUID(), UUID.randomUUID(), 6));
+            assertEquals(List.of(), ratingChangeFeed.getChanges(0, 100).getChanges());
+
+            release.countDown();
+            slowWrite.get(10, TimeUnit.SECONDS);
+            RatingChangesResponse page = ratingChangeFeed.getChanges(0, 100);
+            assertEquals(List.of(1L, 2L), page.getChanges().stream().map(RatingChangeResponse::getSequence).toList());
+            assertEquals(List.of(3, 6), page.getChanges().stream().map(RatingChangeResponse::getRating).toList());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void compactionMark_shouldOnlyMoveForwardAndExpireTheCursorsBelowIt() throws Exception {
+        ratingChangeRepository.markCompactedThrough(5);
+        ratingChangeRepository.markCompactedThrough(3);
+
+        assertEquals(Optional.of(5L), ratingChangeRepository.findCompactedThrough());
+        mockMvc.perform(get("/api/v1/ratings/changes").param("cursor", "4"))
+                .andExpect(status().isGone());
+        mockMvc.perform(get("/api/v1/ratings/changes").param("cursor", "5"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void longPoll_shouldBeAnsweredByTheNextCommit() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        ratingService.upsert(request(userId, movieId, 5));
+
+        MvcResult waiting = mockMvc.perform(get("/api/v1/ratings/changes")
+                        .param("cursor", "1")
+                        .param("waitSeconds", "20"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        ratingService.upsert(request(userId, movieId, 9));
+
+        mockMvc.perform(asyncDispatch(waiting))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(1))
+                .andExpect(jsonPath("$.changes[0].sequence").value(2))
+                .andExpect(jsonPath("$.changes[0].rating").value(9))
+                .andExpect(jsonPath("$.nextCursor").value(2));
+    }
+
+    private static RatingRequest request(UUID userId, UUID movieId, int rating) {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+}
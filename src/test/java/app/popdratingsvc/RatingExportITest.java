@@ -0,0 +1,92 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.repository.RatingRepository;
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.RatingRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class RatingExportITest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Test
+    void exportRatings_asNdjson_shouldWriteOneObjectPerRating() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID firstMovieId = UUID.randomUUID();
+        UUID secondMovieId = UUID.randomUUID();
+        ratingService.upsert(request(userId, firstMovieId, 7));
+        ratingService.upsert(request(userId, secondMovieId, 4));
+        ratingService.upsert(request(userId, secondMovieId, 9));
+
+        String body = mockMvc.perform(get("/api/v1/ratings/export"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.split("\n")).hasSize(2);
+        assertThat(body)
+                .containsPattern("\\{\"id\":\"[0-9a-f-]{36}\",\"userId\":\"%s\",\"movieId\":\"%s\",\"rating\":7,\"previousRating\":null,"
+                        .formatted(userId, firstMovieId))
+                .contains("\"movieId\":\"%s\",\"rating\":9,\"previousRating\":4,".formatted(secondMovieId))
+                .endsWith("}\n");
+    }
+
+    @Test
+    void exportRatings_asCsvSinceTimestamp_shouldWriteHeaderAndOnlyRecentlyUpdatedRatings() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID oldMovieId = UUID.randomUUID();
+        UUID recentMovieId = UUID.randomUUID();
+        ratingService.upsert(request(userId, oldMovieId, 3));
+        ratingService.upsert(request(userId, recentMovieId, 8));
+        Rating old = ratingRepository.findByUserIdAndMovieId(userId, oldMovieId).orElseThrow();
+        old.setUpdatedOn(LocalDateTime.of(2020, 1, 1, 0, 0));
+        ratingRepository.save(old);
+
+        String body = mockMvc.perform(get("/api/v1/ratings/export")
+                        .param("format", "csv")
+                        .param("since", "2024-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).isEqualTo("id,userId,movieId,rating,previousRating,createdOn,updatedOn");
+        assertThat(lines[1]).contains(",%s,%s,8,,".formatted(userId, recentMovieId));
+    }
+
+    @Test
+    void exportRatings_withMalformedSince_shouldReturn400BadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/ratings/export").param("since", "yesterday"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static RatingRequest request(UUID userId, UUID movieId, int rating) {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+}
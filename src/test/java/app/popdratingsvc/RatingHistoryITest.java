@@ -0,0 +1,109 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.repository.RatingRepository;
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.RatingHistoryResponse;
+import app.popdratingsvc.web.dto.RatingResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class RatingHistoryITest {
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Test
+    void getRatingHistory_pagingWithCursor_shouldVisitEveryRatingOnceNewestFirst() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime base = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 7; i++) {
+            // two ratings share each timestamp so the id tie-breaker is exercised
+            LocalDateTime updatedOn = base.plusMinutes(i / 2);
+            ratingRepository.save(Rating.builder()
+                    .userId(userId)
+                    .movieId(UUID.randomUUID())
+                    .rating(i + 1)
+                    .createdOn(updatedOn)
+                    .updatedOn(updatedOn)
+                    .build());
+        }
+        ratingRepository.save(Rating.builder()
+                .userId(UUID.randomUUID())
+                .movieId(UUID.randomUUID())
+                .rating(1)
+                .createdOn(base)
+                .updatedOn(base)
+                .build());
+
+        List<RatingResponse> visited = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            RatingHistoryResponse page = ratingService.getRatingHistory(userId, cursor, 3);
+            visited.addAll(page.getRatings());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(7, visited.size());
+        assertEquals(7, visited.stream().map(RatingResponse::getMovieId).distinct().count());
+        for (int i = 1; i < visited.size(); i++) {
+            assertFalse(visited.get(i).getUpdatedOn().isAfter(visited.get(i - 1).getUpdatedOn()));
+        }
+    }
+
+    @Test
+    void getLatestRatingsByUserId_whenUserHasMoreThan20Ratings_shouldReturnNewest20() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime base = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 25; i++) {
+            ratingRepository.save(Rating.builder()
+                    .userId(userId)
+                    .movieId(UUID.randomUUID())
+                    .rating(i % 10 + 1)
+                    .createdOn(base.plusMinutes(i))
+                    .updatedOn(base.plusMinutes(i))
+                    .build());
+        }
+
+        List<RatingResponse> latest = ratingService.getLatestRatingsByUserId(userId);
+
+        assertEquals(20, latest.size());
+        assertEquals(base.plusMinutes(24).withNano(0), latest.get(0).getUpdatedOn().withNano(0));
+        assertEquals(base.plusMinutes(5).withNano(0), latest.get(19).getUpdatedOn().withNano(0));
+    }
+
+    @Test
+    void getRatings_shouldReturnOnlyTheUsersRatingsOfRequestedMovies() {
+        UUID userId = UUID.randomUUID();
+        UUID ratedMovie = UUID.randomUUID();
+        UUID otherRatedMovie = UUID.randomUUID();
+        UUID ratedByOtherUser = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        ratingRepository.save(Rating.builder().userId(userId).movieId(ratedMovie).rating(8).createdOn(now).updatedOn(now).build());
+        ratingRepository.save(Rating.builder().userId(userId).movieId(otherRatedMovie).rating(2).createdOn(now).updatedOn(now).build());
+        ratingRepository.save(Rating.builder().userId(UUID.randomUUID()).movieId(ratedByOtherUser).rating(5).createdOn(now).updatedOn(now).build());
+
+        Map<UUID, RatingResponse> ratings = ratingService.getRatings(userId, List.of(ratedByOtherUser, ratedMovie, UUID.randomUUID()));
+
+        assertEquals(List.of(ratedMovie), List.copyOf(ratings.keySet()));
+        assertEquals(8, ratings.get(ratedMovie).getRating());
+    }
+}
@@ -0,0 +1,81 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.repository.MovieRatingAggregateRepository;
+import app.popdratingsvc.repository.RatingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class RatingImportITest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private MovieRatingAggregateRepository movieRatingAggregateRepository;
+
+    @Test
+    void importRatings_asCsv_shouldUpsertRowsAndApplyRepeatedPairsInOrder() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        UUID otherMovieId = UUID.randomUUID();
+        String body = """
+                userId,movieId,rating
+                %1$s,%2$s,4
+                %1$s,%3$s,6
+                %1$s,%2$s,9
+                %1$s,%3$s,0
+                """.formatted(userId, movieId, otherMovieId);
+
+        mockMvc.perform(post("/api/v1/ratings/import").param("format", "csv").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.checkpointLine").value(5))
+                .andExpect(jsonPath("$.errors[0].line").value(5));
+
+        Rating rating = ratingRepository.findByUserIdAndMovieId(userId, movieId).orElseThrow();
+        assertEquals(9, rating.getRating());
+        assertEquals(4, rating.getPreviousRating());
+        assertEquals(2, ratingRepository.count());
+        assertEquals(9, movieRatingAggregateRepository.findById(movieId).orElseThrow().getRatingsSum());
+    }
+
+    @Test
+    void importRatings_resumedAfterCheckpoint_shouldOnlyWriteRemainingLines() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID skippedMovieId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        String body = """
+                {"userId":"%1$s","movieId":"%2$s","rating":5}
+                {"userId":"%1$s","movieId":"%3$s","rating":8}
+                """.formatted(userId, skippedMovieId, movieId);
+
+        mockMvc.perform(post("/api/v1/ratings/import").param("resumeAfterLine", "1").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.checkpointLine").value(2));
+
+        assertTrue(ratingRepository.findByUserIdAndMovieId(userId, skippedMovieId).isEmpty());
+        assertEquals(8, ratingRepository.findByUserIdAndMovieId(userId, movieId).orElseThrow().getRating());
+    }
+}
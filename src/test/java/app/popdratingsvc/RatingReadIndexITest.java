@@ -0,0 +1,101 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.exception.NotFoundException;
+import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.repository.RatingRepository;
+import app.popdratingsvc.service.RatingReadIndex;
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import app.popdratingsvc.web.dto.RatingRequest;
+import app.popdratingsvc.web.dto.RatingResponse;
+import app.popdratingsvc.web.dto.TopMovieResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = {"ratings.read-index.enabled=true", "spring.cache.type=none"})
+public class RatingReadIndexITest {
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RatingReadIndex ratingReadIndex;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Test
+    void reads_shouldBeServedFromIndexAndMatchTheDatabaseAfterEveryKindOfWrite() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        UUID otherMovieId = UUID.randomUUID();
+        assertTrue(ratingReadIndex.isServing());
+
+        ratingService.upsert(request(userId, movieId, 4));
+        ratingService.upsertAll(List.of(request(userId, movieId, 7), request(userId, otherMovieId, 2),
+                request(UUID.randomUUID(), movieId, 9)));
+
+        assertEquals(3, ratingReadIndex.size());
+        RatingResponse fromIndex = ratingService.getRating(userId, movieId);
+        RatingResponse fromDatabase = ratingRepository.findResponseByUserIdAndMovieId(userId, movieId).orElseThrow();
+        assertEquals(7, fromIndex.getRating());
+        assertEquals(fromDatabase.getCreatedOn(), fromIndex.getCreatedOn());
+        assertEquals(fromDatabase.getUpdatedOn(), fromIndex.getUpdatedOn());
+        MovieRatingStatsResponse stats = ratingService.getMovieRatingStats(movieId);
+        assertEquals(2, stats.getTotalRatings());
+        assertEquals(8.0, stats.getAverageRating());
+        assertEquals(ratingRepository.findLatestResponsesByUserId(userId, Limit.of(20)), ratingService.getLatestRatingsByUserId(userId));
+
+        ratingService.removeRating(userId, movieId);
+
+        assertThrows(NotFoundException.class, () -> ratingService.getRating(userId, movieId));
+        assertEquals(1, ratingService.getMovieRatingStats(movieId).getTotalRatings());
+        assertEquals(List.of(otherMovieId), ratingService.getLatestRatingsByUserId(userId).stream().map(RatingResponse::getMovieId).toList());
+    }
+
+    @Test
+    void recompute_shouldReloadRatingsTheIndexAndLeaderboardMissed() {
+        UUID movieId = UUID.randomUUID();
+        UUID otherMovieId = UUID.randomUUID();
+        ratingService.upsert(request(UUID.randomUUID(), movieId, 4));
+        // Written past the service, so no event reaches the index or the leaderboard.
+        saveWithoutEvent(movieId, 10);
+        saveWithoutEvent(otherMovieId, 6);
+
+        assertEquals(7.0, ratingService.recomputeMovieAggregate(movieId).getAverageRating());
+        assertEquals(2, ratingService.getMovieRatingStats(movieId).getTotalRatings());
+        assertEquals(List.of(movieId), topMovieIds());
+
+        ratingService.recomputeAllMovieAggregates();
+        assertEquals(1, ratingService.getMovieRatingStats(otherMovieId).getTotalRatings());
+        assertEquals(List.of(movieId, otherMovieId), topMovieIds());
+    }
+
+    private void saveWithoutEvent(UUID movieId, int rating) {
+        LocalDateTime now = LocalDateTime.now();
+        ratingRepository.save(Rating.builder().userId(UUID.randomUUID()).movieId(movieId).rating(rating)
+                .createdOn(now).updatedOn(now).build());
+    }
+
+    private List<UUID> topMovieIds() {
+        return ratingService.getTopMovies(10, 1).stream().map(TopMovieResponse::getMovieId).toList();
+    }
+
+    private static RatingRequest request(UUID userId, UUID movieId, int rating) {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.config.CacheConfig;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.service.RatingCacheInvalidator;
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import app.popdratingsvc.web.dto.RatingRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@AutoConfigureObservability
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest
+public class RatingStatsCacheITest {
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RatingCacheInvalidator ratingCacheInvalidator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void getMovieRatingStats_whenCalledTwiceAtTheSameVersion_shouldServeSecondReadFromCache() {
+        UUID movieId = UUID.randomUUID();
+        ratingService.upsert(request(UUID.randomUUID(), movieId, 8));
+        long version = ratingService.findMovieVersion(movieId).orElseThrow();
+
+        ratingService.getMovieRatingStats(movieId, version);
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createQuery("update MovieRatingAggregate a set a.ratingsCount = 2, a.ratingsSum = 10 where a.movieId = :movieId")
+                .setParameter("movieId", movieId)
+                .executeUpdate());
+        MovieRatingStatsResponse stats = ratingService.getMovieRatingStats(movieId, version);
+
+        assertEquals(1, stats.getTotalRatings());
+        assertEquals(8.0, stats.getAverageRating());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", CacheConfig.MOVIE_STATS).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", CacheConfig.MOVIE_STATS).tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void upsertAndRemove_shouldBumpOnlyTheAffectedVersionsSoReadersMoveToFreshEntries() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        UUID otherMovieId = UUID.randomUUID();
+        ratingService.upsert(request(userId, movieId, 6));
+        ratingService.upsert(request(UUID.randomUUID(), otherMovieId, 4));
+        assertEquals(6.0, movieStats(movieId).getAverageRating());
+        assertEquals(4.0, movieStats(otherMovieId).getAverageRating());
+        assertEquals(1, userStats(userId));
+        long otherMovieVersion = ratingService.findMovieVersion(otherMovieId).orElseThrow();
+
+        ratingService.upsert(request(userId, movieId, 10));
+
+        assertEquals(otherMovieVersion, ratingService.findMovieVersion(otherMovieId).orElseThrow());
+        assertEquals(10.0, movieStats(movieId).getAverageRating());
+
+        ratingService.upsert(request(userId, otherMovieId, 8));
+        assertEquals(2, userStats(userId));
+        assertEquals(6.0, movieStats(otherMovieId).getAverageRating());
+        assertEquals(otherMovieId, ratingService.getLatestRatingsByUserId(userId,
+                ratingService.findUserVersion(userId).orElseThrow()).get(0).getMovieId());
+
+        ratingService.removeRating(userId, otherMovieId);
+        assertEquals(1, userStats(userId));
+        assertEquals(4.0, movieStats(otherMovieId).getAverageRating());
+        assertNotNull(cacheManager.getCache(CacheConfig.MOVIE_STATS).get(new SimpleKey(otherMovieId, otherMovieVersion)));
+    }
+
+    @Test
+    void onRatingChanged_whileALoadIsInProgress_shouldNotWaitAndTheLoadShouldDropItsValue() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        Cache cache = cacheManager.getCache(CacheConfig.MOVIE_AVERAGE_RATINGS);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Double> load = executor.submit(() -> ratingCacheInvalidator.getOrLoad(
+                    CacheConfig.MOVIE_AVERAGE_RATINGS, movieId, Double.class, () -> {
+                        loading.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return 5.0;
+                    }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            executor.submit(() -> ratingCacheInvalidator.onRatingChanged(
+                    new RatingChangedEvent(UUID.randomUUID(), movieId, null, 7, LocalDateTime.now())))
+                    .get(5, TimeUnit.SECONDS);
+            release.countDown();
+
+            assertEquals(5.0, load.get(5, TimeUnit.SECONDS));
+            assertNull(cache.get(movieId));
+            assertEquals(5.0, ratingCacheInvalidator.getOrLoad(CacheConfig.MOVIE_AVERAGE_RATINGS, movieId, Double.class, () -> 5.0));
+            assertEquals(5.0, cache.get(movieId, Double.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getAverageRatingForAMovie_shouldBeCachedUntilAWriteOfTheMovieCommits() {
+        UUID movieId = UUID.randomUUID();
+        ratingService.upsert(request(UUID.randomUUID(), movieId, 8));
+
+        assertEquals(8.0, ratingService.getAverageRatingForAMovie(movieId));
+        assertEquals(8.0, cacheManager.getCache(CacheConfig.MOVIE_AVERAGE_RATINGS).get(movieId, Double.class));
+
+        ratingService.upsert(request(UUID.randomUUID(), movieId, 4));
+
+        assertNull(cacheManager.getCache(CacheConfig.MOVIE_AVERAGE_RATINGS).get(movieId));
+        assertEquals(6.0, ratingService.getAverageRatingForAMovie(movieId));
+    }
+
+    private MovieRatingStatsResponse movieStats(UUID movieId) {
+        return ratingService.getMovieRatingStats(movieId, ratingService.findMovieVersion(movieId).orElseThrow());
+    }
+
+    private Integer userStats(UUID userId) {
+        return ratingService.getAllRatedMoviesCountByUser(userId, ratingService.findUserVersion(userId).orElseThrow());
+    }
+
+    private static RatingRequest request(UUID userId, UUID movieId, int rating) {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+}
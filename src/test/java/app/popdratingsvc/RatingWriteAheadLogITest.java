@@ -0,0 +1,174 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.repository.RatingRepository;
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.service.RatingWriteAheadLog;
+import app.popdratingsvc.web.dto.RatingRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = {
+        "ratings.write-ahead-log.enabled=true",
+        "ratings.write-ahead-log.apply-interval=20ms"
+})
+public class RatingWriteAheadLogITest {
+
+    private static final Path LOG_DIRECTORY = createLogDirectory();
+
+    @Autowired
+    private RatingWriteAheadLog ratingWriteAheadLog;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void logDirectory(DynamicPropertyRegistry registry) {
+        registry.add("ratings.write-ahead-log.directory", LOG_DIRECTORY::toString);
+    }
+
+    @Test
+    void append_shouldApplyAcceptedRatingsAndKeepLastWritePerPair() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            executor.invokeAll(IntStream.rangeClosed(1, 40)
+                    .mapToObj(i -> (Callable<Void>) () -> {
+                        ratingWriteAheadLog.append(request(UUID.randomUUID(), movieId, i % 10 + 1));
+                        return null;
+                    })
+                    .toList());
+        } finally {
+            executor.shutdown();
+        }
+        ratingWriteAheadLog.append(request(userId, movieId, 3));
+        ratingWriteAheadLog.append(request(userId, movieId, 8));
+
+        awaitApplied();
+
+        assertEquals(8, ratingService.findByUserIdAndMovieId(userId, movieId).getRating());
+        assertEquals(41, ratingService.getMovieRatingStats(movieId).getTotalRatings());
+        assertEquals(0.0, meterRegistry.get("ratings.wal.applier.lag").gauge().value());
+    }
+
+    @Test
+    void start_shouldReplayEntriesLoggedButNotAppliedBeforeShutdown() throws IOException {
+        ratingWriteAheadLog.stop();
+        Path checkpointFile = LOG_DIRECTORY.resolve("checkpoint");
+        long checkpoint = Files.exists(checkpointFile) ? Long.parseLong(Files.readString(checkpointFile).trim()) : 0;
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        String lines = logLine(checkpoint + 1, userId, movieId, 4)
+                + logLine(checkpoint + 2, userId, movieId, 9)
+                + logLine(checkpoint + 3, userId, UUID.randomUUID(), 5).substring(0, 30);
+        Files.writeString(LOG_DIRECTORY.resolve("%020d.log".formatted(checkpoint + 1)), lines, StandardCharsets.UTF_8);
+
+        ratingWriteAheadLog.start();
+        awaitApplied();
+
+        Optional<Rating> replayed = ratingRepository.findByUserIdAndMovieId(userId, movieId);
+        assertTrue(replayed.isPresent());
+        assertEquals(9, replayed.get().getRating());
+        assertEquals(1, ratingRepository.findAllByUserId(userId).size());
+        assertEquals(checkpoint + 2, Long.parseLong(Files.readString(checkpointFile).trim()));
+    }
+
+    @Test
+    void start_whenALoggedEntryIsRejected_shouldMoveItToTheDeadLetterFileAndApplyTheRest() throws IOException {
+        ratingWriteAheadLog.stop();
+        Path checkpointFile = LOG_DIRECTORY.resolve("checkpoint");
+        long checkpoint = Files.exists(checkpointFile) ? Long.parseLong(Files.readString(checkpointFile).trim()) : 0;
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        String rejected = logLine(checkpoint + 1, userId, UUID.randomUUID(), 11);
+        Files.writeString(LOG_DIRECTORY.resolve("%020d.log".formatted(checkpoint + 1)),
+                rejected + logLine(checkpoint + 2, userId, movieId, 6), StandardCharsets.UTF_8);
+
+        ratingWriteAheadLog.start();
+        awaitApplied();
+
+        assertEquals(6, ratingService.findByUserIdAndMovieId(userId, movieId).getRating());
+        assertEquals(1, ratingRepository.findAllByUserId(userId).size());
+        assertEquals(rejected, Files.readString(LOG_DIRECTORY.resolve("dead-letters"), StandardCharsets.UTF_8));
+        assertEquals(1.0, meterRegistry.get("ratings.wal.dead.letters").counter().count());
+    }
+
+    @Test
+    void append_whenRequestIsInvalid_shouldRejectWithoutLogging() {
+        assertThrows(InvalidRequestException.class,
+                () -> ratingWriteAheadLog.append(request(UUID.randomUUID(), UUID.randomUUID(), 0)));
+        assertEquals(0.0, meterRegistry.get("ratings.wal.applier.lag").gauge().value());
+    }
+
+    private void awaitApplied() {
+        await(() -> meterRegistry.get("ratings.wal.applier.lag").gauge().value() == 0);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Write-ahead log was not applied within 10 seconds");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted while waiting for the write-ahead log");
+            }
+        }
+    }
+
+    private static String logLine(long sequence, UUID userId, UUID movieId, int rating) {
+        String payload = "%d,%s,%s,%d,%d".formatted(sequence, userId, movieId, rating, Instant.now().toEpochMilli());
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return payload + "," + Long.toHexString(crc.getValue()) + "\n";
+    }
+
+    private static RatingRequest request(UUID userId, UUID movieId, int rating) {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+
+    private static Path createLogDirectory() {
+        try {
+            return Files.createTempDirectory("ratings-wal");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package app.popdratingsvc;
+
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.RatingRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; "replication" copies the primary into
+ * the replica with {@code SCRIPT} / {@code RUNSCRIPT}, so anything written afterwards is missing on the replica.
+ */
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=MYSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "ratings.datasource.replica.url=" + ReadReplicaRoutingITest.REPLICA_URL,
+        "ratings.datasource.read-your-writes.window=1m"
+})
+public class ReadReplicaRoutingITest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MYSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Test
+    void readOnlyTransactions_shouldReadFromReplica_andWritesShouldGoToPrimary() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        ratingService.upsert(request(userId, movieId, 4));
+        replicate();
+
+        ratingService.upsert(request(userId, movieId, 9));
+
+        Integer primaryRating = new JdbcTemplate(primaryDataSource).queryForObject("select \"rating\" from \"ratings\"", Integer.class);
+        assertEquals(9, primaryRating);
+        assertEquals(4, ratingService.findByUserIdAndMovieId(userId, movieId).getRating());
+    }
+
+    @Test
+    void readYourWrites_shouldKeepReadsOfRecentlyWrittenIdsOnPrimary() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        ratingService.upsert(request(userId, movieId, 4));
+        replicate();
+        ratingService.upsert(request(userId, movieId, 9));
+
+        UUID replicaOnlyUserId = UUID.randomUUID();
+        UUID replicaOnlyMovieId = UUID.randomUUID();
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+            var insert = replica.prepareStatement("""
+                    insert into "ratings" ("id", "user_id", "movie_id", "rating", "created_on", "updated_on")
+                    values (?, ?, ?, 6, ?, ?)
+                    """);
+            insert.setObject(1, UUID.randomUUID());
+            insert.setObject(2, replicaOnlyUserId);
+            insert.setObject(3, replicaOnlyMovieId);
+            insert.setObject(4, LocalDateTime.now());
+            insert.setObject(5, LocalDateTime.now());
+            insert.executeUpdate();
+        }
+
+        mockMvc.perform(get("/api/v1/ratings/{userId}/{movieId}", userId, movieId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rating").value(9));
+        mockMvc.perform(get("/api/v1/ratings/{userId}/{movieId}", replicaOnlyUserId, replicaOnlyMovieId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rating").value(6));
+    }
+
+    @Test
+    void cachedStats_shouldBeFilledFromPrimaryEvenWithoutRecentWrite() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        ratingService.upsert(request(userId, movieId, 4));
+        replicate();
+        ratingService.upsert(request(userId, movieId, 9));
+        ratingService.upsert(request(userId, UUID.randomUUID(), 7));
+
+        long movieVersion = ratingService.findMovieVersion(movieId).orElseThrow();
+        long userVersion = ratingService.findUserVersion(userId).orElseThrow();
+        assertEquals(1, movieVersion);
+        assertEquals(3, userVersion);
+        assertEquals(9.0, ratingService.getAverageRatingForAMovie(movieId));
+        assertEquals(9.0, ratingService.getMovieRatingStats(movieId, movieVersion).getAverageRating());
+        assertEquals(1, ratingService.getAllRatingsForAMovieCount(movieId));
+        assertEquals(2, ratingService.getAllRatedMoviesCountByUser(userId, userVersion));
+        assertEquals(9, ratingService.getLatestRatingsByUserId(userId, userVersion).stream()
+                .filter(rating -> rating.getMovieId().equals(movieId)).findFirst().orElseThrow().getRating());
+        assertEquals(4, ratingService.findByUserIdAndMovieId(userId, movieId).getRating());
+    }
+
+    private void replicate() throws Exception {
+        Path script = Files.createTempFile("replica", ".sql");
+        try {
+            new JdbcTemplate(primaryDataSource).execute("SCRIPT DROP TO '%s'".formatted(script));
+            try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+                replica.createStatement().execute("RUNSCRIPT FROM '%s'".formatted(script));
+            }
+        } finally {
+            Files.delete(script);
+        }
+    }
+
+    private static RatingRequest request(UUID userId, UUID movieId, int rating) {
+        return RatingRequest.builder()
+                .userId(userId)
+                .movieId(movieId)
+                .rating(rating)
+                .build();
+    }
+}
@@ -1,8 +1,12 @@
 package app.popdratingsvc;
 
+import app.popdratingsvc.model.MovieRatingAggregate;
 import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.repository.MovieRatingAggregateRepository;
 import app.popdratingsvc.repository.RatingRepository;
 import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import app.popdratingsvc.web.dto.RatingBatchResponse;
 import app.popdratingsvc.web.dto.RatingRequest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,7 +15,12 @@ import org.springframework.test.annotation.DirtiesContext;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.within;
@@ -27,6 +36,9 @@ public class UpsertRatingITest {
     @Autowired
     private RatingRepository ratingRepository;
 
+    @Autowired
+    private MovieRatingAggregateRepository movieRatingAggregateRepository;
+
     @Test
     void upsertRating_whenRatingDoesNotExist_shouldCreateNewRatingAndPersistInDatabase() {
         UUID userId = UUID.randomUUID();
@@ -130,4 +142,129 @@ public class UpsertRatingITest {
         assertEquals(3, ratingRepository.count());
         assertEquals(1, updated.getRating());
     }
+
+    @Test
+    void upsertAndRemoveRating_shouldKeepMovieAggregateInSyncWithRatings() {
+        UUID movieId = UUID.randomUUID();
+        UUID user1 = UUID.randomUUID();
+        UUID user2 = UUID.randomUUID();
+
+        ratingService.upsert(RatingRequest.builder().userId(user1).movieId(movieId).rating(8).build());
+        ratingService.upsert(RatingRequest.builder().userId(user2).movieId(movieId).rating(4).build());
+        ratingService.upsert(RatingRequest.builder().userId(user2).movieId(movieId).rating(6).build());
+
+        MovieRatingStatsResponse stats = ratingService.getMovieRatingStats(movieId);
+        assertEquals(7.0, stats.getAverageRating());
+        assertEquals(2, stats.getTotalRatings());
+
+        ratingService.removeRating(user1, movieId);
+
+        MovieRatingAggregate aggregate = movieRatingAggregateRepository.findById(movieId).orElseThrow();
+        assertEquals(1, aggregate.getRatingsCount());
+        assertEquals(6, aggregate.getRatingsSum());
+        assertArrayEquals(new long[]{0, 0, 0, 0, 0, 1, 0, 0, 0, 0}, aggregate.getHistogram());
+        assertEquals(3, aggregate.getVersion());
+    }
+
+    @Test
+    void recomputeAllMovieAggregates_shouldRebuildAggregatesFromRatingsTable() {
+        UUID movieId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        ratingRepository.save(Rating.builder().userId(UUID.randomUUID()).movieId(movieId).rating(9).createdOn(now).updatedOn(now).build());
+        ratingRepository.save(Rating.builder().userId(UUID.randomUUID()).movieId(movieId).rating(2).createdOn(now).updatedOn(now).build());
+
+        ratingService.recomputeAllMovieAggregates();
+
+        MovieRatingStatsResponse stats = ratingService.getMovieRatingStats(movieId);
+        assertEquals(5.5, stats.getAverageRating());
+        assertEquals(2, stats.getTotalRatings());
+        assertEquals(1L, ratingService.getMovieRatingHistogram(movieId).getDistribution().get(9));
+        assertEquals(1L, ratingService.getMovieRatingHistogram(movieId).getDistribution().get(2));
+    }
+
+    @Test
+    void upsertAll_shouldCreateAndUpdateRatingsAndKeepMovieAggregatesConsistent() {
+        UUID userId = UUID.randomUUID();
+        UUID movie1 = UUID.randomUUID();
+        UUID movie2 = UUID.randomUUID();
+        ratingService.upsert(RatingRequest.builder().userId(userId).movieId(movie1).rating(2).build());
+
+        RatingBatchResponse response = ratingService.upsertAll(List.of(
+                RatingRequest.builder().userId(userId).movieId(movie1).rating(10).build(),
+                RatingRequest.builder().userId(userId).movieId(movie2).rating(4).build(),
+                RatingRequest.builder().userId(UUID.randomUUID()).movieId(movie2).rating(8).build(),
+                RatingRequest.builder().userId(UUID.randomUUID()).movieId(movie2).rating(0).build()
+        ));
+
+        assertEquals(2, response.getCreated());
+        assertEquals(1, response.getUpdated());
+        assertEquals(1, response.getRejected());
+        assertEquals(3, ratingRepository.count());
+        assertEquals(10, ratingService.findByUserIdAndMovieId(userId, movie1).getRating());
+
+        MovieRatingStatsResponse movie1Stats = ratingService.getMovieRatingStats(movie1);
+        assertEquals(10.0, movie1Stats.getAverageRating());
+        assertEquals(1, movie1Stats.getTotalRatings());
+        MovieRatingStatsResponse movie2Stats = ratingService.getMovieRatingStats(movie2);
+        assertEquals(6.0, movie2Stats.getAverageRating());
+        assertEquals(2, movie2Stats.getTotalRatings());
+    }
+
+    @Test
+    void upsertAll_withManyUsersAcrossStatementChunks_shouldWriteExactlyTheRequestedPairs() {
+        UUID movieId = UUID.randomUUID();
+        UUID otherMovieId = UUID.randomUUID();
+        List<UUID> userIds = new ArrayList<>();
+        List<RatingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            UUID userId = UUID.randomUUID();
+            userIds.add(userId);
+            requests.add(RatingRequest.builder().userId(userId).movieId(movieId).rating(i % 10 + 1).build());
+        }
+        ratingService.upsert(RatingRequest.builder().userId(userIds.get(0)).movieId(otherMovieId).rating(3).build());
+        ratingService.upsert(RatingRequest.builder().userId(userIds.get(1)).movieId(movieId).rating(2).build());
+        requests.add(RatingRequest.builder().userId(userIds.get(1)).movieId(movieId).rating(10).build());
+
+        RatingBatchResponse response = ratingService.upsertAll(requests);
+
+        assertEquals(249, response.getCreated());
+        assertEquals(2, response.getUpdated());
+        assertEquals(251, ratingRepository.count());
+        assertEquals(10, ratingService.findByUserIdAndMovieId(userIds.get(1), movieId).getRating());
+        assertEquals(3, ratingService.findByUserIdAndMovieId(userIds.get(0), otherMovieId).getRating());
+        MovieRatingAggregate aggregate = movieRatingAggregateRepository.findById(movieId).orElseThrow();
+        assertEquals(250, aggregate.getRatingsCount());
+        assertEquals(1375 - 2 + 10, aggregate.getRatingsSum());
+    }
+
+    @Test
+    void upsertRating_whenSamePairIsUpdatedConcurrently_shouldNotFailAndKeepAggregateConsistent() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        ratingService.upsert(RatingRequest.builder().userId(userId).movieId(movieId).rating(5).build());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Rating>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 32; i++) {
+                int rating = i % 10 + 1;
+                futures.add(executor.submit(() -> ratingService.upsert(RatingRequest.builder()
+                        .userId(userId)
+                        .movieId(movieId)
+                        .rating(rating)
+                        .build())));
+            }
+            for (Future<Rating> future : futures) {
+                assertNotNull(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Rating stored = ratingService.findByUserIdAndMovieId(userId, movieId);
+        MovieRatingAggregate aggregate = movieRatingAggregateRepository.findById(movieId).orElseThrow();
+        assertEquals(1, ratingRepository.count());
+        assertEquals(1, aggregate.getRatingsCount());
+        assertEquals(stored.getRating(), aggregate.getRatingsSum());
+    }
 }
@@ -0,0 +1,89 @@
+package app.popdratingsvc.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GradientConcurrencyLimitUTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final ConcurrencyLimitProperties properties =
+            new ConcurrencyLimitProperties(true, 20, 20, 4, 100, 0.5, 1.5, 0.2, 10, Duration.ofSeconds(1));
+
+    @Test
+    void whenLimitIsReached_thenRejectUntilReleased() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(4, properties);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limit.tryAcquire(1.0));
+        }
+        assertFalse(limit.tryAcquire(1.0));
+        limit.release();
+        assertTrue(limit.tryAcquire(1.0));
+        assertEquals(4, limit.getInFlight());
+    }
+
+    @Test
+    void whenBulkShareIsUsedUp_thenRejectBulkButAdmitOthers() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(4, properties);
+
+        assertTrue(limit.tryAcquire(0.5));
+        assertTrue(limit.tryAcquire(0.5));
+        assertFalse(limit.tryAcquire(0.5));
+        assertTrue(limit.tryAcquire(1.0));
+    }
+
+    @Test
+    void whenLatencyStaysFlatUnderLoad_thenGrowLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, properties);
+
+        runWindows(limit, 20, 10 * MILLIS, 5);
+
+        assertTrue(limit.getLimit() > 20, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void whenLatencyRisesUnderLoad_thenShrinkLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, properties);
+        runWindows(limit, 20, 10 * MILLIS, 1);
+        int before = limit.getLimit();
+
+        runWindows(limit, before, 40 * MILLIS, 1);
+        assertTrue(limit.getLimit() < before, "limit " + limit.getLimit());
+
+        runWindows(limit, properties.maxLimit(), 200 * MILLIS, 50);
+        assertTrue(limit.getLimit() < before / 2, "limit " + limit.getLimit());
+    }
+
+    @Test
+    void whenMostOfLimitIsIdle_thenKeepLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, properties);
+
+        runWindows(limit, 2, 10 * MILLIS, 5);
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    /**
+     * Completes {@code windows} sample windows, keeping up to {@code inFlight} requests open at each completion.
+     */
+    private void runWindows(GradientConcurrencyLimit limit, int inFlight, long latencyNanos, int windows) {
+        int held = 0;
+        while (held < inFlight && limit.tryAcquire(1.0)) {
+            held++;
+        }
+        for (int i = 0; i < windows * properties.windowSize() && held > 0; i++) {
+            limit.release(latencyNanos);
+            held--;
+            while (held < inFlight && limit.tryAcquire(1.0)) {
+                held++;
+            }
+        }
+        for (; held > 0; held--) {
+            limit.release();
+        }
+    }
+}
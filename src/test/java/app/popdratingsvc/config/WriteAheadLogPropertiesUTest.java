@@ -0,0 +1,34 @@
+package app.popdratingsvc.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadLogPropertiesUTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ValidationAutoConfiguration.class))
+            .withUserConfiguration(PropertiesConfiguration.class);
+
+    @Test
+    void whenApplyBatchSizeIsWithinTheBatchLimit_thenBind() {
+        contextRunner.withPropertyValues("ratings.write-ahead-log.apply-batch-size=1000")
+                .run(context -> assertEquals(1000, context.getBean(WriteAheadLogProperties.class).applyBatchSize()));
+    }
+
+    @Test
+    void whenApplyBatchSizeExceedsTheBatchLimit_thenFailStartup() {
+        contextRunner.withPropertyValues("ratings.write-ahead-log.apply-batch-size=1001")
+                .run(context -> assertNotNull(context.getStartupFailure()));
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(WriteAheadLogProperties.class)
+    static class PropertiesConfiguration {
+    }
+}
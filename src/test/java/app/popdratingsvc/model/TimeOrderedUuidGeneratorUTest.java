@@ -0,0 +1,58 @@
+package app.popdratingsvc.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedUuidGeneratorUTest {
+
+    @Test
+    void whenNext_thenReturnVersion7UuidWithCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeOrderedUuidGenerator.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before && timestamp <= after + 1);
+    }
+
+    @Test
+    void whenManyIdsGeneratedInTheSameMillisecond_thenIdsAreStrictlyIncreasingInByteOrder() {
+        List<UUID> uuids = Stream.generate(TimeOrderedUuidGenerator::next).limit(10_000).toList();
+
+        for (int i = 1; i < uuids.size(); i++) {
+            assertTrue(Arrays.compareUnsigned(bytes(uuids.get(i - 1)), bytes(uuids.get(i))) < 0,
+                    "id %d is not greater than its predecessor".formatted(i));
+        }
+    }
+
+    @Test
+    void whenGeneratedConcurrently_thenIdsAreUnique() {
+        ConcurrentLinkedQueue<UUID> uuids = new ConcurrentLinkedQueue<>();
+
+        IntStream.range(0, 8).parallel().forEach(thread -> {
+            for (int i = 0; i < 5_000; i++) {
+                uuids.add(TimeOrderedUuidGenerator.next());
+            }
+        });
+
+        Set<UUID> distinct = new HashSet<>(uuids);
+        assertEquals(40_000, distinct.size());
+    }
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+    }
+}
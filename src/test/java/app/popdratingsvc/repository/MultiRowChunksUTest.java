@@ -0,0 +1,35 @@
+package app.popdratingsvc.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiRowChunksUTest {
+
+    @Test
+    void whenRowsExceedTheLimit_thenFillFullChunksAndSplitTheTailIntoPowersOfTwo() {
+        List<Integer> rows = IntStream.range(0, 237).boxed().toList();
+
+        List<List<Integer>> chunks = MultiRowChunks.split(rows, 100);
+
+        assertEquals(List.of(100, 100, 32, 4, 1), chunks.stream().map(List::size).toList());
+        assertEquals(rows, chunks.stream().flatMap(List::stream).toList());
+    }
+
+    @Test
+    void whenSplittingEveryTailLength_thenOnlyEightChunkSizesAreUsed() {
+        Set<Integer> sizes = IntStream.rangeClosed(0, 1000)
+                .mapToObj(count -> MultiRowChunks.split(IntStream.range(0, count).boxed().toList(), 100))
+                .flatMap(List::stream)
+                .map(List::size)
+                .collect(Collectors.toSet());
+
+        assertEquals(Set.of(100, 64, 32, 16, 8, 4, 2, 1), sizes);
+        assertEquals(List.of(), MultiRowChunks.split(List.of(), 100));
+    }
+}
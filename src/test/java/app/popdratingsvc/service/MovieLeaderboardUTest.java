@@ -0,0 +1,181 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.model.MovieRatingAggregate;
+import app.popdratingsvc.repository.MovieRatingAggregateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieLeaderboardUTest {
+
+    @Mock
+    private MovieRatingAggregateRepository movieRatingAggregateRepository;
+
+    private MovieLeaderboard movieLeaderboard;
+
+    @BeforeEach
+    void setUp() {
+        movieLeaderboard = new MovieLeaderboard(movieRatingAggregateRepository, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void whenRebuilt_thenSingleTopRatingIsDampedBelowManyHighRatings() {
+        UUID oneTen = UUID.randomUUID();
+        UUID manyNines = UUID.randomUUID();
+        UUID manyFives = UUID.randomUUID();
+        when(movieRatingAggregateRepository.findAllForRebuild()).thenReturn(List.of(
+                aggregate(oneTen, 1, 10), aggregate(manyNines, 200, 1800), aggregate(manyFives, 200, 1000)));
+
+        movieLeaderboard.rebuild();
+
+        List<MovieLeaderboard.Entry> top = movieLeaderboard.top(3, 0);
+        assertEquals(List.of(manyNines, oneTen, manyFives), top.stream().map(MovieLeaderboard.Entry::movieId).toList());
+        double mean = (10 + 1800 + 1000) / 401.0;
+        assertEquals((10 * mean + 10) / 11, top.get(1).score(), 1e-9);
+        assertEquals(10.0, top.get(1).averageRating());
+    }
+
+    @Test
+    void whenTopWithMinVotes_thenSkipMoviesWithFewerRatingsAndHonourLimit() {
+        UUID oneTen = UUID.randomUUID();
+        UUID manyNines = UUID.randomUUID();
+        UUID manyFives = UUID.randomUUID();
+        when(movieRatingAggregateRepository.findAllForRebuild()).thenReturn(List.of(
+                aggregate(oneTen, 1, 10), aggregate(manyNines, 200, 1800), aggregate(manyFives, 200, 1000)));
+        movieLeaderboard.rebuild();
+
+        assertEquals(List.of(manyNines, manyFives), movieLeaderboard.top(5, 2).stream().map(MovieLeaderboard.Entry::movieId).toList());
+        assertEquals(List.of(manyNines), movieLeaderboard.top(1, 0).stream().map(MovieLeaderboard.Entry::movieId).toList());
+    }
+
+    @Test
+    void whenRatingsChange_thenRankingIsUpdatedIncrementally() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(movieRatingAggregateRepository.findAllForRebuild()).thenReturn(List.of());
+        movieLeaderboard.rebuild();
+
+        movieLeaderboard.onRatingChanged(event(first, null, 8));
+        movieLeaderboard.onRatingChanged(event(second, null, 6));
+        assertEquals(List.of(first, second), movieLeaderboard.top(10, 0).stream().map(MovieLeaderboard.Entry::movieId).toList());
+
+        movieLeaderboard.onRatingChanged(event(first, 8, 2));
+        assertEquals(List.of(second, first), movieLeaderboard.top(10, 0).stream().map(MovieLeaderboard.Entry::movieId).toList());
+
+        movieLeaderboard.onRatingChanged(event(second, 6, null));
+        List<MovieLeaderboard.Entry> top = movieLeaderboard.top(10, 0);
+        assertEquals(1, top.size());
+        assertEquals(first, top.get(0).movieId());
+        assertEquals(1, top.get(0).count());
+        assertEquals(2, top.get(0).sum());
+    }
+
+    @Test
+    void whenRebuildStartsBetweenACommitAndItsDelivery_thenWaitAndCountTheChangeOnce() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        when(movieRatingAggregateRepository.findAllForRebuild()).thenReturn(List.of(aggregate(movieId, 1, 8)));
+        TransactionSynchronizationManager.initSynchronization();
+        movieLeaderboard.onRatingChanged(event(movieId, null, 8));
+        TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+        synchronization.beforeCommit(false);
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(movieLeaderboard::rebuild);
+        assertThrows(TimeoutException.class, () -> rebuild.get(200, TimeUnit.MILLISECONDS));
+        synchronization.afterCommit();
+        synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        List<MovieLeaderboard.Entry> top = movieLeaderboard.top(10, 0);
+        assertEquals(1, top.size());
+        assertEquals(1, top.get(0).count());
+        assertEquals(8, top.get(0).sum());
+    }
+
+    @Test
+    void whenACommitArrivesWhileRebuildReads_thenApplyItOnTopOfTheSnapshot() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch snapshotRead = new CountDownLatch(1);
+        when(movieRatingAggregateRepository.findAllForRebuild()).thenAnswer(invocation -> {
+            reading.countDown();
+            snapshotRead.await();
+            return List.of(aggregate(movieId, 1, 4));
+        });
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(movieLeaderboard::rebuild);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> commit = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                movieLeaderboard.onRatingChanged(event(movieId, null, 8));
+                TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+                synchronization.beforeCommit(false);
+                synchronization.afterCommit();
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        assertThrows(TimeoutException.class, () -> commit.get(200, TimeUnit.MILLISECONDS));
+        snapshotRead.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        commit.get(5, TimeUnit.SECONDS);
+
+        List<MovieLeaderboard.Entry> top = movieLeaderboard.top(10, 0);
+        assertEquals(2, top.get(0).count());
+        assertEquals(12, top.get(0).sum());
+    }
+
+    @Test
+    void whenTransactionRollsBack_thenIgnoreItsChangesAndReleaseTheGate() {
+        UUID movieId = UUID.randomUUID();
+        when(movieRatingAggregateRepository.findAllForRebuild()).thenReturn(List.of());
+        TransactionSynchronizationManager.initSynchronization();
+        movieLeaderboard.onRatingChanged(event(movieId, null, 8));
+        TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+        synchronization.beforeCommit(false);
+
+        synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), movieLeaderboard::rebuild);
+        assertEquals(List.of(), movieLeaderboard.top(10, 0));
+    }
+
+    private static RatingChangedEvent event(UUID movieId, Integer previousRating, Integer rating) {
+        return new RatingChangedEvent(UUID.randomUUID(), movieId, previousRating, rating, LocalDateTime.now());
+    }
+
+    private static MovieRatingAggregate aggregate(UUID movieId, long count, long sum) {
+        return MovieRatingAggregate.builder()
+                .movieId(movieId)
+                .ratingsCount(count)
+                .ratingsSum(sum)
+                .build();
+    }
+}
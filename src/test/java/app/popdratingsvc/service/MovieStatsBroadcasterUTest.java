@@ -0,0 +1,241 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.config.StatsStreamProperties;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MovieStatsBroadcasterUTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Mock
+    private RatingService ratingService;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MovieStatsBroadcaster movieStatsBroadcaster;
+
+    @BeforeEach
+    void setUp() {
+        // Long intervals, so only the test triggers publishing.
+        movieStatsBroadcaster = new MovieStatsBroadcaster(ratingService, new ObjectMapper(),
+                new StatsStreamProperties(Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(30), Duration.ofSeconds(10), 4),
+                meterRegistry);
+        movieStatsBroadcaster.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (movieStatsBroadcaster.isRunning()) {
+            movieStatsBroadcaster.stop();
+        }
+    }
+
+    @Test
+    void whenWatchedMovieChangesManyTimes_thenReadItsStatsOncePerDebounceWindow() {
+        UUID watchedMovie = UUID.randomUUID();
+        UUID unwatchedMovie = UUID.randomUUID();
+        when(ratingService.getMovieRatingStats(anyCollection())).thenAnswer(invocation -> zeroStats(invocation.getArgument(0)));
+        movieStatsBroadcaster.subscribe(watchedMovie);
+        movieStatsBroadcaster.subscribe(watchedMovie);
+
+        for (int i = 0; i < 5; i++) {
+            movieStatsBroadcaster.onRatingChanged(new RatingChangedEvent(UUID.randomUUID(), watchedMovie, null, 7, NOW));
+            movieStatsBroadcaster.onRatingChanged(new RatingChangedEvent(UUID.randomUUID(), unwatchedMovie, null, 7, NOW));
+        }
+        movieStatsBroadcaster.publishChanges();
+        movieStatsBroadcaster.publishChanges();
+
+        // two initial reads on subscribe, one for the whole burst
+        verify(ratingService, times(3)).getMovieRatingStats(List.of(watchedMovie));
+        verify(ratingService, never()).getMovieRatingStats(List.of(unwatchedMovie));
+        assertEquals(2, meterRegistry.get("ratings.stats.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void whenNothingChanged_thenDoNotRead() {
+        movieStatsBroadcaster.publishChanges();
+
+        verify(ratingService, never()).getMovieRatingStats(anyCollection());
+    }
+
+    @Test
+    void whenStopped_thenRejectNewSubscribers() {
+        movieStatsBroadcaster.stop();
+
+        assertFalse(movieStatsBroadcaster.isRunning());
+        assertThrows(IllegalStateException.class, () -> movieStatsBroadcaster.subscribe(UUID.randomUUID()));
+    }
+
+    @Test
+    void whenClientWriteIsStuck_thenFailItsStreamAndFreeTheSenderThread() throws Exception {
+        movieStatsBroadcaster.stop();
+        movieStatsBroadcaster = new MovieStatsBroadcaster(ratingService, new ObjectMapper(),
+                new StatsStreamProperties(Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(30), Duration.ofMillis(50), 4),
+                meterRegistry);
+        movieStatsBroadcaster.start();
+        when(ratingService.getMovieRatingStats(anyCollection())).thenAnswer(invocation -> zeroStats(invocation.getArgument(0)));
+        SseEmitter emitter = movieStatsBroadcaster.subscribe(UUID.randomUUID());
+        StuckConnection connection = new StuckConnection();
+        connection.attachTo(emitter);
+
+        movieStatsBroadcaster.sendHeartbeats();
+        assertTrue(connection.writeBlocked.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        movieStatsBroadcaster.sendHeartbeats();
+
+        assertTrue(connection.writeReturned.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, connection.failure);
+        assertEquals(1, meterRegistry.get("ratings.stats.stream.dropped").counter().count());
+        assertEquals(0, meterRegistry.get("ratings.stats.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void whenAStuckWriteReturnsWhileItsClientIsDropped_thenDoNotInterruptTheSendersNextWrite() throws Exception {
+        movieStatsBroadcaster.stop();
+        // One sender thread, so the write for the next client runs on the thread that was stuck.
+        movieStatsBroadcaster = new MovieStatsBroadcaster(ratingService, new ObjectMapper(),
+                new StatsStreamProperties(Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(30), Duration.ofMillis(50), 1),
+                meterRegistry);
+        movieStatsBroadcaster.start();
+        when(ratingService.getMovieRatingStats(anyCollection())).thenAnswer(invocation -> zeroStats(invocation.getArgument(0)));
+        UUID slowMovie = UUID.randomUUID();
+        UUID nextMovie = UUID.randomUUID();
+        StuckConnection slow = new StuckConnection();
+        slow.attachTo(movieStatsBroadcaster.subscribe(slowMovie));
+        SseEmitter nextEmitter = movieStatsBroadcaster.subscribe(nextMovie);
+        StuckConnection next = new StuckConnection();
+        // The stuck write returns as the drop fails the stream, and the thread starts the next client's write
+        // before the drop would interrupt it. The next client is connected only then, so its initial event
+        // cannot occupy the only sender thread first.
+        slow.onFailure = () -> {
+            slow.release();
+            try {
+                next.attachTo(nextEmitter);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+            publishUntilWriteBlocks(nextMovie, next);
+        };
+
+        publishUntilWriteBlocks(slowMovie, slow);
+        Thread.sleep(100);
+        movieStatsBroadcaster.sendHeartbeats();
+
+        assertFalse(next.writeReturned.await(200, TimeUnit.MILLISECONDS));
+        assertInstanceOf(IOException.class, slow.failure);
+        assertNull(next.failure);
+        assertEquals(1, meterRegistry.get("ratings.stats.stream.dropped").counter().count());
+        next.release();
+    }
+
+    /**
+     * Publishes changes of the movie until its write blocks; with a single sender thread a publish is dropped
+     * while the thread is still busy and only retried by the next one.
+     */
+    private void publishUntilWriteBlocks(UUID movieId, StuckConnection connection) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        try {
+            while (!connection.writeBlocked.await(50, TimeUnit.MILLISECONDS)) {
+                assertTrue(System.nanoTime() < deadline, "No write to the client started");
+                movieStatsBroadcaster.onRatingChanged(new RatingChangedEvent(UUID.randomUUID(), movieId, null, 7, NOW));
+                movieStatsBroadcaster.publishChanges();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Interrupted while waiting for a write to the client");
+        }
+    }
+
+    private static Map<UUID, MovieRatingStatsResponse> zeroStats(Collection<UUID> movieIds) {
+        Map<UUID, MovieRatingStatsResponse> stats = new LinkedHashMap<>();
+        movieIds.forEach(movieId -> stats.put(movieId, MovieRatingStatsResponse.builder().totalRatings(0).build()));
+        return stats;
+    }
+
+    /**
+     * Connects an emitter to a client that stops reading: once attached, every write blocks until the thread
+     * is interrupted, as a write to a full socket buffer would until the connection is closed, or until
+     * {@link #release} lets the client read again.
+     */
+    private static final class StuckConnection implements InvocationHandler {
+
+        private final CountDownLatch writeBlocked = new CountDownLatch(1);
+        private final CountDownLatch writeReturned = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile boolean attached;
+        private volatile Throwable failure;
+        private volatile Runnable onFailure = () -> {
+        };
+
+        void release() {
+            released.countDown();
+        }
+
+        void attachTo(SseEmitter emitter) throws ClassNotFoundException {
+            Class<?> handlerType = Class.forName(ResponseBodyEmitter.class.getName() + "$Handler");
+            Object handler = Proxy.newProxyInstance(handlerType.getClassLoader(), new Class<?>[]{handlerType}, this);
+            // Flushes the initial stats event, which the subscription sent before there was a connection.
+            ReflectionTestUtils.invokeMethod(emitter, "initialize", handler);
+            attached = true;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "send" -> {
+                    if (attached) {
+                        writeBlocked.countDown();
+                        try {
+                            released.await();
+                        } catch (InterruptedException e) {
+                            writeReturned.countDown();
+                            throw new IOException("Write interrupted", e);
+                        }
+                    }
+                }
+                case "completeWithError" -> {
+                    failure = (Throwable) args[0];
+                    onFailure.run();
+                }
+                default -> {
+                }
+            }
+            return null;
+        }
+    }
+}
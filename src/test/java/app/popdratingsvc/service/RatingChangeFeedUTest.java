@@ -0,0 +1,262 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.config.ChangeFeedProperties;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.exception.CursorExpiredException;
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.model.RatingChange;
+import app.popdratingsvc.repository.RatingChangeRepository;
+import app.popdratingsvc.repository.RatingChangeRow;
+import app.popdratingsvc.web.dto.RatingChangeResponse;
+import app.popdratingsvc.web.dto.RatingChangesResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RatingChangeFeedUTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Mock
+    private RatingChangeRepository ratingChangeRepository;
+
+    private RatingChangeFeed ratingChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        ratingChangeFeed = new RatingChangeFeed(ratingChangeRepository,
+                new ChangeFeedProperties(Duration.ofDays(7), Duration.ofHours(1), Duration.ofSeconds(25), Duration.ofSeconds(5)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (ratingChangeFeed.isRunning()) {
+            ratingChangeFeed.stop();
+        }
+    }
+
+    @Test
+    void whenTransactionCommits_thenAppendAllItsChangesOnceInPublishOrder() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        TransactionSynchronizationManager.initSynchronization();
+        List<RatingChange> appended = new ArrayList<>();
+        when(ratingChangeRepository.append(anyList())).thenAnswer(invocation -> {
+            appended.addAll(invocation.getArgument(0));
+            return 12L;
+        });
+
+        ratingChangeFeed.onRatingChanged(new RatingChangedEvent(userId, movieId, null, 4, NOW));
+        ratingChangeFeed.onRatingChanged(new RatingChangedEvent(userId, movieId, 4, null, NOW.plusSeconds(1)));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        verify(ratingChangeRepository, never()).append(anyList());
+        synchronizations.get(0).beforeCommit(false);
+
+        assertEquals(2, appended.size());
+        assertEquals(4, appended.get(0).getRating());
+        assertEquals(4, appended.get(1).getPreviousRating());
+        assertNull(appended.get(1).getRating());
+        assertEquals(movieId, appended.get(1).getMovieId());
+    }
+
+    @Test
+    void whenPublishedOutsideTransaction_thenThrow() {
+        assertThrows(IllegalStateException.class, () -> ratingChangeFeed.onRatingChanged(
+                new RatingChangedEvent(UUID.randomUUID(), UUID.randomUUID(), null, 4, NOW)));
+    }
+
+    @Test
+    void whenPageFollowsCursor_thenReturnItWithLastSequenceAsNextCursor() {
+        when(ratingChangeRepository.findPageAfter(10, Limit.of(100))).thenReturn(List.of(change(11), change(12)));
+
+        RatingChangesResponse page = ratingChangeFeed.getChanges(10, 100);
+
+        assertEquals(2, page.getChanges().size());
+        assertEquals(12, page.getNextCursor());
+    }
+
+    @Test
+    void whenCaughtUp_thenReturnEmptyPageWithSameCursor() {
+        when(ratingChangeRepository.findPageAfter(12, Limit.of(100))).thenReturn(List.of());
+
+        RatingChangesResponse page = ratingChangeFeed.getChanges(12, 100);
+
+        assertEquals(List.of(), page.getChanges());
+        assertEquals(12, page.getNextCursor());
+    }
+
+    @Test
+    void whenChangesAfterCursorWereCompacted_thenThrowCursorExpired() {
+        when(ratingChangeRepository.findCompactedThrough()).thenReturn(Optional.of(500L));
+        when(ratingChangeRepository.findPageAfter(10, Limit.of(100))).thenReturn(List.of(change(501)));
+        when(ratingChangeRepository.findPageAfter(500, Limit.of(100))).thenReturn(List.of(change(501)));
+        when(ratingChangeRepository.findPageAfter(600, Limit.of(100))).thenReturn(List.of());
+
+        assertThrows(CursorExpiredException.class, () -> ratingChangeFeed.getChanges(10, 100));
+        assertEquals(501, ratingChangeFeed.getChanges(500, 100).getNextCursor());
+        assertDoesNotThrow(() -> ratingChangeFeed.getChanges(600, 100));
+        when(ratingChangeRepository.findPageAfter(499, Limit.of(100))).thenReturn(List.of());
+        assertThrows(CursorExpiredException.class, () -> ratingChangeFeed.getChanges(499, 100));
+    }
+
+    @Test
+    void whenCursorIsZero_thenStartAtOldestRetainedChange() {
+        when(ratingChangeRepository.findCompactedThrough()).thenReturn(Optional.of(150L));
+        when(ratingChangeRepository.findPageAfter(0, Limit.of(100))).thenReturn(List.of(change(200)));
+
+        assertEquals(200, ratingChangeFeed.getChanges(0, 100).getNextCursor());
+    }
+
+    @Test
+    void whenGapIsRecent_thenHoldBackTheChangesAfterIt() {
+        when(ratingChangeRepository.findPageAfter(10, Limit.of(100)))
+                .thenReturn(List.of(change(11), recentChange(13), recentChange(14)));
+
+        RatingChangesResponse page = ratingChangeFeed.getChanges(10, 100);
+
+        assertEquals(List.of(11L), page.getChanges().stream().map(RatingChangeResponse::getSequence).toList());
+        assertEquals(11, page.getNextCursor());
+    }
+
+    @Test
+    void whenGapHasSettled_thenPassIt() {
+        when(ratingChangeRepository.findPageAfter(10, Limit.of(100)))
+                .thenReturn(List.of(change(11), change(13), recentChange(14), recentChange(16)));
+
+        RatingChangesResponse page = ratingChangeFeed.getChanges(10, 100);
+
+        assertEquals(List.of(11L, 13L, 14L), page.getChanges().stream().map(RatingChangeResponse::getSequence).toList());
+        assertEquals(14, page.getNextCursor());
+    }
+
+    @Test
+    void whenLimitOrCursorIsInvalid_thenThrowInvalidRequest() {
+        assertThrows(InvalidRequestException.class, () -> ratingChangeFeed.getChanges(-1, 100));
+        assertThrows(InvalidRequestException.class, () -> ratingChangeFeed.getChanges(0, 0));
+        assertThrows(InvalidRequestException.class, () -> ratingChangeFeed.getChanges(0, RatingChangeFeed.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void whenLongPollIsCaughtUp_thenCompleteAfterNextCommit() throws Exception {
+        ratingChangeFeed.start();
+        when(ratingChangeRepository.findPageAfter(12, Limit.of(100))).thenReturn(List.of()).thenReturn(List.of(recentChange(13)));
+        when(ratingChangeRepository.append(anyList())).thenReturn(13L);
+
+        CompletableFuture<RatingChangesResponse> result = ratingChangeFeed.awaitChanges(12, 100, Duration.ofSeconds(20));
+        assertFalse(result.isDone());
+        TransactionSynchronizationManager.initSynchronization();
+        ratingChangeFeed.onRatingChanged(new RatingChangedEvent(UUID.randomUUID(), UUID.randomUUID(), null, 8, NOW));
+        TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+        synchronization.beforeCommit(false);
+        synchronization.afterCommit();
+
+        assertEquals(13, result.get(5, TimeUnit.SECONDS).getNextCursor());
+    }
+
+    @Test
+    void whenCommitIsHeldBackByGap_thenKeepWaitingUntilTimeout() throws Exception {
+        ratingChangeFeed.start();
+        when(ratingChangeRepository.findPageAfter(12, Limit.of(100))).thenReturn(List.of()).thenReturn(List.of(recentChange(14)));
+        when(ratingChangeRepository.append(anyList())).thenReturn(14L);
+
+        CompletableFuture<RatingChangesResponse> result = ratingChangeFeed.awaitChanges(12, 100, Duration.ofMillis(500));
+        TransactionSynchronizationManager.initSynchronization();
+        ratingChangeFeed.onRatingChanged(new RatingChangedEvent(UUID.randomUUID(), UUID.randomUUID(), null, 8, NOW));
+        TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+        synchronization.beforeCommit(false);
+        synchronization.afterCommit();
+
+        verify(ratingChangeRepository, timeout(5_000).times(2)).findPageAfter(12, Limit.of(100));
+        assertFalse(result.isDone());
+        RatingChangesResponse page = result.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(), page.getChanges());
+        assertEquals(12, page.getNextCursor());
+    }
+
+    @Test
+    void whenLongPollTimesOut_thenCompleteWithEmptyPage() throws Exception {
+        ratingChangeFeed.start();
+        when(ratingChangeRepository.findPageAfter(12, Limit.of(100))).thenReturn(List.of());
+
+        CompletableFuture<RatingChangesResponse> result = ratingChangeFeed.awaitChanges(12, 100, Duration.ofMillis(50));
+
+        RatingChangesResponse page = result.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(), page.getChanges());
+        assertEquals(12, page.getNextCursor());
+    }
+
+    @Test
+    void whenCompacting_thenMarkAndDeleteThePrefixBeforeTheFirstRetainedChangeInBatches() {
+        when(ratingChangeRepository.findSequencesRecordedSince(any(), eq(Limit.of(1)))).thenReturn(List.of(25_001L));
+        when(ratingChangeRepository.findFirstSequence()).thenReturn(Optional.of(3L));
+        when(ratingChangeRepository.deleteBySequenceBetween(3, 10_002)).thenReturn(10_000);
+        when(ratingChangeRepository.deleteBySequenceBetween(10_003, 20_002)).thenReturn(10_000);
+        when(ratingChangeRepository.deleteBySequenceBetween(20_003, 25_000)).thenReturn(4_998);
+
+        assertEquals(24_998, ratingChangeFeed.compact());
+        InOrder inOrder = inOrder(ratingChangeRepository);
+        inOrder.verify(ratingChangeRepository).markCompactedThrough(25_000);
+        inOrder.verify(ratingChangeRepository).deleteBySequenceBetween(3, 10_002);
+    }
+
+    @Test
+    void whenEveryChangeIsExpired_thenDeleteThroughTheLastOne() {
+        when(ratingChangeRepository.findSequencesRecordedSince(any(), eq(Limit.of(1)))).thenReturn(List.of());
+        when(ratingChangeRepository.findLastSequence()).thenReturn(Optional.of(40L));
+        when(ratingChangeRepository.findFirstSequence()).thenReturn(Optional.of(3L));
+        when(ratingChangeRepository.deleteBySequenceBetween(3, 40)).thenReturn(38);
+
+        assertEquals(38, ratingChangeFeed.compact());
+        verify(ratingChangeRepository).markCompactedThrough(40);
+    }
+
+    @Test
+    void whenNothingIsExpired_thenDeleteNothing() {
+        when(ratingChangeRepository.findSequencesRecordedSince(any(), eq(Limit.of(1)))).thenReturn(List.of(3L));
+        when(ratingChangeRepository.findFirstSequence()).thenReturn(Optional.of(3L));
+
+        assertEquals(0, ratingChangeFeed.compact());
+        verify(ratingChangeRepository, never()).markCompactedThrough(anyLong());
+        verify(ratingChangeRepository, never()).deleteBySequenceBetween(anyLong(), anyLong());
+    }
+
+    private static RatingChangeRow change(long sequence) {
+        return new RatingChangeRow(sequence, UUID.randomUUID(), UUID.randomUUID(), null, 5, NOW, NOW);
+    }
+
+    private static RatingChangeRow recentChange(long sequence) {
+        return new RatingChangeRow(sequence, UUID.randomUUID(), UUID.randomUUID(), null, 5, NOW, LocalDateTime.now());
+    }
+}
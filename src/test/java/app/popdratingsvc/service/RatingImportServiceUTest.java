@@ -0,0 +1,146 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.web.dto.RatingBatchItemResponse;
+import app.popdratingsvc.web.dto.RatingBatchItemStatus;
+import app.popdratingsvc.web.dto.RatingBatchResponse;
+import app.popdratingsvc.web.dto.RatingImportErrorResponse;
+import app.popdratingsvc.web.dto.RatingImportResponse;
+import app.popdratingsvc.web.dto.RatingRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RatingImportServiceUTest {
+
+    @Mock
+    private RatingService ratingService;
+
+    private RatingImportService ratingImportService;
+
+    @BeforeEach
+    void setUp() {
+        ratingImportService = new RatingImportService(ratingService, Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    @Test
+    void whenImportNdjson_thenUpsertInBatchesAndCheckpointLastLine() {
+        when(ratingService.upsertAll(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        String body = ndjsonLines(2500);
+
+        RatingImportResponse response = ratingImportService.importRatings("ndjson", 0, stream(body));
+
+        assertTrue(response.isCompleted());
+        assertEquals(2500, response.getLinesRead());
+        assertEquals(2500, response.getCreated());
+        assertEquals(0, response.getRejected());
+        assertEquals(2500, response.getCheckpointLine());
+        verify(ratingService, times(2)).upsertAll(argThat(batch -> batch.size() == RatingImportService.IMPORT_BATCH_SIZE));
+        verify(ratingService).upsertAll(argThat(batch -> batch.size() == 500));
+    }
+
+    @Test
+    void whenImportCsvWithInvalidLines_thenReportLineErrorsAndWriteValidRows() {
+        when(ratingService.upsertAll(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        String body = """
+                id,userId,movieId,rating
+                x,%s,%s,7
+                x,not-a-uuid,%s,7
+
+                x,%s,%s,11
+                x,%s,%s
+                """.formatted(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        RatingImportResponse response = ratingImportService.importRatings("csv", 0, stream(body));
+
+        assertTrue(response.isCompleted());
+        assertEquals(1, response.getCreated());
+        assertEquals(3, response.getRejected());
+        assertEquals(6, response.getCheckpointLine());
+        assertEquals(List.of(3L, 5L, 6L), response.getErrors().stream().map(RatingImportErrorResponse::getLine).toList());
+        assertEquals("Malformed csv line", response.getErrors().get(0).getMessage());
+        assertEquals("Rating must be between 1 and 10", response.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    void whenResumeAfterLine_thenSkipLinesUpToCheckpoint() {
+        when(ratingService.upsertAll(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+
+        RatingImportResponse response = ratingImportService.importRatings("ndjson", 1500, stream(ndjsonLines(2500)));
+
+        assertEquals(1000, response.getCreated());
+        assertEquals(2500, response.getCheckpointLine());
+        verify(ratingService).upsertAll(argThat(batch -> batch.size() == 1000));
+    }
+
+    @Test
+    void whenWriterFails_thenStopAndReturnLastCommittedCheckpoint() {
+        when(ratingService.upsertAll(anyList()))
+                .thenAnswer(invocation -> created(invocation.getArgument(0)))
+                .thenThrow(new IllegalStateException("database unavailable"));
+
+        RatingImportResponse response = ratingImportService.importRatings("ndjson", 0, stream(ndjsonLines(10000)));
+
+        assertFalse(response.isCompleted());
+        assertEquals(1000, response.getCreated());
+        assertEquals(1000, response.getCheckpointLine());
+        assertEquals("Import failed after line 1000: database unavailable", response.getFailureMessage());
+        verify(ratingService, times(2)).upsertAll(anyList());
+    }
+
+    @Test
+    void whenCsvHeaderMissesColumns_thenThrowInvalidRequestExceptionBeforeWriting() {
+        assertThrows(InvalidRequestException.class,
+                () -> ratingImportService.importRatings("csv", 0, stream("userId,movieId\n")));
+        assertThrows(InvalidRequestException.class,
+                () -> ratingImportService.importRatings("xml", 0, stream("")));
+        assertThrows(InvalidRequestException.class,
+                () -> ratingImportService.importRatings("ndjson", -1, stream("")));
+        verify(ratingService, never()).upsertAll(any());
+    }
+
+    private static String ndjsonLines(int count) {
+        StringBuilder body = new StringBuilder();
+        IntStream.range(0, count).forEach(i -> body.append("""
+                {"userId":"%s","movieId":"%s","rating":%d}
+                """.formatted(UUID.randomUUID(), UUID.randomUUID(), i % 10 + 1)));
+        return body.toString();
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static RatingBatchResponse created(List<RatingRequest> ratingRequests) {
+        List<RatingBatchItemResponse> results = new ArrayList<>();
+        for (int i = 0; i < ratingRequests.size(); i++) {
+            results.add(RatingBatchItemResponse.builder()
+                    .index(i)
+                    .status(RatingBatchItemStatus.CREATED)
+                    .build());
+        }
+        return RatingBatchResponse.builder()
+                .created(ratingRequests.size())
+                .results(results)
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package app.popdratingsvc.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingLogEntryUTest {
+
+    @Test
+    void whenEncodedEntryIsDecoded_thenReturnSameEntry() {
+        RatingLogEntry entry = new RatingLogEntry(42, UUID.randomUUID(), UUID.randomUUID(), 7, Instant.ofEpochMilli(1_700_000_000_000L));
+
+        RatingLogEntry decoded = RatingLogEntry.decode(entry.encode().strip());
+
+        assertEquals(entry, decoded);
+    }
+
+    @Test
+    void whenLineIsTornByACrash_thenDecodeReturnsNull() {
+        String line = new RatingLogEntry(1, UUID.randomUUID(), UUID.randomUUID(), 7, Instant.now()).encode().strip();
+
+        assertNull(RatingLogEntry.decode(line.substring(0, line.length() - 3)));
+        assertNull(RatingLogEntry.decode(line.substring(0, 20)));
+        assertNull(RatingLogEntry.decode(""));
+    }
+
+    @Test
+    void whenLineIsCorrupted_thenChecksumMismatchMakesDecodeReturnNull() {
+        String line = new RatingLogEntry(1, UUID.randomUUID(), UUID.randomUUID(), 7, Instant.now()).encode().strip();
+
+        assertNull(RatingLogEntry.decode(line.replaceFirst(",7,", ",8,")));
+    }
+}
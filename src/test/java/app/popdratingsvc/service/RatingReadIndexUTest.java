@@ -0,0 +1,405 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.config.ReadIndexProperties;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.model.MovieRatingAggregate;
+import app.popdratingsvc.repository.MovieRatingAggregateRepository;
+import app.popdratingsvc.repository.RatingHistoryRow;
+import app.popdratingsvc.repository.RatingRepository;
+import app.popdratingsvc.web.dto.RatingResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RatingReadIndexUTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 12, 0, 30, 123_456_000);
+    private static final Limit PAGE = Limit.of(RatingRepository.INDEX_PAGE_SIZE);
+
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @Mock
+    private MovieRatingAggregateRepository movieRatingAggregateRepository;
+
+    @TempDir
+    private Path directory;
+
+    private RatingReadIndex ratingReadIndex;
+
+    private final Map<List<UUID>, LocalDateTime> createdOn = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ratingReadIndex = index(true, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void whenRatingIsCreatedAndUpdated_thenFindReturnsLatestValueWithCreationTimeKept() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+
+        change(ratingReadIndex, new RatingChangedEvent(userId, movieId, null, 4, BASE));
+        change(ratingReadIndex, new RatingChangedEvent(userId, movieId, 4, 9, BASE.plusHours(1)));
+
+        RatingResponse rating = ratingReadIndex.find(userId, movieId).orElseThrow();
+        assertEquals(9, rating.getRating());
+        assertEquals(userId, rating.getUserId());
+        assertEquals(movieId, rating.getMovieId());
+        assertEquals(BASE, rating.getCreatedOn());
+        assertEquals(BASE.plusHours(1), rating.getUpdatedOn());
+        assertEquals(1, ratingReadIndex.size());
+        assertEquals(Optional.empty(), ratingReadIndex.find(userId, UUID.randomUUID()));
+        assertEquals(Optional.empty(), ratingReadIndex.find(UUID.randomUUID(), movieId));
+    }
+
+    @Test
+    void whenRatingsChange_thenMovieTotalsFollowAndEmptyMoviesDisappear() {
+        UUID movieId = UUID.randomUUID();
+        UUID firstUser = UUID.randomUUID();
+        UUID secondUser = UUID.randomUUID();
+
+        change(ratingReadIndex, new RatingChangedEvent(firstUser, movieId, null, 6, BASE));
+        change(ratingReadIndex, new RatingChangedEvent(secondUser, movieId, null, 10, BASE));
+        change(ratingReadIndex, new RatingChangedEvent(firstUser, movieId, 6, 2, BASE));
+        assertEquals(new RatingReadIndex.MovieTotals(2, 12), ratingReadIndex.movieTotals(movieId).orElseThrow());
+
+        change(ratingReadIndex, new RatingChangedEvent(secondUser, movieId, 10, null, BASE));
+        assertEquals(new RatingReadIndex.MovieTotals(1, 2), ratingReadIndex.movieTotals(movieId).orElseThrow());
+
+        change(ratingReadIndex, new RatingChangedEvent(firstUser, movieId, 2, null, BASE));
+        assertEquals(Optional.empty(), ratingReadIndex.movieTotals(movieId));
+        assertEquals(0, ratingReadIndex.size());
+    }
+
+    @Test
+    void whenEventIsAppliedTwice_thenTotalsAreUnchanged() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        RatingChangedEvent created = new RatingChangedEvent(userId, movieId, null, 7, BASE);
+
+        change(ratingReadIndex, created);
+        change(ratingReadIndex, created);
+
+        assertEquals(new RatingReadIndex.MovieTotals(1, 7), ratingReadIndex.movieTotals(movieId).orElseThrow());
+    }
+
+    @Test
+    void whenLatest_thenReturnNewestFirstUpToLimit() {
+        UUID userId = UUID.randomUUID();
+        List<UUID> movieIds = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            UUID movieId = UUID.randomUUID();
+            movieIds.add(movieId);
+            change(ratingReadIndex, new RatingChangedEvent(userId, movieId, null, i % 10 + 1, BASE.plusMinutes(i)));
+        }
+        change(ratingReadIndex, new RatingChangedEvent(userId, movieIds.get(0), 1, 5, BASE.plusDays(1)));
+        change(ratingReadIndex, new RatingChangedEvent(UUID.randomUUID(), UUID.randomUUID(), null, 3, BASE.plusDays(2)));
+
+        List<RatingResponse> latest = ratingReadIndex.latest(userId, 20);
+
+        assertEquals(20, latest.size());
+        assertEquals(movieIds.get(0), latest.get(0).getMovieId());
+        assertEquals(movieIds.get(29), latest.get(1).getMovieId());
+        assertEquals(movieIds.get(11), latest.get(19).getMovieId());
+        assertEquals(List.of(), ratingReadIndex.latest(UUID.randomUUID(), 20));
+    }
+
+    @Test
+    void whenRatingsAreRemovedAndAdded_thenFreedRowsAreReused() {
+        UUID userId = UUID.randomUUID();
+        UUID removedMovie = UUID.randomUUID();
+        UUID keptMovie = UUID.randomUUID();
+        UUID newMovie = UUID.randomUUID();
+        change(ratingReadIndex, new RatingChangedEvent(userId, removedMovie, null, 3, BASE));
+        change(ratingReadIndex, new RatingChangedEvent(userId, keptMovie, null, 8, BASE));
+
+        change(ratingReadIndex, new RatingChangedEvent(userId, removedMovie, 3, null, BASE));
+        change(ratingReadIndex, new RatingChangedEvent(userId, newMovie, null, 1, BASE.plusMinutes(1)));
+
+        assertEquals(2, ratingReadIndex.size());
+        assertEquals(Optional.empty(), ratingReadIndex.find(userId, removedMovie));
+        assertEquals(8, ratingReadIndex.find(userId, keptMovie).orElseThrow().getRating());
+        assertEquals(1, ratingReadIndex.find(userId, newMovie).orElseThrow().getRating());
+        assertEquals(List.of(newMovie, keptMovie), ratingReadIndex.latest(userId, 20).stream().map(RatingResponse::getMovieId).toList());
+    }
+
+    @Test
+    void whenLoaded_thenReadAllPagesAndStartServing() {
+        UUID userId = UUID.randomUUID();
+        List<RatingHistoryRow> firstPage = new ArrayList<>();
+        for (int i = 0; i < RatingRepository.INDEX_PAGE_SIZE; i++) {
+            firstPage.add(new RatingHistoryRow(new UUID(0, i), i % 10 + 1, UUID.randomUUID(), UUID.randomUUID(), BASE, BASE));
+        }
+        UUID lastMovie = UUID.randomUUID();
+        Limit limit = Limit.of(RatingRepository.INDEX_PAGE_SIZE);
+        when(ratingRepository.findIndexPage(limit)).thenReturn(firstPage);
+        when(ratingRepository.findIndexPageAfter(new UUID(0, RatingRepository.INDEX_PAGE_SIZE - 1), limit))
+                .thenReturn(List.of(new RatingHistoryRow(UUID.randomUUID(), 6, userId, lastMovie, BASE, BASE)));
+        assertFalse(ratingReadIndex.isServing());
+
+        ratingReadIndex.afterSingletonsInstantiated();
+
+        assertTrue(ratingReadIndex.isServing());
+        assertEquals(RatingRepository.INDEX_PAGE_SIZE + 1, ratingReadIndex.size());
+        assertEquals(6, ratingReadIndex.find(userId, lastMovie).orElseThrow().getRating());
+    }
+
+    @Test
+    void whenDisabled_thenNeverLoadOrServe() {
+        RatingReadIndex disabled = index(false, null);
+
+        disabled.afterSingletonsInstantiated();
+        disabled.onRatingChanged(new RatingChangedEvent(UUID.randomUUID(), UUID.randomUUID(), null, 5, BASE));
+
+        assertFalse(disabled.isServing());
+        assertEquals(0, disabled.size());
+        verifyNoInteractions(ratingRepository);
+    }
+
+    @Test
+    void whenRestoredFromSnapshot_thenReplayOnlyRowsUpdatedSinceTheMarkMinusOverlap() {
+        Path snapshotFile = directory.resolve("read-index.snapshot");
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        UUID otherMovieId = UUID.randomUUID();
+        UUID removedMovieId = UUID.randomUUID();
+        RatingReadIndex written = index(true, snapshotFile);
+        when(ratingRepository.findIndexPage(PAGE)).thenReturn(List.of());
+        written.afterSingletonsInstantiated();
+        change(written, new RatingChangedEvent(userId, removedMovieId, null, 5, BASE));
+        change(written, new RatingChangedEvent(userId, movieId, null, 4, BASE));
+        change(written, new RatingChangedEvent(userId, otherMovieId, null, 8, BASE.plusHours(1)));
+        change(written, new RatingChangedEvent(userId, removedMovieId, 5, null, BASE.plusHours(1)));
+        written.writeSnapshot();
+
+        LocalDateTime since = BASE.plusHours(1).minusMinutes(1);
+        when(ratingRepository.findIndexPageUpdatedSince(since, PAGE))
+                .thenReturn(List.of(new RatingHistoryRow(UUID.randomUUID(), 6, userId, movieId, BASE, BASE.plusHours(2))));
+        when(movieRatingAggregateRepository.findAllForRebuild()).thenReturn(List.of(aggregate(movieId, 1, 6), aggregate(otherMovieId, 1, 8)));
+        RatingReadIndex restored = index(true, snapshotFile);
+
+        restored.afterSingletonsInstantiated();
+
+        assertTrue(restored.isServing());
+        assertEquals(2, restored.size());
+        RatingResponse rating = restored.find(userId, movieId).orElseThrow();
+        assertEquals(6, rating.getRating());
+        assertEquals(BASE, rating.getCreatedOn());
+        assertEquals(new RatingReadIndex.MovieTotals(1, 8), restored.movieTotals(otherMovieId).orElseThrow());
+        assertEquals(Optional.empty(), restored.find(userId, removedMovieId));
+        assertEquals(List.of(movieId, otherMovieId), restored.latest(userId, 20).stream().map(RatingResponse::getMovieId).toList());
+        verify(ratingRepository, never()).findIndexRowsByMovieIdIn(any());
+    }
+
+    @Test
+    void whenRatingWasDeletedAfterSnapshot_thenReloadOnlyThatMovie() {
+        Path snapshotFile = directory.resolve("read-index.snapshot");
+        UUID movieId = UUID.randomUUID();
+        UUID untouchedMovieId = UUID.randomUUID();
+        UUID keptUser = UUID.randomUUID();
+        UUID deletedUser = UUID.randomUUID();
+        RatingReadIndex written = index(true, snapshotFile);
+        when(ratingRepository.findIndexPage(PAGE)).thenReturn(List.of(
+                new RatingHistoryRow(UUID.randomUUID(), 3, keptUser, movieId, BASE, BASE),
+                new RatingHistoryRow(UUID.randomUUID(), 9, deletedUser, movieId, BASE, BASE),
+                new RatingHistoryRow(UUID.randomUUID(), 7, keptUser, untouchedMovieId, BASE, BASE)));
+        written.afterSingletonsInstantiated();
+        written.writeSnapshot();
+
+        when(ratingRepository.findIndexPageUpdatedSince(any(), any())).thenReturn(List.of());
+        when(movieRatingAggregateRepository.findAllForRebuild()).thenReturn(List.of(aggregate(movieId, 1, 3), aggregate(untouchedMovieId, 1, 7)));
+        when(ratingRepository.findIndexRowsByMovieIdIn(List.of(movieId)))
+                .thenReturn(List.of(new RatingHistoryRow(UUID.randomUUID(), 3, keptUser, movieId, BASE, BASE)));
+        RatingReadIndex restored = index(true, snapshotFile);
+
+        restored.afterSingletonsInstantiated();
+
+        assertEquals(2, restored.size());
+        assertEquals(Optional.empty(), restored.find(deletedUser, movieId));
+        assertEquals(new RatingReadIndex.MovieTotals(1, 3), restored.movieTotals(movieId).orElseThrow());
+        assertEquals(new RatingReadIndex.MovieTotals(1, 7), restored.movieTotals(untouchedMovieId).orElseThrow());
+    }
+
+    @Test
+    void whenSnapshotIsCorrupt_thenFallBackToFullLoad() throws IOException {
+        Path snapshotFile = writeSnapshotWithOneRow();
+        flipByte(snapshotFile, Files.size(snapshotFile) - 1);
+        RatingReadIndex restored = index(true, snapshotFile);
+
+        restored.afterSingletonsInstantiated();
+
+        assertTrue(restored.isServing());
+        assertEquals(0, restored.size());
+        verify(ratingRepository, never()).findIndexPageUpdatedSince(any(), any());
+        verifyNoInteractions(movieRatingAggregateRepository);
+    }
+
+    @Test
+    void whenSnapshotHighWaterMarkIsCorrupt_thenFallBackToFullLoad() throws IOException {
+        Path snapshotFile = writeSnapshotWithOneRow();
+        // Last byte of the high-water mark at offset 16: a wrong mark would replay from the wrong point.
+        flipByte(snapshotFile, 23);
+        RatingReadIndex restored = index(true, snapshotFile);
+
+        restored.afterSingletonsInstantiated();
+
+        assertTrue(restored.isServing());
+        assertEquals(0, restored.size());
+        verify(ratingRepository, never()).findIndexPageUpdatedSince(any(), any());
+        verifyNoInteractions(movieRatingAggregateRepository);
+    }
+
+    @Test
+    void whenStopped_thenWriteFinalSnapshot() {
+        Path snapshotFile = directory.resolve("nested").resolve("read-index.snapshot");
+        RatingReadIndex index = index(true, snapshotFile);
+        when(ratingRepository.findIndexPage(PAGE)).thenReturn(List.of());
+        index.afterSingletonsInstantiated();
+        index.start();
+
+        index.stop();
+
+        assertFalse(index.isRunning());
+        assertTrue(Files.exists(snapshotFile));
+    }
+
+    @Test
+    void whenEventsOfOnePairArriveOutOfOrder_thenKeepTheLastCommittedRow() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        RatingHistoryRow committed = new RatingHistoryRow(UUID.randomUUID(), 9, userId, movieId, BASE, BASE.plusHours(1));
+        doReturn(Optional.of(committed)).when(ratingRepository).findIndexRow(userId, movieId);
+
+        ratingReadIndex.onRatingChanged(new RatingChangedEvent(userId, movieId, 4, 9, BASE.plusHours(1)));
+        ratingReadIndex.onRatingChanged(new RatingChangedEvent(userId, movieId, null, 4, BASE));
+
+        assertEquals(9, ratingReadIndex.find(userId, movieId).orElseThrow().getRating());
+        assertEquals(new RatingReadIndex.MovieTotals(1, 9), ratingReadIndex.movieTotals(movieId).orElseThrow());
+
+        doReturn(Optional.empty()).when(ratingRepository).findIndexRow(userId, movieId);
+
+        ratingReadIndex.onRatingChanged(new RatingChangedEvent(userId, movieId, 9, null, BASE.plusHours(2)));
+        ratingReadIndex.onRatingChanged(new RatingChangedEvent(userId, movieId, 4, 9, BASE.plusHours(1)));
+
+        assertEquals(Optional.empty(), ratingReadIndex.find(userId, movieId));
+        assertEquals(Optional.empty(), ratingReadIndex.movieTotals(movieId));
+    }
+
+    @Test
+    void whenOneTransactionChangesSeveralPairs_thenReReadThemWithOneQueryAfterCommit() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        UUID removedMovieId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        change(ratingReadIndex, new RatingChangedEvent(userId, removedMovieId, null, 3, BASE));
+        RatingHistoryRow first = new RatingHistoryRow(UUID.randomUUID(), 8, userId, movieId, BASE, BASE.plusHours(1));
+        RatingHistoryRow second = new RatingHistoryRow(UUID.randomUUID(), 5, otherUserId, movieId, BASE, BASE.plusHours(1));
+        doReturn(List.of(first, second)).when(ratingRepository).findIndexRows(
+                Map.of(userId, Set.of(movieId, removedMovieId), otherUserId, Set.of(movieId)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        ratingReadIndex.onRatingChanged(new RatingChangedEvent(userId, movieId, null, 8, BASE.plusHours(1)));
+        ratingReadIndex.onRatingChanged(new RatingChangedEvent(userId, removedMovieId, 3, null, BASE.plusHours(1)));
+        ratingReadIndex.onRatingChanged(new RatingChangedEvent(otherUserId, movieId, null, 5, BASE.plusHours(1)));
+        ratingReadIndex.onRatingChanged(new RatingChangedEvent(userId, movieId, 8, 8, BASE.plusHours(1)));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+        assertEquals(1, synchronizations.size());
+        assertTrue(ratingReadIndex.find(userId, removedMovieId).isPresent());
+
+        synchronizations.get(0).afterCommit();
+
+        assertEquals(8, ratingReadIndex.find(userId, movieId).orElseThrow().getRating());
+        assertEquals(Optional.empty(), ratingReadIndex.find(userId, removedMovieId));
+        assertEquals(new RatingReadIndex.MovieTotals(2, 13), ratingReadIndex.movieTotals(movieId).orElseThrow());
+        verify(ratingRepository).findIndexRows(any());
+        verify(ratingRepository, never()).findIndexRow(userId, movieId);
+    }
+
+    private Path writeSnapshotWithOneRow() {
+        Path snapshotFile = directory.resolve("read-index.snapshot");
+        RatingReadIndex written = index(true, snapshotFile);
+        when(ratingRepository.findIndexPage(PAGE)).thenReturn(List.of());
+        written.afterSingletonsInstantiated();
+        change(written, new RatingChangedEvent(UUID.randomUUID(), UUID.randomUUID(), null, 5, BASE));
+        written.writeSnapshot();
+        return snapshotFile;
+    }
+
+    private static void flipByte(Path file, long offset) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.seek(offset);
+            int value = randomAccessFile.read();
+            randomAccessFile.seek(offset);
+            randomAccessFile.write(value ^ 0xFF);
+        }
+    }
+
+    /**
+     * Delivers the event with the pair's row stubbed as the database holds it after that commit: created on its
+     * first rating, updated at the event's time, gone after a removal.
+     */
+    private void change(RatingReadIndex index, RatingChangedEvent event) {
+        List<UUID> pair = List.of(event.userId(), event.movieId());
+        if (event.rating() == null) {
+            createdOn.remove(pair);
+            doReturn(Optional.empty()).when(ratingRepository).findIndexRow(event.userId(), event.movieId());
+        } else {
+            LocalDateTime created = createdOn.computeIfAbsent(pair, key -> event.occurredOn());
+            doReturn(Optional.of(new RatingHistoryRow(UUID.randomUUID(), event.rating(), event.userId(), event.movieId(),
+                    created, event.occurredOn()))).when(ratingRepository).findIndexRow(event.userId(), event.movieId());
+        }
+        index.onRatingChanged(event);
+    }
+
+    private RatingReadIndex index(boolean enabled, Path snapshotFile) {
+        return new RatingReadIndex(ratingRepository, movieRatingAggregateRepository,
+                new ReadIndexProperties(enabled, snapshotFile, Duration.ofMinutes(10), Duration.ofMinutes(1)));
+    }
+
+    private static MovieRatingAggregate aggregate(UUID movieId, long count, long sum) {
+        return MovieRatingAggregate.builder()
+                .movieId(movieId)
+                .ratingsCount(count)
+                .ratingsSum(sum)
+                .build();
+    }
+}
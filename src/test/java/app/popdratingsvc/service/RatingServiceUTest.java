@@ -1,26 +1,54 @@
 package app.popdratingsvc.service;
 
+import app.popdratingsvc.event.MovieAggregatesRecomputedEvent;
+import app.popdratingsvc.event.RatingChangedEvent;
+import app.popdratingsvc.exception.InvalidRequestException;
 import app.popdratingsvc.exception.NotFoundException;
+import app.popdratingsvc.model.MovieRatingAggregate;
 import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.repository.MovieRatingAggregateRepository;
+import app.popdratingsvc.repository.MovieRatingDelta;
+import app.popdratingsvc.repository.MovieRatingValueCount;
+import app.popdratingsvc.repository.PreviousRating;
+import app.popdratingsvc.repository.RatingHistoryRow;
 import app.popdratingsvc.repository.RatingRepository;
+import app.popdratingsvc.repository.UserRatingVersionRepository;
+import app.popdratingsvc.web.dto.MovieRatingHistogramResponse;
+import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import app.popdratingsvc.web.dto.RatingBatchItemStatus;
+import app.popdratingsvc.web.dto.RatingBatchResponse;
+import app.popdratingsvc.web.dto.RatingHistoryResponse;
 import app.popdratingsvc.web.dto.RatingRequest;
 import app.popdratingsvc.web.dto.RatingResponse;
+import app.popdratingsvc.web.dto.TopMovieResponse;
+import app.popdratingsvc.web.dto.TrendingMovieResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.within;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +57,30 @@ public class RatingServiceUTest {
     @Mock
     private RatingRepository ratingRepository;
 
+    @Mock
+    private MovieRatingAggregateRepository movieRatingAggregateRepository;
+
+    @Mock
+    private UserRatingVersionRepository userRatingVersionRepository;
+
+    @Mock
+    private MovieLeaderboard movieLeaderboard;
+
+    @Mock
+    private TrendingMovies trendingMovies;
+
+    @Mock
+    private RatingReadIndex ratingReadIndex;
+
+    @Spy
+    private RatingCacheInvalidator ratingCacheInvalidator = new RatingCacheInvalidator(new NoOpCacheManager());
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private RatingService ratingService;
 
@@ -41,12 +93,16 @@ public class RatingServiceUTest {
                 .movieId(movieId)
                 .rating(5)
                 .build();
-        when(ratingRepository.findByUserIdAndMovieId(userId, movieId)).thenReturn(Optional.empty());
-        when(ratingRepository.save(any(Rating.class))).thenAnswer(invocation -> {
-            Rating rating = invocation.getArgument(0);
-            rating.setId(UUID.randomUUID());
-            return rating;
-        });
+        LocalDateTime now = LocalDateTime.now();
+        Rating createdRating = Rating.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .movieId(movieId)
+                .rating(5)
+                .createdOn(now)
+                .updatedOn(now)
+                .build();
+        when(ratingRepository.findByUserIdAndMovieId(userId, movieId)).thenReturn(Optional.of(createdRating));
 
         Rating result = ratingService.upsert(request);
 
@@ -55,8 +111,13 @@ public class RatingServiceUTest {
         assertEquals(userId, result.getUserId());
         assertEquals(movieId, result.getMovieId());
         assertThat(result.getCreatedOn()).isCloseTo(LocalDateTime.now(), within(2, ChronoUnit.SECONDS));
-        assertThat(result.getUpdatedOn()).isCloseTo(LocalDateTime.now(), within(2, ChronoUnit.SECONDS));
-        verify(ratingRepository).save(any(Rating.class));
+        verify(ratingRepository).upsert(any(UUID.class), eq(userId), eq(movieId), eq(5),
+                argThat(timestamp -> timestamp.isAfter(LocalDateTime.now().minusSeconds(2))));
+        verify(ratingRepository, never()).save(any());
+        verify(movieRatingAggregateRepository).applyDelta(movieId, new MovieRatingDelta().add(5));
+        verify(userRatingVersionRepository).increment(userId);
+        assertEquals(1.0, meterRegistry.get("ratings.upserts").tag("outcome", "created").counter().count());
+        assertEquals(0.0, meterRegistry.get("ratings.upserts").tag("outcome", "updated").counter().count());
     }
 
     @Test
@@ -69,24 +130,77 @@ public class RatingServiceUTest {
                 .movieId(movieId)
                 .rating(4)
                 .build();
-        Rating existingRating = Rating.builder()
+        Rating updatedRating = Rating.builder()
                 .id(ratingId)
                 .userId(userId)
                 .movieId(movieId)
-                .rating(3)
+                .rating(4)
+                .previousRating(3)
                 .createdOn(LocalDateTime.now().minusDays(1))
-                .updatedOn(LocalDateTime.now().minusDays(1))
+                .updatedOn(LocalDateTime.now())
                 .build();
-        when(ratingRepository.findByUserIdAndMovieId(userId, movieId)).thenReturn(Optional.of(existingRating));
-        when(ratingRepository.save(any(Rating.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(ratingRepository.findByUserIdAndMovieId(userId, movieId)).thenReturn(Optional.of(updatedRating));
 
         Rating result = ratingService.upsert(request);
 
         assertNotNull(result);
         assertEquals(ratingId, result.getId());
         assertEquals(4, result.getRating());
-        assertThat(result.getUpdatedOn()).isCloseTo(LocalDateTime.now(), within(2, ChronoUnit.SECONDS));
-        verify(ratingRepository).save(existingRating);
+        verify(ratingRepository).upsert(any(UUID.class), eq(userId), eq(movieId), eq(4), any(LocalDateTime.class));
+        verify(ratingRepository, never()).save(any());
+        verify(movieRatingAggregateRepository).applyDelta(movieId, new MovieRatingDelta().remove(3).add(4));
+        verify(userRatingVersionRepository).increment(userId);
+        assertEquals(1.0, meterRegistry.get("ratings.upserts").tag("outcome", "updated").counter().count());
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof RatingChangedEvent changed
+                && changed.userId().equals(userId) && changed.movieId().equals(movieId)
+                && changed.previousRating() == 3 && changed.rating() == 4));
+    }
+
+    @Test
+    void whenUpsertAll_thenUpsertRepeatedPairsInOrderAndApplyOneDeltaPerMovieFromReplacedValues() {
+        UUID userId = UUID.randomUUID();
+        UUID movie1 = UUID.randomUUID();
+        UUID movie2 = UUID.randomUUID();
+        List<RatingRequest> requests = List.of(
+                RatingRequest.builder().userId(userId).movieId(movie1).rating(8).build(),
+                RatingRequest.builder().userId(userId).movieId(movie2).rating(6).build(),
+                RatingRequest.builder().userId(userId).movieId(movie2).rating(9).build(),
+                RatingRequest.builder().userId(userId).movieId(movie2).rating(11).build(),
+                RatingRequest.builder().userId(null).movieId(movie2).rating(5).build()
+        );
+        when(ratingRepository.findPreviousRatings(Map.of(userId, Set.of(movie1, movie2)))).thenReturn(List.of(
+                new PreviousRating(userId, movie1, 3),
+                new PreviousRating(userId, movie2, null)));
+
+        RatingBatchResponse result = ratingService.upsertAll(requests);
+
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getUpdated());
+        assertEquals(2, result.getRejected());
+        assertEquals(RatingBatchItemStatus.UPDATED, result.getResults().get(0).getStatus());
+        assertEquals(RatingBatchItemStatus.CREATED, result.getResults().get(1).getStatus());
+        assertEquals(RatingBatchItemStatus.UPDATED, result.getResults().get(2).getStatus());
+        assertEquals(RatingBatchItemStatus.REJECTED, result.getResults().get(3).getStatus());
+        assertEquals(RatingBatchItemStatus.REJECTED, result.getResults().get(4).getStatus());
+        verify(ratingRepository, never()).findByUserIdAndMovieId(any(), any());
+        InOrder writes = inOrder(ratingRepository);
+        writes.verify(ratingRepository).upsertAll(argThat(ratings -> ratings.size() == 2
+                && ratings.get(0).getMovieId().equals(movie1) && ratings.get(0).getRating() == 8
+                && ratings.get(1).getMovieId().equals(movie2) && ratings.get(1).getRating() == 6));
+        writes.verify(ratingRepository).upsertAll(argThat(ratings -> ratings.size() == 1
+                && ratings.get(0).getMovieId().equals(movie2) && ratings.get(0).getRating() == 9));
+        verify(movieRatingAggregateRepository).applyDelta(movie1, new MovieRatingDelta().remove(3).add(8));
+        verify(movieRatingAggregateRepository).applyDelta(movie2, new MovieRatingDelta().add(9));
+        verify(userRatingVersionRepository, times(1)).increment(userId);
+    }
+
+    @Test
+    void whenUpsertAll_andBatchIsTooLarge_thenThrowInvalidRequestException() {
+        List<RatingRequest> requests = java.util.Collections.nCopies(1001,
+                RatingRequest.builder().userId(UUID.randomUUID()).movieId(UUID.randomUUID()).rating(5).build());
+
+        assertThrows(InvalidRequestException.class, () -> ratingService.upsertAll(requests));
+        verifyNoInteractions(ratingRepository);
     }
 
     @Test
@@ -115,6 +229,109 @@ public class RatingServiceUTest {
         when(ratingRepository.findByUserIdAndMovieId(userId, movieId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> ratingService.findByUserIdAndMovieId(userId, movieId));
+        assertEquals(1.0, meterRegistry.get("ratings.not.found").tag("lookup", "rating").counter().count());
+    }
+
+    @Test
+    void whenGetRating_andRatingExists_thenReturnProjection() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        RatingResponse response = new RatingResponse(6, userId, movieId, now, now);
+        when(ratingRepository.findResponseByUserIdAndMovieId(userId, movieId)).thenReturn(Optional.of(response));
+
+        RatingResponse result = ratingService.getRating(userId, movieId);
+
+        assertSame(response, result);
+        verify(ratingRepository, never()).findByUserIdAndMovieId(any(), any());
+    }
+
+    @Test
+    void whenGetRating_andReadIndexIsServing_thenAnswerFromIndexWithoutRepository() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        RatingResponse response = new RatingResponse(6, userId, movieId, now, now);
+        when(ratingReadIndex.isServing()).thenReturn(true);
+        when(ratingReadIndex.find(userId, movieId)).thenReturn(Optional.of(response));
+
+        assertSame(response, ratingService.getRating(userId, movieId));
+        when(ratingReadIndex.find(userId, movieId)).thenReturn(Optional.empty());
+        assertThrows(NotFoundException.class, () -> ratingService.getRating(userId, movieId));
+        verifyNoInteractions(ratingRepository);
+    }
+
+    @Test
+    void whenGetMovieRatingStats_andReadIndexIsServing_thenUseIndexTotals() {
+        UUID movieId = UUID.randomUUID();
+        when(ratingReadIndex.isServing()).thenReturn(true);
+        when(ratingReadIndex.movieTotals(movieId)).thenReturn(Optional.of(new RatingReadIndex.MovieTotals(4, 30)));
+
+        MovieRatingStatsResponse result = ratingService.getMovieRatingStats(movieId);
+
+        assertEquals(7.5, result.getAverageRating());
+        assertEquals(4, result.getTotalRatings());
+        verifyNoInteractions(movieRatingAggregateRepository);
+    }
+
+    @Test
+    void whenGetLatestRatingsByUserId_andReadIndexIsServing_thenUseIndex() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        when(ratingReadIndex.isServing()).thenReturn(true);
+        when(ratingReadIndex.latest(userId, 20)).thenReturn(List.of(new RatingResponse(3, userId, UUID.randomUUID(), now, now)));
+
+        List<RatingResponse> result = ratingService.getLatestRatingsByUserId(userId);
+
+        assertEquals(1, result.size());
+        verifyNoInteractions(ratingRepository);
+    }
+
+    @Test
+    void whenGetRating_andRatingDoesNotExist_thenThrowException() {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        when(ratingRepository.findResponseByUserIdAndMovieId(userId, movieId)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> ratingService.getRating(userId, movieId));
+        assertEquals(1.0, meterRegistry.get("ratings.not.found").tag("lookup", "rating").counter().count());
+    }
+
+    @Test
+    void whenGetRatingsForManyMovies_thenReturnOnlyRatedMoviesInRequestOrder() {
+        UUID userId = UUID.randomUUID();
+        UUID firstRated = UUID.randomUUID();
+        UUID unrated = UUID.randomUUID();
+        UUID secondRated = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        when(ratingRepository.findResponsesByUserIdAndMovieIdIn(eq(userId), any())).thenReturn(List.of(
+                new RatingResponse(3, userId, secondRated, now, now),
+                new RatingResponse(9, userId, firstRated, now, now)));
+
+        Map<UUID, RatingResponse> result = ratingService.getRatings(userId, List.of(firstRated, unrated, secondRated, firstRated));
+
+        assertEquals(List.of(firstRated, secondRated), List.copyOf(result.keySet()));
+        assertEquals(9, result.get(firstRated).getRating());
+        assertEquals(3, result.get(secondRated).getRating());
+        verify(ratingRepository).findResponsesByUserIdAndMovieIdIn(eq(userId),
+                argThat(ids -> ids.size() == 3 && ids.containsAll(List.of(firstRated, unrated, secondRated))));
+        verify(meterRegistry, never()).counter(eq("ratings.not.found"), any(String[].class));
+    }
+
+    @Test
+    void whenGetRatingsForManyMovies_andNoIds_thenReturnEmptyMapWithoutQuery() {
+        Map<UUID, RatingResponse> result = ratingService.getRatings(UUID.randomUUID(), List.of());
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(ratingRepository);
+    }
+
+    @Test
+    void whenGetRatingsForManyMovies_andTooManyIds_thenThrowInvalidRequestException() {
+        List<UUID> movieIds = java.util.stream.Stream.generate(UUID::randomUUID).limit(501).toList();
+
+        assertThrows(InvalidRequestException.class, () -> ratingService.getRatings(UUID.randomUUID(), movieIds));
+        verifyNoInteractions(ratingRepository);
     }
 
     @Test
@@ -132,6 +349,11 @@ public class RatingServiceUTest {
         ratingService.removeRating(userId, movieId);
 
         verify(ratingRepository).delete(rating);
+        verify(movieRatingAggregateRepository).applyDelta(movieId, new MovieRatingDelta().remove(5));
+        verify(userRatingVersionRepository).increment(userId);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof RatingChangedEvent changed
+                && changed.previousRating() == 5 && changed.rating() == null));
+        assertEquals(1.0, meterRegistry.get("ratings.deletes").counter().count());
     }
 
     @Test
@@ -142,17 +364,149 @@ public class RatingServiceUTest {
 
         assertThrows(NotFoundException.class, () -> ratingService.removeRating(userId, movieId));
         verify(ratingRepository, never()).delete(any());
+        verify(userRatingVersionRepository, never()).increment(any());
+    }
+
+    @Test
+    void whenGetMovieRatingStats_andAggregateExists_thenReturnStatsFromAggregate() {
+        UUID movieId = UUID.randomUUID();
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.of(aggregate(movieId, 4, 18)));
+
+        MovieRatingStatsResponse result = ratingService.getMovieRatingStats(movieId);
+
+        assertEquals(4.5, result.getAverageRating());
+        assertEquals(4, result.getTotalRatings());
+        verifyNoInteractions(ratingRepository);
+    }
+
+    @Test
+    void whenGetMovieRatingStats_andAggregateIsEmpty_thenThrowNotFoundException() {
+        UUID movieId = UUID.randomUUID();
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.of(aggregate(movieId, 0, 0)));
+
+        assertThrows(NotFoundException.class, () -> ratingService.getMovieRatingStats(movieId));
+    }
+
+    @Test
+    void whenGetMovieRatingStatsForManyMovies_thenReturnEntryForEveryRequestedMovie() {
+        UUID ratedMovie = UUID.randomUUID();
+        UUID emptiedMovie = UUID.randomUUID();
+        UUID unratedMovie = UUID.randomUUID();
+        List<UUID> movieIds = List.of(ratedMovie, emptiedMovie, unratedMovie);
+        when(movieRatingAggregateRepository.findAllById(any())).thenReturn(List.of(
+                aggregate(ratedMovie, 4, 30),
+                aggregate(emptiedMovie, 0, 0)));
+
+        Map<UUID, MovieRatingStatsResponse> result = ratingService.getMovieRatingStats(movieIds);
+
+        assertEquals(List.of(ratedMovie, emptiedMovie, unratedMovie), List.copyOf(result.keySet()));
+        assertEquals(7.5, result.get(ratedMovie).getAverageRating());
+        assertEquals(4, result.get(ratedMovie).getTotalRatings());
+        assertNull(result.get(emptiedMovie).getAverageRating());
+        assertEquals(0, result.get(emptiedMovie).getTotalRatings());
+        assertNull(result.get(unratedMovie).getAverageRating());
+        assertEquals(0, result.get(unratedMovie).getTotalRatings());
+        verify(movieRatingAggregateRepository).findAllById(argThat(ids -> ((java.util.Collection<UUID>) ids).size() == 3));
+    }
+
+    @Test
+    void whenGetMovieRatingStatsForManyMovies_andReadIndexIsServing_thenUseIndexTotalsLikeSingleMovieStats() {
+        UUID indexedMovie = UUID.randomUUID();
+        UUID unratedMovie = UUID.randomUUID();
+        when(ratingReadIndex.isServing()).thenReturn(true);
+        when(ratingReadIndex.movieTotals(indexedMovie)).thenReturn(Optional.of(new RatingReadIndex.MovieTotals(4, 30)));
+        when(ratingReadIndex.movieTotals(unratedMovie)).thenReturn(Optional.empty());
+
+        Map<UUID, MovieRatingStatsResponse> result = ratingService.getMovieRatingStats(List.of(indexedMovie, unratedMovie));
+
+        assertEquals(7.5, result.get(indexedMovie).getAverageRating());
+        assertEquals(0, result.get(unratedMovie).getTotalRatings());
+        verifyNoInteractions(movieRatingAggregateRepository);
+    }
+
+    @Test
+    void whenGetMovieRatingStatsAtVersion_thenReadAggregateEvenWhileReadIndexIsServing() {
+        UUID movieId = UUID.randomUUID();
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.of(aggregate(movieId, 4, 30)));
+
+        MovieRatingStatsResponse result = ratingService.getMovieRatingStats(movieId, 3L);
+
+        assertEquals(7.5, result.getAverageRating());
+        assertEquals(4, result.getTotalRatings());
+        verifyNoInteractions(ratingReadIndex);
+    }
+
+    @Test
+    void whenGetMovieRatingStatsForManyMovies_andIdIsNull_thenThrowInvalidRequestException() {
+        List<UUID> movieIds = java.util.Arrays.asList(UUID.randomUUID(), null);
+
+        assertThrows(InvalidRequestException.class, () -> ratingService.getMovieRatingStats(movieIds));
+        verifyNoInteractions(movieRatingAggregateRepository);
+    }
+
+    @Test
+    void whenGetMovieRatingStatsForManyMovies_andTooManyIds_thenThrowInvalidRequestException() {
+        List<UUID> movieIds = java.util.stream.Stream.generate(UUID::randomUUID).limit(501).toList();
+
+        assertThrows(InvalidRequestException.class, () -> ratingService.getMovieRatingStats(movieIds));
+        verifyNoInteractions(movieRatingAggregateRepository);
+    }
+
+    @Test
+    void whenGetTopMovies_thenReturnRankedEntriesFromLeaderboard() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(movieLeaderboard.top(2, 5)).thenReturn(List.of(
+                new MovieLeaderboard.Entry(first, 40, 360, 8.6),
+                new MovieLeaderboard.Entry(second, 10, 80, 7.5)));
+
+        List<TopMovieResponse> result = ratingService.getTopMovies(2, 5);
+
+        assertEquals(2, result.size());
+        assertEquals(1, result.get(0).getRank());
+        assertEquals(first, result.get(0).getMovieId());
+        assertEquals(8.6, result.get(0).getScore());
+        assertEquals(9.0, result.get(0).getAverageRating());
+        assertEquals(40, result.get(0).getTotalRatings());
+        assertEquals(2, result.get(1).getRank());
+        verifyNoInteractions(ratingRepository, movieRatingAggregateRepository);
+    }
+
+    @Test
+    void whenGetTopMovies_andLimitOutOfRange_thenThrowInvalidRequestException() {
+        assertThrows(InvalidRequestException.class, () -> ratingService.getTopMovies(0, 1));
+        assertThrows(InvalidRequestException.class, () -> ratingService.getTopMovies(101, 1));
+        assertThrows(InvalidRequestException.class, () -> ratingService.getTopMovies(10, -1));
+        verifyNoInteractions(movieLeaderboard);
+    }
+
+    @Test
+    void whenGetTrendingMovies_thenReturnRankedEntriesForWindow() {
+        UUID movieId = UUID.randomUUID();
+        when(trendingMovies.top(TrendingWindow.WEEK, 5)).thenReturn(List.of(new TrendingMovies.Entry(movieId, 4, 30)));
+
+        List<TrendingMovieResponse> result = ratingService.getTrendingMovies("Week", 5);
+
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0).getRank());
+        assertEquals(movieId, result.get(0).getMovieId());
+        assertEquals(4, result.get(0).getRatingsCount());
+        assertEquals(7.5, result.get(0).getAverageRating());
+        verifyNoInteractions(ratingRepository, movieRatingAggregateRepository);
+    }
+
+    @Test
+    void whenGetTrendingMovies_andWindowOrLimitInvalid_thenThrowInvalidRequestException() {
+        assertThrows(InvalidRequestException.class, () -> ratingService.getTrendingMovies("month", 10));
+        assertThrows(InvalidRequestException.class, () -> ratingService.getTrendingMovies("day", 0));
+        assertThrows(InvalidRequestException.class, () -> ratingService.getTrendingMovies("day", 101));
+        verifyNoInteractions(trendingMovies);
     }
 
     @Test
     void whenGetAverageRatingForAMovie_andRatingsExist_thenReturnAverage() {
         UUID movieId = UUID.randomUUID();
-        List<Rating> ratings = List.of(
-                Rating.builder().movieId(movieId).rating(5).build(),
-                Rating.builder().movieId(movieId).rating(4).build(),
-                Rating.builder().movieId(movieId).rating(3).build()
-        );
-        when(ratingRepository.findAllByMovieId(movieId)).thenReturn(ratings);
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.of(aggregate(movieId, 3, 12)));
 
         Double result = ratingService.getAverageRatingForAMovie(movieId);
 
@@ -162,7 +516,7 @@ public class RatingServiceUTest {
     @Test
     void whenGetAverageRatingForAMovie_andNoRatingsExist_thenThrowException() {
         UUID movieId = UUID.randomUUID();
-        when(ratingRepository.findAllByMovieId(movieId)).thenReturn(List.of());
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> ratingService.getAverageRatingForAMovie(movieId));
     }
@@ -170,11 +524,7 @@ public class RatingServiceUTest {
     @Test
     void whenGetAllRatingsForAMovieCount_andRatingsExist_thenReturnCount() {
         UUID movieId = UUID.randomUUID();
-        List<Rating> ratings = List.of(
-                Rating.builder().movieId(movieId).rating(5).build(),
-                Rating.builder().movieId(movieId).rating(4).build()
-        );
-        when(ratingRepository.findAllByMovieId(movieId)).thenReturn(ratings);
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.of(aggregate(movieId, 2, 9)));
 
         Integer result = ratingService.getAllRatingsForAMovieCount(movieId);
 
@@ -184,30 +534,97 @@ public class RatingServiceUTest {
     @Test
     void whenGetAllRatingsForAMovieCount_andNoRatingsExist_thenThrowNotFoundException() {
         UUID movieId = UUID.randomUUID();
-        when(ratingRepository.findAllByMovieId(movieId)).thenReturn(List.of());
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> ratingService.getAllRatingsForAMovieCount(movieId));
     }
 
+    @Test
+    void whenRecomputeMovieAggregate_andAggregateDrifted_thenOverwriteWithTotalsFromRatings() {
+        UUID movieId = UUID.randomUUID();
+        MovieRatingAggregate drifted = aggregate(movieId, 10, 10);
+        MovieRatingValueCount sevens = valueCount(movieId, 7, 1);
+        MovieRatingValueCount eights = valueCount(movieId, 8, 1);
+        when(ratingRepository.countRatingValuesForMovie(movieId)).thenReturn(List.of(sevens, eights));
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.of(drifted));
+
+        MovieRatingStatsResponse result = ratingService.recomputeMovieAggregate(movieId);
+
+        assertEquals(7.5, result.getAverageRating());
+        assertEquals(2, result.getTotalRatings());
+        assertArrayEquals(new long[]{0, 0, 0, 0, 0, 0, 1, 1, 0, 0}, drifted.getHistogram());
+        verify(movieRatingAggregateRepository).save(drifted);
+        verify(eventPublisher).publishEvent(new MovieAggregatesRecomputedEvent(movieId));
+    }
+
+    @Test
+    void whenGetMovieRatingHistogram_thenReturnDistributionMedianAndPercentilesFromBuckets() {
+        UUID movieId = UUID.randomUUID();
+        MovieRatingAggregate aggregate = aggregate(movieId, 10, 67);
+        aggregate.setHistogram(new long[]{1, 0, 0, 0, 1, 2, 2, 2, 1, 1});
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.of(aggregate));
+
+        MovieRatingHistogramResponse result = ratingService.getMovieRatingHistogram(movieId);
+
+        assertEquals(10, result.getTotalRatings());
+        assertEquals(10, result.getDistribution().size());
+        assertEquals(1L, result.getDistribution().get(1));
+        assertEquals(2L, result.getDistribution().get(6));
+        assertEquals(7.0, result.getMedian());
+        assertEquals(1, result.getPercentiles().get("p10"));
+        assertEquals(6, result.getPercentiles().get("p25"));
+        assertEquals(7, result.getPercentiles().get("p50"));
+        assertEquals(8, result.getPercentiles().get("p75"));
+        assertEquals(9, result.getPercentiles().get("p90"));
+    }
+
+    @Test
+    void whenGetMovieRatingHistogram_andEvenCountSplitsMiddle_thenMedianAveragesMiddleRatings() {
+        UUID movieId = UUID.randomUUID();
+        MovieRatingAggregate aggregate = aggregate(movieId, 2, 11);
+        aggregate.setHistogram(new long[]{0, 0, 1, 0, 0, 0, 0, 1, 0, 0});
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.of(aggregate));
+
+        MovieRatingHistogramResponse result = ratingService.getMovieRatingHistogram(movieId);
+
+        assertEquals(5.5, result.getMedian());
+    }
+
+    @Test
+    void whenGetMovieRatingHistogram_andNoRatingsExist_thenThrowNotFoundException() {
+        UUID movieId = UUID.randomUUID();
+        when(movieRatingAggregateRepository.findById(movieId)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> ratingService.getMovieRatingHistogram(movieId));
+    }
+
+    @Test
+    void whenUpsert_andRatingIsOutOfRange_thenThrowInvalidRequestException() {
+        RatingRequest request = RatingRequest.builder()
+                .userId(UUID.randomUUID())
+                .movieId(UUID.randomUUID())
+                .rating(11)
+                .build();
+
+        assertThrows(InvalidRequestException.class, () -> ratingService.upsert(request));
+        verifyNoInteractions(ratingRepository, movieRatingAggregateRepository);
+    }
+
     @Test
     void whenGetAllRatedMoviesCountByUser_andRatingsExist_thenReturnCount() {
         UUID userId = UUID.randomUUID();
-        List<Rating> ratings = List.of(
-                Rating.builder().userId(userId).movieId(UUID.randomUUID()).rating(5).build(),
-                Rating.builder().userId(userId).movieId(UUID.randomUUID()).rating(4).build(),
-                Rating.builder().userId(userId).movieId(UUID.randomUUID()).rating(3).build()
-        );
-        when(ratingRepository.findAllByUserId(userId)).thenReturn(ratings);
+        when(ratingRepository.countByUserId(userId)).thenReturn(3L);
 
         Integer result = ratingService.getAllRatedMoviesCountByUser(userId);
 
         assertEquals(3, result);
+        verify(ratingRepository, never()).findAllByUserId(any());
     }
 
     @Test
     void whenGetAllRatedMoviesCountByUser_andNoRatingsExist_thenThrowNotFoundException() {
         UUID userId = UUID.randomUUID();
-        when(ratingRepository.findAllByUserId(userId)).thenReturn(List.of());
+        when(ratingRepository.countByUserId(userId)).thenReturn(0L);
 
         assertThrows(NotFoundException.class, () -> ratingService.getAllRatedMoviesCountByUser(userId));
     }
@@ -216,11 +633,11 @@ public class RatingServiceUTest {
     void whenGetLatestRatingsByUserId_andRatingsExist_thenReturnLimitedRatingResponses() {
         UUID userId = UUID.randomUUID();
         LocalDateTime now = LocalDateTime.now();
-        List<Rating> ratings = List.of(
-                Rating.builder().userId(userId).movieId(UUID.randomUUID()).rating(5).createdOn(now).updatedOn(now).build(),
-                Rating.builder().userId(userId).movieId(UUID.randomUUID()).rating(4).createdOn(now).updatedOn(now).build()
+        List<RatingResponse> ratings = List.of(
+                new RatingResponse(5, userId, UUID.randomUUID(), now, now),
+                new RatingResponse(4, userId, UUID.randomUUID(), now, now)
         );
-        when(ratingRepository.findAllByUserIdOrderByUpdatedOnDesc(userId)).thenReturn(ratings);
+        when(ratingRepository.findLatestResponsesByUserId(userId, Limit.of(20))).thenReturn(ratings);
 
         List<RatingResponse> result = ratingService.getLatestRatingsByUserId(userId);
 
@@ -231,30 +648,104 @@ public class RatingServiceUTest {
     @Test
     void whenGetLatestRatingsByUserId_andNoRatingsExist_thenThrowNotFoundException() {
         UUID userId = UUID.randomUUID();
-        when(ratingRepository.findAllByUserIdOrderByUpdatedOnDesc(userId)).thenReturn(List.of());
+        when(ratingRepository.findLatestResponsesByUserId(userId, Limit.of(20))).thenReturn(List.of());
 
         assertThrows(NotFoundException.class, () -> ratingService.getLatestRatingsByUserId(userId));
     }
 
     @Test
-    void whenGetLatestRatingsByUserId_andMoreThan20RatingsExist_thenReturnOnly20() {
+    void whenGetLatestRatingsByUserIdAtVersion_thenQueryEvenWhileReadIndexIsServing() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        List<RatingResponse> ratings = List.of(new RatingResponse(5, userId, UUID.randomUUID(), now, now));
+        when(ratingRepository.findLatestResponsesByUserId(userId, Limit.of(20))).thenReturn(ratings);
+
+        List<RatingResponse> result = ratingService.getLatestRatingsByUserId(userId, 2L);
+
+        assertEquals(ratings, result);
+        verifyNoInteractions(ratingReadIndex);
+    }
+
+    @Test
+    void whenGetLatestRatingsByUserId_thenLimitIsPushedIntoTheQuery() {
         UUID userId = UUID.randomUUID();
         LocalDateTime now = LocalDateTime.now();
-        List<Rating> ratings = new java.util.ArrayList<>();
-        for (int i = 0; i < 25; i++) {
-            ratings.add(Rating.builder()
-                    .userId(userId)
-                    .movieId(UUID.randomUUID())
-                    .rating(i % 5 + 1)
-                    .createdOn(now)
-                    .updatedOn(now)
-                    .build());
+        List<RatingResponse> ratings = new java.util.ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ratings.add(new RatingResponse(i % 5 + 1, userId, UUID.randomUUID(), now, now));
         }
-        when(ratingRepository.findAllByUserIdOrderByUpdatedOnDesc(userId)).thenReturn(ratings);
+        when(ratingRepository.findLatestResponsesByUserId(userId, Limit.of(20))).thenReturn(ratings);
 
         List<RatingResponse> result = ratingService.getLatestRatingsByUserId(userId);
 
         assertNotNull(result);
         assertEquals(20, result.size());
+        verify(ratingRepository, never()).findAllByUserId(any());
+    }
+
+    @Test
+    void whenGetRatingHistory_andMoreRatingsThanPageSize_thenReturnPageWithNextCursor() {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        List<RatingHistoryRow> ratings = List.of(
+                new RatingHistoryRow(UUID.randomUUID(), 5, userId, UUID.randomUUID(), now, now),
+                new RatingHistoryRow(UUID.randomUUID(), 4, userId, UUID.randomUUID(), now, now.minusMinutes(1)),
+                new RatingHistoryRow(UUID.randomUUID(), 3, userId, UUID.randomUUID(), now, now.minusMinutes(2))
+        );
+        when(ratingRepository.findHistoryByUserId(userId, Limit.of(3))).thenReturn(ratings);
+
+        RatingHistoryResponse result = ratingService.getRatingHistory(userId, null, 2);
+
+        assertEquals(2, result.getRatings().size());
+        assertEquals(4, result.getRatings().get(1).getRating());
+        assertEquals("%s,%s".formatted(ratings.get(1).updatedOn(), ratings.get(1).id()), result.getNextCursor());
+    }
+
+    @Test
+    void whenGetRatingHistory_withCursor_thenQueryAfterCursorAndReturnLastPage() {
+        UUID userId = UUID.randomUUID();
+        UUID lastId = UUID.randomUUID();
+        LocalDateTime lastUpdatedOn = LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_000_000);
+        RatingHistoryRow rating = new RatingHistoryRow(UUID.randomUUID(), 7, userId, UUID.randomUUID(), lastUpdatedOn, lastUpdatedOn.minusDays(1));
+        when(ratingRepository.findHistoryByUserIdAfterCursor(userId, lastUpdatedOn, lastId, Limit.of(21))).thenReturn(List.of(rating));
+
+        RatingHistoryResponse result = ratingService.getRatingHistory(userId, "%s,%s".formatted(lastUpdatedOn, lastId), 20);
+
+        assertEquals(1, result.getRatings().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void whenGetRatingHistory_withMalformedCursor_thenThrowInvalidRequestException() {
+        UUID userId = UUID.randomUUID();
+
+        assertThrows(InvalidRequestException.class, () -> ratingService.getRatingHistory(userId, "yesterday,abc", 20));
+        assertThrows(InvalidRequestException.class, () -> ratingService.getRatingHistory(userId, "2024-05-01T10:15:30", 20));
+        verifyNoInteractions(ratingRepository);
+    }
+
+    @Test
+    void whenGetRatingHistory_withPageSizeOutOfRange_thenThrowInvalidRequestException() {
+        UUID userId = UUID.randomUUID();
+
+        assertThrows(InvalidRequestException.class, () -> ratingService.getRatingHistory(userId, null, 0));
+        assertThrows(InvalidRequestException.class, () -> ratingService.getRatingHistory(userId, null, 101));
+    }
+
+    private static MovieRatingAggregate aggregate(UUID movieId, long count, long sum) {
+        return MovieRatingAggregate.builder()
+                .movieId(movieId)
+                .ratingsCount(count)
+                .ratingsSum(sum)
+                .version(1L)
+                .build();
+    }
+
+    private static MovieRatingValueCount valueCount(UUID movieId, int rating, long count) {
+        MovieRatingValueCount valueCount = mock(MovieRatingValueCount.class);
+        lenient().when(valueCount.getMovieId()).thenReturn(movieId);
+        when(valueCount.getRating()).thenReturn(rating);
+        when(valueCount.getRatingsCount()).thenReturn(count);
+        return valueCount;
     }
 }
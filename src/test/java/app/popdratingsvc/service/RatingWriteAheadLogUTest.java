@@ -0,0 +1,115 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.config.WriteAheadLogProperties;
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.web.dto.RatingBatchItemResponse;
+import app.popdratingsvc.web.dto.RatingBatchItemStatus;
+import app.popdratingsvc.web.dto.RatingBatchResponse;
+import app.popdratingsvc.web.dto.RatingRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RatingWriteAheadLogUTest {
+
+    @Mock
+    private RatingService ratingService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Path directory;
+
+    private RatingWriteAheadLog ratingWriteAheadLog;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("ratings-wal");
+        // One-byte segments make every batch roll over to a new file, which fails while the directory is gone.
+        WriteAheadLogProperties properties = new WriteAheadLogProperties(true, directory, Duration.ofHours(1), 500,
+                DataSize.ofBytes(1), Duration.ofSeconds(5));
+        ratingWriteAheadLog = new RatingWriteAheadLog(properties, ratingService, meterRegistry);
+        ratingWriteAheadLog.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        ratingWriteAheadLog.stop();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void whenWritingTheLogFails_thenFailTheAppendAndKeepAcceptingLaterWrites() throws IOException {
+        ratingWriteAheadLog.append(request());
+        FileSystemUtils.deleteRecursively(directory);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IllegalStateException.class, () -> ratingWriteAheadLog.append(request())));
+
+        Files.createDirectories(directory);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> ratingWriteAheadLog.append(request()));
+        assertTrue(ratingWriteAheadLog.isRunning());
+    }
+
+    @Test
+    void whenTheDatabaseRejectsAnEntry_thenMoveItToTheDeadLetterFileAndApplyTheRest() throws IOException {
+        RatingRequest rejected = request();
+        // Stands in for an entry a later release no longer accepts: the batch holding it fails as a whole.
+        when(ratingService.upsertAll(anyList())).thenAnswer(invocation -> {
+            List<RatingRequest> requests = invocation.getArgument(0);
+            if (requests.contains(rejected)) {
+                throw new InvalidRequestException("Movie is no longer rated");
+            }
+            return created(requests);
+        });
+        ratingWriteAheadLog.append(request());
+        ratingWriteAheadLog.append(rejected);
+        ratingWriteAheadLog.append(request());
+
+        ratingWriteAheadLog.stop();
+
+        List<String> deadLetters = Files.readAllLines(directory.resolve("dead-letters"), StandardCharsets.UTF_8);
+        assertEquals(1, deadLetters.size());
+        RatingLogEntry deadLetter = RatingLogEntry.decode(deadLetters.get(0));
+        assertNotNull(deadLetter);
+        assertEquals(rejected, deadLetter.toRequest());
+        assertEquals(1.0, meterRegistry.get("ratings.wal.dead.letters").counter().count());
+        assertEquals("3", Files.readString(directory.resolve("checkpoint")));
+    }
+
+    private static RatingBatchResponse created(List<RatingRequest> requests) {
+        return RatingBatchResponse.builder()
+                .created(requests.size())
+                .results(IntStream.range(0, requests.size())
+                        .mapToObj(i -> RatingBatchItemResponse.builder().index(i).status(RatingBatchItemStatus.CREATED).build())
+                        .toList())
+                .build();
+    }
+
+    private static RatingRequest request() {
+        return RatingRequest.builder()
+                .userId(UUID.randomUUID())
+                .movieId(UUID.randomUUID())
+                .rating(7)
+                .build();
+    }
+}
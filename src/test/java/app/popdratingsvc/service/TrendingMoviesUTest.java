@@ -0,0 +1,133 @@
+package app.popdratingsvc.service;
+
+import app.popdratingsvc.event.RatingChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendingMoviesUTest {
+
+    private static final Instant START = Instant.parse("2026-03-02T12:00:00Z");
+
+    private MutableClock clock;
+    private TrendingMovies trendingMovies;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        trendingMovies = new TrendingMovies(3, clock);
+    }
+
+    @Test
+    void whenRatingsRecorded_thenRankByVolumeThenAverage() {
+        UUID busy = UUID.randomUUID();
+        UUID liked = UUID.randomUUID();
+        UUID disliked = UUID.randomUUID();
+        trendingMovies.record(busy, 5, START);
+        trendingMovies.record(busy, 7, START);
+        trendingMovies.record(busy, 6, START);
+        trendingMovies.record(liked, 9, START);
+        trendingMovies.record(disliked, 2, START);
+
+        List<TrendingMovies.Entry> top = trendingMovies.top(TrendingWindow.HOUR, 10);
+
+        assertEquals(List.of(busy, liked, disliked), top.stream().map(TrendingMovies.Entry::movieId).toList());
+        assertEquals(3, top.get(0).count());
+        assertEquals(6.0, top.get(0).averageRating());
+        assertEquals(List.of(busy), trendingMovies.top(TrendingWindow.HOUR, 1).stream().map(TrendingMovies.Entry::movieId).toList());
+    }
+
+    @Test
+    void whenTimePasses_thenOldBucketsRollOffEachWindow() {
+        UUID movieId = UUID.randomUUID();
+        trendingMovies.record(movieId, 8, START);
+        trendingMovies.record(movieId, 4, START.plus(Duration.ofMinutes(50)));
+
+        clock.advance(Duration.ofMinutes(65));
+        assertEquals(1, trendingMovies.top(TrendingWindow.HOUR, 10).get(0).count());
+        assertEquals(4.0, trendingMovies.top(TrendingWindow.HOUR, 10).get(0).averageRating());
+        assertEquals(2, trendingMovies.top(TrendingWindow.DAY, 10).get(0).count());
+
+        clock.advance(Duration.ofHours(2));
+        assertTrue(trendingMovies.top(TrendingWindow.HOUR, 10).isEmpty());
+        assertEquals(2, trendingMovies.top(TrendingWindow.WEEK, 10).get(0).count());
+
+        clock.advance(Duration.ofDays(1));
+        assertTrue(trendingMovies.top(TrendingWindow.DAY, 10).isEmpty());
+        assertEquals(12, trendingMovies.top(TrendingWindow.WEEK, 10).get(0).sum());
+
+        clock.advance(Duration.ofDays(7));
+        assertTrue(trendingMovies.top(TrendingWindow.WEEK, 10).isEmpty());
+    }
+
+    @Test
+    void whenMoreMoviesThanCapacity_thenLeastRecentlyRatedIsDropped() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        UUID fourth = UUID.randomUUID();
+        trendingMovies.record(first, 5, START);
+        trendingMovies.record(second, 5, START);
+        trendingMovies.record(third, 5, START);
+        trendingMovies.record(first, 5, START);
+
+        trendingMovies.record(fourth, 5, START);
+
+        List<UUID> tracked = trendingMovies.top(TrendingWindow.HOUR, 10).stream().map(TrendingMovies.Entry::movieId).toList();
+        assertEquals(3, tracked.size());
+        assertFalse(tracked.contains(second));
+        assertTrue(tracked.containsAll(List.of(first, third, fourth)));
+    }
+
+    @Test
+    void whenRatingChangedEvents_thenCountCreatesAndUpdatesButNotDeletes() {
+        UUID movieId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.ofInstant(START, ZoneOffset.UTC);
+
+        trendingMovies.onRatingChanged(new RatingChangedEvent(UUID.randomUUID(), movieId, null, 6, now));
+        trendingMovies.onRatingChanged(new RatingChangedEvent(UUID.randomUUID(), movieId, 6, 8, now));
+        trendingMovies.onRatingChanged(new RatingChangedEvent(UUID.randomUUID(), movieId, 8, null, now));
+
+        TrendingMovies.Entry entry = trendingMovies.top(TrendingWindow.HOUR, 10).get(0);
+        assertEquals(2, entry.count());
+        assertEquals(14, entry.sum());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
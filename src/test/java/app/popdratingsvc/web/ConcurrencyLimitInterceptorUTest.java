@@ -0,0 +1,77 @@
+package app.popdratingsvc.web;
+
+import app.popdratingsvc.config.GradientConcurrencyLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ConcurrencyLimitInterceptorUTest {
+
+    @Mock
+    private GradientConcurrencyLimit readLimit;
+
+    @Mock
+    private GradientConcurrencyLimit writeLimit;
+
+    private ConcurrencyLimitInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new ConcurrencyLimitInterceptor(readLimit, writeLimit, 0.5, Duration.ofSeconds(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void whenBulkRequestCompletes_thenReleaseItsPermitWithoutSamplingItsLatency() throws Exception {
+        when(readLimit.tryAcquire(0.5)).thenReturn(true);
+
+        complete(new MockHttpServletRequest("GET", "/api/v1/ratings/export"), handler("export"));
+
+        verify(readLimit).release();
+        verify(readLimit, never()).release(anyLong());
+    }
+
+    @Test
+    void whenSingleItemRequestCompletes_thenSampleItsLatency() throws Exception {
+        when(writeLimit.tryAcquire(1.0)).thenReturn(true);
+
+        complete(new MockHttpServletRequest("POST", "/api/v1/ratings"), handler("upsert"));
+
+        verify(writeLimit).release(anyLong());
+        verify(writeLimit, never()).release();
+    }
+
+    private void complete(MockHttpServletRequest request, HandlerMethod handler) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, response, handler));
+        interceptor.afterCompletion(request, response, handler, null);
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(name));
+    }
+
+    static class Endpoints {
+
+        @ConcurrencyClass(write = false, bulk = true)
+        public void export() {
+        }
+
+        public void upsert() {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package app.popdratingsvc.web;
+
+import app.popdratingsvc.exception.InvalidRequestException;
+import app.popdratingsvc.service.MovieStatsBroadcaster;
+import app.popdratingsvc.service.RatingChangeFeed;
+import app.popdratingsvc.service.RatingExportService;
+import app.popdratingsvc.service.RatingImportService;
+import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.service.RatingWriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RatingController.class)
+public class RatingControllerAcceptedWriteApiTest {
+
+    @MockitoBean
+    private RatingService ratingService;
+
+    @MockitoBean
+    private RatingExportService ratingExportService;
+
+    @MockitoBean
+    private RatingImportService ratingImportService;
+
+    @MockitoBean
+    private RatingChangeFeed ratingChangeFeed;
+
+    @MockitoBean
+    private MovieStatsBroadcaster movieStatsBroadcaster;
+
+    @MockitoBean
+    private RatingWriteAheadLog ratingWriteAheadLog;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void postUpsertRating_whenWriteAheadLogIsEnabled_shouldAppendAndReturn202Accepted() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+
+        mockMvc.perform(post("/api/v1/ratings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody(userId, movieId, 9)))
+                .andExpect(status().isAccepted())
+                .andExpect(content().string(""));
+
+        verify(ratingWriteAheadLog).append(argThat(request -> request.getUserId().equals(userId)
+                && request.getMovieId().equals(movieId) && request.getRating() == 9));
+        verify(ratingService, never()).upsert(any());
+    }
+
+    @Test
+    void postUpsertRating_whenWriteAheadLogRejectsRequest_shouldReturn400BadRequest() throws Exception {
+        doThrow(new InvalidRequestException("Rating must be between 1 and 10")).when(ratingWriteAheadLog).append(any());
+
+        mockMvc.perform(post("/api/v1/ratings")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody(UUID.randomUUID(), UUID.randomUUID(), 11)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Rating must be between 1 and 10"));
+    }
+
+    private static String requestBody(UUID userId, UUID movieId, int rating) {
+        return """
+                {
+                    "userId": "%s",
+                    "movieId": "%s",
+                    "rating": %d
+                }
+                """.formatted(userId, movieId, rating);
+    }
+}
@@ -1,22 +1,54 @@
 package app.popdratingsvc.web;
 
+import app.popdratingsvc.exception.CursorExpiredException;
+import app.popdratingsvc.exception.InvalidRequestException;
 import app.popdratingsvc.exception.NotFoundException;
 import app.popdratingsvc.model.Rating;
+import app.popdratingsvc.service.MovieStatsBroadcaster;
+import app.popdratingsvc.service.RatingChangeFeed;
+import app.popdratingsvc.service.RatingExport;
+import app.popdratingsvc.service.RatingFileFormat;
+import app.popdratingsvc.service.RatingExportService;
+import app.popdratingsvc.service.RatingImportService;
 import app.popdratingsvc.service.RatingService;
+import app.popdratingsvc.web.dto.MovieRatingHistogramResponse;
+import app.popdratingsvc.web.dto.MovieRatingStatsResponse;
+import app.popdratingsvc.web.dto.RatingBatchItemResponse;
+import app.popdratingsvc.web.dto.RatingBatchItemStatus;
+import app.popdratingsvc.web.dto.RatingBatchResponse;
+import app.popdratingsvc.web.dto.RatingChangeResponse;
+import app.popdratingsvc.web.dto.RatingChangesResponse;
+import app.popdratingsvc.web.dto.RatingHistoryResponse;
+import app.popdratingsvc.web.dto.RatingImportErrorResponse;
+import app.popdratingsvc.web.dto.RatingImportResponse;
 import app.popdratingsvc.web.dto.RatingResponse;
+import app.popdratingsvc.web.dto.TopMovieResponse;
+import app.popdratingsvc.web.dto.TrendingMovieResponse;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -27,6 +59,18 @@ public class RatingControllerApiTest {
     @MockitoBean
     private RatingService ratingService;
 
+    @MockitoBean
+    private RatingExportService ratingExportService;
+
+    @MockitoBean
+    private RatingImportService ratingImportService;
+
+    @MockitoBean
+    private RatingChangeFeed ratingChangeFeed;
+
+    @MockitoBean
+    private MovieStatsBroadcaster movieStatsBroadcaster;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -66,20 +110,56 @@ public class RatingControllerApiTest {
         verify(ratingService).upsert(any());
     }
 
+    @Test
+    void postUpsertRatings_shouldReturn200OkAndReturnPerItemResults() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movie1 = UUID.randomUUID();
+        UUID movie2 = UUID.randomUUID();
+        RatingBatchResponse response = RatingBatchResponse.builder()
+                .created(1)
+                .updated(0)
+                .rejected(1)
+                .results(List.of(
+                        RatingBatchItemResponse.builder().index(0).userId(userId).movieId(movie1).rating(7).status(RatingBatchItemStatus.CREATED).build(),
+                        RatingBatchItemResponse.builder().index(1).userId(userId).movieId(movie2).rating(42).status(RatingBatchItemStatus.REJECTED).message("Rating must be between 1 and 10").build()))
+                .build();
+        when(ratingService.upsertAll(any())).thenReturn(response);
+
+        String requestBody = """
+                [
+                    {"userId": "%s", "movieId": "%s", "rating": 7},
+                    {"userId": "%s", "movieId": "%s", "rating": 42}
+                ]
+                """.formatted(userId, movie1, userId, movie2);
+
+        MockHttpServletRequestBuilder httpRequest = post("/api/v1/ratings/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody);
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].message").value("Rating must be between 1 and 10"));
+
+        verify(ratingService).upsertAll(argThat(requests -> requests.size() == 2));
+    }
+
     @Test
     void getRatingByUserAndMovie_shouldReturn200OkAndReturnRatingResponse() throws Exception {
         UUID userId = UUID.randomUUID();
         UUID movieId = UUID.randomUUID();
         LocalDateTime now = LocalDateTime.now();
-        Rating rating = Rating.builder()
-                .id(UUID.randomUUID())
+        RatingResponse rating = RatingResponse.builder()
                 .userId(userId)
                 .movieId(movieId)
                 .rating(4)
                 .createdOn(now)
                 .updatedOn(now)
                 .build();
-        when(ratingService.findByUserIdAndMovieId(userId, movieId)).thenReturn(rating);
+        when(ratingService.getRating(userId, movieId)).thenReturn(rating);
 
         MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{userId}/{movieId}", userId, movieId);
 
@@ -89,14 +169,14 @@ public class RatingControllerApiTest {
                 .andExpect(jsonPath("$.movieId").value(movieId.toString()))
                 .andExpect(jsonPath("$.rating").value(4));
 
-        verify(ratingService).findByUserIdAndMovieId(userId, movieId);
+        verify(ratingService).getRating(userId, movieId);
     }
 
     @Test
     void getRatingByUserAndMovie_whenRatingNotFound_shouldReturn404NotFound() throws Exception {
         UUID userId = UUID.randomUUID();
         UUID movieId = UUID.randomUUID();
-        when(ratingService.findByUserIdAndMovieId(userId, movieId))
+        when(ratingService.getRating(userId, movieId))
                 .thenThrow(new NotFoundException("Rating not found"));
 
         MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{userId}/{movieId}", userId, movieId);
@@ -104,7 +184,29 @@ public class RatingControllerApiTest {
         mockMvc.perform(httpRequest)
                 .andExpect(status().isNotFound());
 
-        verify(ratingService).findByUserIdAndMovieId(userId, movieId);
+        verify(ratingService).getRating(userId, movieId);
+    }
+
+    @Test
+    void postLookupRatingsByUser_shouldReturn200OkAndReturnRatingsKeyedByMovieId() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID ratedMovie = UUID.randomUUID();
+        UUID unratedMovie = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        when(ratingService.getRatings(userId, List.of(ratedMovie, unratedMovie)))
+                .thenReturn(Map.of(ratedMovie, new RatingResponse(7, userId, ratedMovie, now, now)));
+
+        MockHttpServletRequestBuilder httpRequest = post("/api/v1/ratings/{userId}/lookup", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"%s\", \"%s\"]".formatted(ratedMovie, unratedMovie));
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$['%s'].rating".formatted(ratedMovie)).value(7))
+                .andExpect(jsonPath("$['%s']".formatted(unratedMovie)).doesNotExist());
+
+        verify(ratingService).getRatings(userId, List.of(ratedMovie, unratedMovie));
     }
 
     @Test
@@ -138,8 +240,10 @@ public class RatingControllerApiTest {
     @Test
     void getMovieRatingStats_shouldReturn200OkAndReturnMovieRatingStatsResponse() throws Exception {
         UUID movieId = UUID.randomUUID();
-        when(ratingService.getAverageRatingForAMovie(movieId)).thenReturn(4.5);
-        when(ratingService.getAllRatingsForAMovieCount(movieId)).thenReturn(10);
+        when(ratingService.getMovieRatingStats(movieId)).thenReturn(MovieRatingStatsResponse.builder()
+                .averageRating(4.5)
+                .totalRatings(10)
+                .build());
 
         MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{movieId}/stats", movieId);
 
@@ -148,14 +252,52 @@ public class RatingControllerApiTest {
                 .andExpect(jsonPath("$.averageRating").value(4.5))
                 .andExpect(jsonPath("$.totalRatings").value(10));
 
-        verify(ratingService).getAverageRatingForAMovie(movieId);
-        verify(ratingService).getAllRatingsForAMovieCount(movieId);
+        verify(ratingService).getMovieRatingStats(movieId);
+        verify(ratingService, never()).getAverageRatingForAMovie(any());
+        verify(ratingService, never()).getAllRatingsForAMovieCount(any());
+    }
+
+    @Test
+    void getMovieRatingStats_shouldReturnETagFromMovieVersionAndReadStatsAtThatVersion() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        when(ratingService.findMovieVersion(movieId)).thenReturn(Optional.of(7L));
+        when(ratingService.getMovieRatingStats(movieId, 7L)).thenReturn(MovieRatingStatsResponse.builder()
+                .averageRating(4.5)
+                .totalRatings(10)
+                .build());
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{movieId}/stats", movieId)
+                .header("If-None-Match", "\"6\"");
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7\""))
+                .andExpect(jsonPath("$.totalRatings").value(10));
+
+        verify(ratingService, never()).getMovieRatingStats(any(UUID.class));
+    }
+
+    @Test
+    void getMovieRatingStats_whenETagMatches_shouldReturn304WithoutReadingStats() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        when(ratingService.findMovieVersion(movieId)).thenReturn(Optional.of(7L));
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{movieId}/stats", movieId)
+                .header("If-None-Match", "\"7\"");
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"7\""))
+                .andExpect(content().string(""));
+
+        verify(ratingService, never()).getMovieRatingStats(any(UUID.class));
+        verify(ratingService, never()).getMovieRatingStats(any(UUID.class), anyLong());
     }
 
     @Test
     void getMovieRatingStats_whenNoRatingsFound_shouldReturn404NotFound() throws Exception {
         UUID movieId = UUID.randomUUID();
-        when(ratingService.getAverageRatingForAMovie(movieId))
+        when(ratingService.getMovieRatingStats(movieId))
                 .thenThrow(new NotFoundException("No ratings found"));
 
         MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{movieId}/stats", movieId);
@@ -163,7 +305,213 @@ public class RatingControllerApiTest {
         mockMvc.perform(httpRequest)
                 .andExpect(status().isNotFound());
 
-        verify(ratingService).getAverageRatingForAMovie(movieId);
+        verify(ratingService).getMovieRatingStats(movieId);
+    }
+
+    @Test
+    void postMovieRatingStatsBatch_shouldReturn200OkAndReturnStatsKeyedByMovieId() throws Exception {
+        UUID ratedMovie = UUID.randomUUID();
+        UUID unratedMovie = UUID.randomUUID();
+        Map<UUID, MovieRatingStatsResponse> stats = new java.util.LinkedHashMap<>();
+        stats.put(ratedMovie, MovieRatingStatsResponse.builder().averageRating(8.0).totalRatings(2).build());
+        stats.put(unratedMovie, MovieRatingStatsResponse.builder().totalRatings(0).build());
+        when(ratingService.getMovieRatingStats(List.of(ratedMovie, unratedMovie))).thenReturn(stats);
+
+        MockHttpServletRequestBuilder httpRequest = post("/api/v1/ratings/stats:batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"%s\", \"%s\"]".formatted(ratedMovie, unratedMovie));
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['%s'].averageRating".formatted(ratedMovie)).value(8.0))
+                .andExpect(jsonPath("$['%s'].totalRatings".formatted(ratedMovie)).value(2))
+                .andExpect(jsonPath("$['%s'].averageRating".formatted(unratedMovie)).doesNotExist())
+                .andExpect(jsonPath("$['%s'].totalRatings".formatted(unratedMovie)).value(0));
+
+        verify(ratingService).getMovieRatingStats(List.of(ratedMovie, unratedMovie));
+    }
+
+    @Test
+    void getMovieRatingHistogram_shouldReturn200OkAndReturnHistogramResponse() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        when(ratingService.getMovieRatingHistogram(movieId)).thenReturn(MovieRatingHistogramResponse.builder()
+                .totalRatings(3)
+                .distribution(Map.of(1, 0L, 7, 2L, 10, 1L))
+                .median(7.0)
+                .percentiles(Map.of("p50", 7, "p90", 10))
+                .build());
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{movieId}/histogram", movieId);
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRatings").value(3))
+                .andExpect(jsonPath("$.distribution.7").value(2))
+                .andExpect(jsonPath("$.median").value(7.0))
+                .andExpect(jsonPath("$.percentiles.p90").value(10));
+
+        verify(ratingService).getMovieRatingHistogram(movieId);
+    }
+
+    @Test
+    void exportRatings_shouldStreamBodyWithFormatHeaders() throws Exception {
+        RatingExport export = new RatingExport(RatingFileFormat.CSV, LocalDateTime.of(2026, 1, 1, 0, 0));
+        when(ratingExportService.prepareExport("csv", "2026-01-01T00:00:00")).thenReturn(export);
+        when(ratingExportService.writeExport(eq(export), any(OutputStream.class))).thenAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("id,userId\n".getBytes(StandardCharsets.UTF_8));
+            return 0L;
+        });
+
+        mockMvc.perform(get("/api/v1/ratings/export").param("format", "csv").param("since", "2026-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"ratings.csv\""))
+                .andExpect(content().string("id,userId\n"));
+
+        verify(ratingExportService).writeExport(eq(export), any(OutputStream.class));
+    }
+
+    @Test
+    void exportRatings_withInvalidFormat_shouldReturn400BadRequestWithoutStreaming() throws Exception {
+        when(ratingExportService.prepareExport("xml", null)).thenThrow(new InvalidRequestException("Format must be one of ndjson, csv"));
+
+        mockMvc.perform(get("/api/v1/ratings/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Format must be one of ndjson, csv"));
+
+        verify(ratingExportService, never()).writeExport(any(), any());
+    }
+
+    @Test
+    void importRatings_shouldPassRawBodyAndReturnReport() throws Exception {
+        String body = "userId,movieId,rating\n";
+        when(ratingImportService.importRatings(eq("csv"), eq(1000L), any(InputStream.class))).thenAnswer(invocation -> {
+            assertEquals(body, new String(invocation.getArgument(2, InputStream.class).readAllBytes(), StandardCharsets.UTF_8));
+            return RatingImportResponse.builder()
+                    .completed(true)
+                    .linesRead(1)
+                    .checkpointLine(1000)
+                    .errors(List.of(RatingImportErrorResponse.builder().line(4).message("Malformed csv line").build()))
+                    .build();
+        });
+
+        mockMvc.perform(post("/api/v1/ratings/import")
+                        .param("format", "csv")
+                        .param("resumeAfterLine", "1000")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.checkpointLine").value(1000))
+                .andExpect(jsonPath("$.errors[0].line").value(4))
+                .andExpect(jsonPath("$.errors[0].message").value("Malformed csv line"));
+    }
+
+    @Test
+    void getTopMovies_shouldReturn200OkAndReturnRankedMovies() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        when(ratingService.getTopMovies(5, 20)).thenReturn(List.of(TopMovieResponse.builder()
+                .rank(1)
+                .movieId(movieId)
+                .score(8.4)
+                .averageRating(8.6)
+                .totalRatings(120)
+                .build()));
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/top").param("limit", "5").param("minVotes", "20");
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].rank").value(1))
+                .andExpect(jsonPath("$[0].movieId").value(movieId.toString()))
+                .andExpect(jsonPath("$[0].score").value(8.4))
+                .andExpect(jsonPath("$[0].totalRatings").value(120));
+
+        verify(ratingService).getTopMovies(5, 20);
+    }
+
+    @Test
+    void getTopMovies_withoutParameters_shouldUseDefaults() throws Exception {
+        when(ratingService.getTopMovies(10, 1)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/v1/ratings/top"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+
+        verify(ratingService).getTopMovies(10, 1);
+    }
+
+    @Test
+    void getTrendingMovies_shouldReturn200OkAndReturnRankedMovies() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        when(ratingService.getTrendingMovies("hour", 3)).thenReturn(List.of(TrendingMovieResponse.builder()
+                .rank(1)
+                .movieId(movieId)
+                .ratingsCount(42)
+                .averageRating(7.5)
+                .build()));
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/trending").param("window", "hour").param("limit", "3");
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].rank").value(1))
+                .andExpect(jsonPath("$[0].movieId").value(movieId.toString()))
+                .andExpect(jsonPath("$[0].ratingsCount").value(42))
+                .andExpect(jsonPath("$[0].averageRating").value(7.5));
+
+        verify(ratingService).getTrendingMovies("hour", 3);
+    }
+
+    @Test
+    void getTrendingMovies_withUnknownWindow_shouldReturn400BadRequest() throws Exception {
+        when(ratingService.getTrendingMovies("month", 10)).thenThrow(new InvalidRequestException("Window must be one of hour, day, week"));
+
+        mockMvc.perform(get("/api/v1/ratings/trending").param("window", "month"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Window must be one of hour, day, week"));
+    }
+
+    @Test
+    void getMovieRatingHistogram_whenNoRatingsFound_shouldReturn404NotFound() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        when(ratingService.getMovieRatingHistogram(movieId))
+                .thenThrow(new NotFoundException("No ratings found"));
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{movieId}/histogram", movieId);
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isNotFound());
+
+        verify(ratingService).getMovieRatingHistogram(movieId);
+    }
+
+    @Test
+    void postRecomputeMovieRatingStats_shouldReturn200OkAndReturnRecomputedStats() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        when(ratingService.recomputeMovieAggregate(movieId)).thenReturn(MovieRatingStatsResponse.builder()
+                .averageRating(7.0)
+                .totalRatings(3)
+                .build());
+
+        MockHttpServletRequestBuilder httpRequest = post("/api/v1/ratings/{movieId}/stats/recompute", movieId);
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.averageRating").value(7.0))
+                .andExpect(jsonPath("$.totalRatings").value(3));
+
+        verify(ratingService).recomputeMovieAggregate(movieId);
+    }
+
+    @Test
+    void postRecomputeAllMovieRatingStats_shouldReturn204NoContent() throws Exception {
+        MockHttpServletRequestBuilder httpRequest = post("/api/v1/ratings/stats/recompute");
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isNoContent());
+
+        verify(ratingService).recomputeAllMovieAggregates();
     }
 
     @Test
@@ -180,6 +528,35 @@ public class RatingControllerApiTest {
         verify(ratingService).getAllRatedMoviesCountByUser(userId);
     }
 
+    @Test
+    void getUserRatingStats_shouldReturnETagFromUserVersionAndCountAtThatVersion() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(ratingService.findUserVersion(userId)).thenReturn(Optional.of(3L));
+        when(ratingService.getAllRatedMoviesCountByUser(userId, 3L)).thenReturn(5);
+
+        mockMvc.perform(get("/api/v1/ratings/{userId}/user", userId).header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.ratedMovies").value(5));
+
+        verify(ratingService, never()).getAllRatedMoviesCountByUser(any());
+    }
+
+    @Test
+    void getUserRatingStats_whenETagMatches_shouldReturn304WithoutCountingRatings() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(ratingService.findUserVersion(userId)).thenReturn(Optional.of(3L));
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{userId}/user", userId)
+                .header("If-None-Match", "\"3\"");
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isNotModified());
+
+        verify(ratingService, never()).getAllRatedMoviesCountByUser(any());
+        verify(ratingService, never()).getAllRatedMoviesCountByUser(any(), anyLong());
+    }
+
     @Test
     void getUserRatingStats_whenNoRatingsFound_shouldReturn404NotFound() throws Exception {
         UUID userId = UUID.randomUUID();
@@ -227,6 +604,21 @@ public class RatingControllerApiTest {
         verify(ratingService).getLatestRatingsByUserId(userId);
     }
 
+    @Test
+    void getLatestRatingsByUser_whenETagMatches_shouldReturn304WithoutLoadingRatings() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(ratingService.findUserVersion(userId)).thenReturn(Optional.of(3L));
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{userId}/latest-ratings", userId)
+                .header("If-None-Match", "\"3\"");
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isNotModified());
+
+        verify(ratingService, never()).getLatestRatingsByUserId(any());
+        verify(ratingService, never()).getLatestRatingsByUserId(any(), anyLong());
+    }
+
     @Test
     void getLatestRatingsByUser_whenNoRatingsFound_shouldReturn404NotFound() throws Exception {
         UUID userId = UUID.randomUUID();
@@ -240,4 +632,112 @@ public class RatingControllerApiTest {
 
         verify(ratingService).getLatestRatingsByUserId(userId);
     }
+
+    @Test
+    void getRatingHistoryByUser_shouldReturn200OkAndReturnPageWithNextCursor() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        String after = "2024-05-01T10:15:30.123,%s".formatted(UUID.randomUUID());
+        RatingHistoryResponse response = RatingHistoryResponse.builder()
+                .ratings(List.of(RatingResponse.builder()
+                        .userId(userId)
+                        .movieId(UUID.randomUUID())
+                        .rating(6)
+                        .createdOn(now)
+                        .updatedOn(now)
+                        .build()))
+                .nextCursor("next-cursor")
+                .build();
+        when(ratingService.getRatingHistory(userId, after, 1)).thenReturn(response);
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{userId}/history", userId)
+                .param("after", after)
+                .param("size", "1");
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ratings.length()").value(1))
+                .andExpect(jsonPath("$.ratings[0].rating").value(6))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"));
+
+        verify(ratingService).getRatingHistory(userId, after, 1);
+    }
+
+    @Test
+    void getRatingHistoryByUser_whenCursorIsInvalid_shouldReturn400BadRequest() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(ratingService.getRatingHistory(userId, "garbage", 20))
+                .thenThrow(new InvalidRequestException("Invalid history cursor [garbage]"));
+
+        MockHttpServletRequestBuilder httpRequest = get("/api/v1/ratings/{userId}/history", userId)
+                .param("after", "garbage");
+
+        mockMvc.perform(httpRequest)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid history cursor [garbage]"));
+
+        verify(ratingService).getRatingHistory(userId, "garbage", 20);
+    }
+
+    @Test
+    void getRatingChanges_shouldReturn200OkWithChangesAndNextCursor() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID movieId = UUID.randomUUID();
+        RatingChangesResponse response = RatingChangesResponse.builder()
+                .changes(List.of(RatingChangeResponse.builder()
+                        .sequence(42)
+                        .userId(userId)
+                        .movieId(movieId)
+                        .previousRating(7)
+                        .rating(null)
+                        .occurredOn(LocalDateTime.now())
+                        .build()))
+                .nextCursor(42)
+                .build();
+        when(ratingChangeFeed.awaitChanges(41, 50, Duration.ofSeconds(10))).thenReturn(CompletableFuture.completedFuture(response));
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/ratings/changes")
+                        .param("cursor", "41")
+                        .param("limit", "50")
+                        .param("waitSeconds", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(1))
+                .andExpect(jsonPath("$.changes[0].sequence").value(42))
+                .andExpect(jsonPath("$.changes[0].previousRating").value(7))
+                .andExpect(jsonPath("$.changes[0].rating").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(42));
+    }
+
+    @Test
+    void getRatingChanges_whenCursorIsCompacted_shouldReturn410Gone() throws Exception {
+        when(ratingChangeFeed.awaitChanges(5, 100, Duration.ZERO))
+                .thenThrow(new CursorExpiredException("Changes after cursor 5 have been compacted; restart from cursor 0"));
+
+        mockMvc.perform(get("/api/v1/ratings/changes").param("cursor", "5"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.message").value("Changes after cursor 5 have been compacted; restart from cursor 0"));
+    }
+
+    @Test
+    void getMovieRatingStatsStream_shouldOpenEventStreamFromBroadcaster() throws Exception {
+        UUID movieId = UUID.randomUUID();
+        SseEmitter emitter = new SseEmitter();
+        when(movieStatsBroadcaster.subscribe(movieId)).thenReturn(emitter);
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/ratings/{movieId}/stats/stream", movieId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().name("stats").data("{\"totalRatings\":3}", MediaType.APPLICATION_JSON));
+        emitter.complete();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string("event:stats\ndata:{\"totalRatings\":3}\n\n"));
+        verify(movieStatsBroadcaster).subscribe(movieId);
+    }
 }